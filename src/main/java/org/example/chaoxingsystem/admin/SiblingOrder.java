@@ -0,0 +1,88 @@
+package org.example.chaoxingsystem.admin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 稀疏的同级排序（组织机构、菜单的 sort_order）：
+ * - 序值之间保留 GAP 间隔，拖拽插入到两个相邻节点之间时取中值，只写被移动的节点
+ * - 相邻序值已无空隙时同步将整组按 GAP 重新分配（一条批量 UPDATE），剩余空隙小于 MIN_GAP 时提交后在后台重排
+ * - 后台重排按分组键去重，同一分组同时只排队一次
+ */
+@Component
+public class SiblingOrder implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(SiblingOrder.class);
+  public static final int GAP = 1024;
+  public static final int MIN_GAP = 4;
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "sibling-order-rebalance");
+    t.setDaemon(true);
+    return t;
+  });
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  /**
+   * 计算拖拽节点插入到 siblings 第 pos 个位置之前（pos == size 表示末尾）时的序值
+   * siblings 为目标父节点下按序排列、且不含拖拽节点的同级列表
+   */
+  public static <T> Placement place(List<T> siblings, int pos, long dragId, ToLongFunction<T> id, ToIntFunction<T> order) {
+    Integer prev = pos > 0 ? order.applyAsInt(siblings.get(pos - 1)) : null;
+    Integer next = pos < siblings.size() ? order.applyAsInt(siblings.get(pos)) : null;
+    long lo = prev == null ? 0L : prev;
+    long hi = next == null ? lo + 2L * GAP : next;
+    if (hi - lo >= 2 && hi <= Integer.MAX_VALUE) {
+      int mid = (int) ((lo + hi) >>> 1);
+      return new Placement(mid, Map.of(), hi - lo < 2L * MIN_GAP);
+    }
+    // 无空隙：整组按 GAP 重新分配，拖拽节点占据第 pos 个位置
+    Map<Long, Integer> respaced = new LinkedHashMap<>();
+    int dragOrder = (pos + 1) * GAP;
+    for (int i = 0; i < siblings.size(); i++) {
+      T s = siblings.get(i);
+      int target = (i < pos ? i + 1 : i + 2) * GAP;
+      if (order.applyAsInt(s) != target) respaced.put(id.applyAsLong(s), target);
+    }
+    return new Placement(dragOrder, respaced, false);
+  }
+
+  /** 按现有顺序重新分配间隔序值，返回有变化的项 */
+  public static <T> Map<Long, Integer> respace(List<T> ordered, ToLongFunction<T> id, ToIntFunction<T> order) {
+    Map<Long, Integer> changed = new LinkedHashMap<>();
+    for (int i = 0; i < ordered.size(); i++) {
+      int target = (i + 1) * GAP;
+      if (order.applyAsInt(ordered.get(i)) != target) changed.put(id.applyAsLong(ordered.get(i)), target);
+    }
+    return changed;
+  }
+
+  /** 后台重排某分组；同一分组已在排队时忽略 */
+  public void rebalanceLater(String key, Runnable task) {
+    if (!pending.add(key)) return;
+    executor.execute(() -> {
+      pending.remove(key);
+      try {
+        task.run();
+      } catch (Exception ex) {
+        log.warn("同级排序重排失败: {}", key, ex);
+      }
+    });
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /** 插入结果：拖拽节点的序值、需同步改写的其他同级序值、是否需要后台重排 */
+  public record Placement(int order, Map<Long, Integer> respaced, boolean tight) {}
+}
@@ -10,6 +10,7 @@ public interface SystemModuleMapper {
   SystemModule selectById(@Param("id") Long id);
   Long countByCode(@Param("code") String code);
   SystemModule selectByCode(@Param("code") String code);
+  List<SystemModule> selectAll();
   Long count(@Param("keyword") String keyword, @Param("category") String category, @Param("enabled") Boolean enabled);
   List<SystemModule> selectPage(@Param("keyword") String keyword, @Param("category") String category, @Param("enabled") Boolean enabled, @Param("offset") int offset, @Param("limit") int limit);
   List<SystemModule> selectVisibleByRole(@Param("role") String role);
@@ -1,5 +1,6 @@
 package org.example.chaoxingsystem.admin.module;
 
+import org.example.chaoxingsystem.config.ModuleStateRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,13 +12,16 @@ import java.util.stream.Collectors;
 
 /**
  * 系统模块服务：分页统计、CRUD、启用/禁用切换、字符串与列表的互转工具
+ * 写操作提交后重建 ModuleStateRegistry 快照
  */
 @Service
 public class SystemModuleService {
   private final SystemModuleMapper mapper;
+  private final ModuleStateRegistry moduleState;
 
-  public SystemModuleService(SystemModuleMapper mapper) {
+  public SystemModuleService(SystemModuleMapper mapper, ModuleStateRegistry moduleState) {
     this.mapper = mapper;
+    this.moduleState = moduleState;
   }
 
   public long count(String keyword, String category, Boolean enabled) {
@@ -41,6 +45,7 @@ public class SystemModuleService {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "模块编码已存在");
     }
     mapper.insert(m);
+    moduleState.rebuildAfterCommit();
     return m.getId();
   }
 
@@ -52,11 +57,13 @@ public class SystemModuleService {
     }
     m.setId(id);
     mapper.updateById(m);
+    moduleState.rebuildAfterCommit();
   }
 
   @Transactional
   public void delete(Long id) {
     mapper.deleteById(id);
+    moduleState.rebuildAfterCommit();
   }
 
   @Transactional
@@ -67,6 +74,7 @@ public class SystemModuleService {
     }
     exist.setEnabled(enabled);
     mapper.updateById(exist);
+    moduleState.rebuildAfterCommit();
   }
 
   public static String join(List<String> list) {
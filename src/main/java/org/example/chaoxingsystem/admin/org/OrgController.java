@@ -1,17 +1,22 @@
 package org.example.chaoxingsystem.admin.org;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.example.chaoxingsystem.admin.org.dto.MoveRequest;
 import org.example.chaoxingsystem.admin.org.dto.SaveOrgRequest;
+import org.example.chaoxingsystem.admin.user.dto.UserImportResult;
 import org.example.chaoxingsystem.config.ModuleCheck;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.example.chaoxingsystem.user.User;
 import org.example.chaoxingsystem.user.UserMapper;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.List;
 
@@ -21,25 +26,39 @@ import java.util.List;
 @ModuleCheck(moduleCode = "sys_org")
 public class OrgController {
   private final OrgService service;
+  private final OrgTreeIndex treeIndex;
   private final OrganizationMapper mapper;
   private final StudentProfileMapper studentMapper;
   private final TeacherProfileMapper teacherMapper;
   private final UserMapper userMapper;
+  private final RosterAssignService rosterService;
 
-  public OrgController(OrgService service, OrganizationMapper mapper, StudentProfileMapper studentMapper, TeacherProfileMapper teacherMapper, UserMapper userMapper) {
+  public OrgController(OrgService service, OrgTreeIndex treeIndex, OrganizationMapper mapper, StudentProfileMapper studentMapper, TeacherProfileMapper teacherMapper, UserMapper userMapper, RosterAssignService rosterService) {
     this.service = service;
+    this.treeIndex = treeIndex;
     this.mapper = mapper;
     this.studentMapper = studentMapper;
     this.teacherMapper = teacherMapper;
     this.userMapper = userMapper;
+    this.rosterService = rosterService;
   }
 
-  /** 获取组织机构树 */
+  /** 获取组织机构树（常驻树按版本缓存的响应体，节点附直属与子树人数） */
   @GetMapping("/tree")
   @PreAuthorize("hasRole('ADMIN')")
-  public ResponseEntity<ApiResponse<List<?>>> tree() {
-    var data = service.getTree();
-    return ResponseEntity.ok(ApiResponse.success("success", data));
+  public ResponseEntity<byte[]> tree() {
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(treeIndex.treeBytes());
+  }
+
+  /** 懒加载：获取某节点的直接子节点（不传 parentId 返回顶层），附 hasChildren 标记 */
+  @GetMapping("/children")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<List<Map<String, Object>>>> children(@RequestParam(value = "parentId", required = false) Long parentId) {
+    var list = treeIndex.childrenOf(parentId);
+    if (list == null) {
+      return ResponseEntity.badRequest().body(ApiResponse.error(400, "机构不存在"));
+    }
+    return ResponseEntity.ok(ApiResponse.success("success", list));
   }
 
   /** 拖拽移动/排序机构 */
@@ -97,7 +116,29 @@ public class OrgController {
     }
   }
 
-  /** 为机构分配成员（班级->学生，部门->教师）。支持按用户名分配，自动创建档案或更新归属 */
+  /** 子树人数统计（闭包表关联计数） */
+  @GetMapping("/{id}/member-counts")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<Map<String, Object>>> memberCounts(@PathVariable("id") Long id) {
+    return ResponseEntity.ok(ApiResponse.success("success", service.countSubtreeMembers(id)));
+  }
+
+  /** 机构的祖先链（含自身），由近及远 */
+  @GetMapping("/{id}/ancestors")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<List<Organization>>> ancestors(@PathVariable("id") Long id) {
+    return ResponseEntity.ok(ApiResponse.success("success", service.ancestors(id)));
+  }
+
+  /** 学生所属的指定类型上级机构（如 type=college），不传 type 返回所在班级 */
+  @GetMapping("/student/{userId}/ancestor")
+  @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+  public ResponseEntity<ApiResponse<Organization>> studentAncestor(@PathVariable("userId") Long userId,
+                                                                  @RequestParam(value = "type", required = false) String type) {
+    return ResponseEntity.ok(ApiResponse.success("success", service.studentAncestor(userId, type)));
+  }
+
+  /** 为机构分配成员（班级->学生，部门->教师）。支持按用户名分配，自动创建档案或更新归属，并增量调整树上的人数 */
   @PostMapping("/{id}/members/assign")
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<ApiResponse<Void>> assignMember(@PathVariable("id") Long id, @RequestBody Map<String, Object> req) {
@@ -132,24 +173,58 @@ public class OrgController {
     if ("student".equals(userType)) {
       Long exist = studentMapper.countByUserId(user.getId());
       if (exist != null && exist > 0) {
+        Long oldClassId = studentMapper.selectClassIdByUserId(user.getId());
         studentMapper.updateClassIdByUserId(user.getId(), id);
+        if (!id.equals(oldClassId)) {
+          treeIndex.adjustMembers(oldClassId, -1, 0);
+          treeIndex.adjustMembers(id, 1, 0);
+        }
       } else {
         String sno = "S" + year + String.format("%04d", user.getId());
         String major = "UNASSIGNED";
         studentMapper.insertStudentProfile(user.getId(), sno, user.getRealName(), null, id, major, year, null);
+        treeIndex.adjustMembers(id, 1, 0);
       }
     } else if ("teacher".equals(userType)) {
       Long exist = teacherMapper.countByUserId(user.getId());
       if (exist != null && exist > 0) {
+        Long oldDeptId = teacherMapper.selectDeptIdByUserId(user.getId());
         teacherMapper.updateDeptIdByUserId(user.getId(), id);
+        if (!id.equals(oldDeptId)) {
+          treeIndex.adjustMembers(oldDeptId, 0, -1);
+          treeIndex.adjustMembers(id, 0, 1);
+        }
       } else {
         String tno = "T" + year + String.format("%04d", user.getId());
         teacherMapper.insertTeacherProfile(user.getId(), tno, user.getRealName(), id, null, null);
+        treeIndex.adjustMembers(id, 0, 1);
       }
     }
     return ResponseEntity.ok(ApiResponse.success("分配成功", null));
   }
 
+  /**
+   * 名册批量分配：请求体为 CSV 或 NDJSON（orgCode 与 username 或 number），服务端边读边写，返回逐行错误
+   * 格式由 format 参数指定，缺省时按 Content-Type 判断（含 json 视为 NDJSON，否则为 CSV）
+   */
+  @PostMapping("/members/roster")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<UserImportResult>> assignRoster(HttpServletRequest request,
+                                                                    @RequestParam(value = "format", required = false) String format,
+                                                                    @RequestParam(value = "batchSize", required = false) Integer batchSize) throws IOException {
+    String fmt = format;
+    if (fmt == null) {
+      String contentType = request.getContentType() == null ? "" : request.getContentType().toLowerCase(Locale.ROOT);
+      fmt = contentType.contains("json") ? "ndjson" : "csv";
+    }
+    fmt = fmt.toLowerCase(Locale.ROOT);
+    if (!"csv".equals(fmt) && !"ndjson".equals(fmt)) {
+      return ResponseEntity.badRequest().body(ApiResponse.error(400, "仅支持 csv 或 ndjson 格式"));
+    }
+    UserImportResult result = rosterService.assign(request.getInputStream(), fmt, batchSize);
+    return ResponseEntity.ok(ApiResponse.success("分配完成", result));
+  }
+
   /** 候选成员搜索（根据机构类型：班级->student，部门->teacher） */
   @GetMapping("/{id}/members/candidates")
   @PreAuthorize("hasRole('ADMIN')")
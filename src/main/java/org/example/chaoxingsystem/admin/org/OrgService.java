@@ -1,42 +1,33 @@
 package org.example.chaoxingsystem.admin.org;
 
+import org.example.chaoxingsystem.admin.SiblingOrder;
+import org.example.chaoxingsystem.config.AfterCommit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * 组织机构服务：保存、删除、拖拽移动与成员查询
+ * 写操作提交后原地更新常驻的 OrgTreeIndex；同级排序使用 SiblingOrder 的稀疏序值
+ * 新建机构未指定排序时排在同级末尾（最大序值 + GAP）；移动与后台重排在事务中以 FOR UPDATE 读取同级，互斥写入
+ */
 @Service
 public class OrgService {
   private final OrganizationMapper mapper;
+  private final OrgTreeIndex treeIndex;
+  private final SiblingOrder siblingOrder;
+  private final TransactionTemplate transactionTemplate;
 
-  public OrgService(OrganizationMapper mapper) {
+  public OrgService(OrganizationMapper mapper, OrgTreeIndex treeIndex, SiblingOrder siblingOrder,
+                    TransactionTemplate transactionTemplate) {
     this.mapper = mapper;
-  }
-
-  /** 获取完整组织树 */
-  public List<Map<String, Object>> getTree() {
-    List<Organization> all = mapper.selectAll();
-    Map<Long, List<Organization>> byParent = all.stream().collect(Collectors.groupingBy(o -> o.getParentId() == null ? 0L : o.getParentId()));
-    return buildChildren(byParent, 0L);
-  }
-
-  private List<Map<String, Object>> buildChildren(Map<Long, List<Organization>> byParent, Long parentId) {
-    List<Organization> children = byParent.getOrDefault(parentId, List.of());
-    List<Map<String, Object>> result = new ArrayList<>();
-    for (Organization o : children) {
-      Map<String, Object> node = new LinkedHashMap<>();
-      node.put("id", o.getId());
-      node.put("name", o.getName());
-      node.put("code", o.getCode());
-      node.put("type", o.getType());
-      node.put("parentId", o.getParentId());
-      node.put("children", buildChildren(byParent, o.getId()));
-      result.add(node);
-    }
-    return result;
+    this.treeIndex = treeIndex;
+    this.siblingOrder = siblingOrder;
+    this.transactionTemplate = transactionTemplate;
   }
 
   /** 创建或更新组织 */
@@ -52,10 +43,26 @@ public class OrgService {
     } else {
       org.setPath("/");
     }
-    if (org.getSortOrder() == null || org.getSortOrder() < 1) org.setSortOrder(1);
-    if (isUpdate) mapper.updateById(org); else mapper.insert(org);
+    String oldPath = null;
+    if (isUpdate) {
+      Organization before = mapper.selectById(org.getId());
+      oldPath = before == null ? null : before.getPath();
+      boolean reparented = before != null && !Objects.equals(before.getParentId(), org.getParentId());
+      if (org.getSortOrder() == null || org.getSortOrder() < 1) {
+        // 未指定排序：原父节点下保持原序值，换父节点时排到新同级末尾
+        if (before != null && !reparented && before.getSortOrder() != null) org.setSortOrder(before.getSortOrder());
+        else org.setSortOrder(lastOrder(org.getParentId()));
+      }
+      mapper.updateById(org);
+      if (reparented) reparentClosure(org.getId(), org.getParentId());
+    } else {
+      if (org.getSortOrder() == null || org.getSortOrder() < 1) org.setSortOrder(lastOrder(org.getParentId()));
+      mapper.insert(org);
+      mapper.insertClosure(org.getId(), org.getParentId());
+    }
     // 更新自身及子树路径
-    rebuildPath(org.getId());
+    rebuildPath(org.getId(), oldPath);
+    AfterCommit.run(() -> treeIndex.upsert(org));
   }
 
   /** 删除前做级联检查 */
@@ -70,6 +77,8 @@ public class OrgService {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "存在关联人员，禁止删除");
     }
     mapper.deleteById(id);
+    mapper.deleteClosure(id);
+    AfterCommit.run(() -> treeIndex.remove(id));
   }
 
   /** 拖拽移动节点 */
@@ -83,56 +92,76 @@ public class OrgService {
     if (drop.getPath() != null && drop.getPath().startsWith(dragPathPrefix)) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "非法移动：不能移动到自身子孙");
     }
-    if ("inner".equalsIgnoreCase(dropType)) {
-      drag.setParentId(drop.getId());
-      drag.setSortOrder(nextSortOrder(drop.getId()));
-    } else {
-      Long newParent = drop.getParentId();
-      drag.setParentId(newParent);
-      int base = Objects.requireNonNullElse(drop.getSortOrder(), 1);
-      drag.setSortOrder("before".equalsIgnoreCase(dropType) ? base : base + 1);
-      normalizeSiblingsOrder(newParent, drag.getId(), drag.getSortOrder());
+    Long oldParent = drag.getParentId();
+    Long newParent = "inner".equalsIgnoreCase(dropType) ? drop.getId() : drop.getParentId();
+    List<Organization> siblings = new ArrayList<>(mapper.selectChildrenForUpdate(newParent));
+    siblings.removeIf(o -> o.getId().equals(drag.getId()));
+    int pos = siblings.size();
+    if (!"inner".equalsIgnoreCase(dropType)) {
+      for (int i = 0; i < siblings.size(); i++) {
+        if (siblings.get(i).getId().equals(drop.getId())) {
+          pos = "before".equalsIgnoreCase(dropType) ? i : i + 1;
+          break;
+        }
+      }
     }
+    // 稀疏排序：有空隙时只写拖拽节点，无空隙时同步重排整组
+    SiblingOrder.Placement placement = SiblingOrder.place(siblings, pos, drag.getId(), Organization::getId, OrgService::orderOf);
+    drag.setParentId(newParent);
+    drag.setSortOrder(placement.order());
+    if (!placement.respaced().isEmpty()) mapper.updateSortOrders(placement.respaced());
+    String oldPath = drag.getPath();
     mapper.updateById(drag);
-    rebuildPath(drag.getId());
+    rebuildPath(drag.getId(), oldPath);
+    if (!Objects.equals(oldParent, drag.getParentId())) reparentClosure(drag.getId(), drag.getParentId());
+    AfterCommit.run(() -> {
+      treeIndex.setSortOrders(placement.respaced());
+      treeIndex.upsert(drag);
+      if (placement.tight()) siblingOrder.rebalanceLater("org:" + newParent, () -> rebalance(newParent));
+    });
   }
 
-  private int nextSortOrder(Long parentId) {
-    List<Organization> siblings = mapper.selectChildren(parentId);
-    return siblings.isEmpty() ? 1 : siblings.get(siblings.size() - 1).getSortOrder() + 1;
+  /** 后台重排：在独立事务中锁定并重新读取同级，按现有顺序重新分配间隔序值，提交后更新常驻树 */
+  private void rebalance(Long parentId) {
+    Map<Long, Integer> changed = transactionTemplate.execute(status -> {
+      Map<Long, Integer> c = SiblingOrder.respace(mapper.selectChildrenForUpdate(parentId), Organization::getId, OrgService::orderOf);
+      if (!c.isEmpty()) mapper.updateSortOrders(c);
+      return c;
+    });
+    if (changed != null && !changed.isEmpty()) treeIndex.setSortOrders(changed);
   }
 
-  /** 将同级排序重新归一化为 1..N，插入拖拽节点的期望位置 */
-  private void normalizeSiblingsOrder(Long parentId, Long insertId, int insertOrder) {
-    List<Organization> siblings = mapper.selectChildren(parentId);
-    int idx = 1;
-    for (Organization s : siblings) {
-      if (idx == insertOrder) {
-        idx++;
-      }
-      if (!s.getId().equals(insertId)) {
-        s.setSortOrder(idx++);
-        mapper.updateById(s);
-      }
-    }
+  /** 排在同级末尾的序值：最大序值 + GAP */
+  private int lastOrder(Long parentId) {
+    Integer max = mapper.selectMaxSortOrder(parentId);
+    return (int) Math.min((max == null ? 0L : max) + SiblingOrder.GAP, Integer.MAX_VALUE);
   }
 
-  /** 重建某节点及其子树路径 */
-  private void rebuildPath(Long id) {
+  private static int orderOf(Organization o) {
+    return o.getSortOrder() == null ? 0 : o.getSortOrder();
+  }
+
+  /** 闭包表：将子树从原祖先链断开后挂到新父节点下 */
+  private void reparentClosure(Long id, Long newParentId) {
+    mapper.detachClosure(id);
+    if (newParentId != null) mapper.attachClosure(id, newParentId);
+  }
+
+  /**
+   * 重建某节点路径，并将子树中以旧路径为前缀的后代整体替换为新前缀（一条 UPDATE）
+   * oldPath 为修改前的节点路径，新建节点传 null
+   */
+  private void rebuildPath(Long id, String oldPath) {
     Organization node = mapper.selectById(id);
     String prefix = normalizePath(node.getParentId() == null ? "/" : mapper.selectById(node.getParentId()).getPath(), node.getParentId());
-    node.setPath(normalizePath(prefix, node.getId()));
-    mapper.updateById(node);
-    List<Organization> children = mapper.selectSubtree(node.getPath());
-    for (Organization child : children) {
-      if (!child.getId().equals(node.getId())) {
-        String parentPath = mapper.selectById(child.getParentId()).getPath();
-        child.setPath(normalizePath(parentPath, child.getId()));
-        mapper.updateById(child);
-      }
+    String newPath = normalizePath(prefix, node.getId());
+    mapper.updatePath(id, newPath);
+    if (oldPath != null && !oldPath.isEmpty() && !oldPath.equals(newPath)) {
+      mapper.replacePathPrefix(oldPath, newPath, id);
     }
   }
 
+
   private String normalizePath(String parentPath, Long id) {
     String base = (parentPath == null || parentPath.isEmpty()) ? "/" : parentPath;
     if (!base.endsWith("/")) base = base + "/";
@@ -142,7 +171,7 @@ public class OrgService {
   /** 获取机构成员列表：
    *  - class: 返回班级学生
    *  - department/dept: 返回部门教师
-   *  - school/college/其他: 聚合子树中的班级学生与部门教师
+   *  - school/college/其他: 经闭包表一次关联出子树中的班级学生与部门教师
    */
   public List<Map<String, Object>> getMembers(Long orgId) {
     Organization org = mapper.selectById(orgId);
@@ -154,17 +183,26 @@ public class OrgService {
     if ("department".equals(type) || "dept".equals(type)) {
       return mapper.listTeacherMembersByDeptIds(List.of(orgId));
     }
-    List<Organization> subtree = mapper.selectSubtree(org.getPath());
-    List<Long> classIds = new ArrayList<>();
-    List<Long> deptIds = new ArrayList<>();
-    for (Organization o : subtree) {
-      String t = o.getType() == null ? "" : o.getType().toLowerCase();
-      if ("class".equals(t)) classIds.add(o.getId());
-      if ("department".equals(t) || "dept".equals(t)) deptIds.add(o.getId());
-    }
-    List<Map<String, Object>> result = new ArrayList<>();
-    if (!classIds.isEmpty()) result.addAll(mapper.listStudentMembersByClassIds(classIds));
-    if (!deptIds.isEmpty()) result.addAll(mapper.listTeacherMembersByDeptIds(deptIds));
+    List<Map<String, Object>> result = new ArrayList<>(mapper.listStudentMembersInSubtree(orgId));
+    result.addAll(mapper.listTeacherMembersInSubtree(orgId));
     return result;
   }
+
+  /** 子树人数统计：students、teachers、descendants */
+  public Map<String, Object> countSubtreeMembers(Long orgId) {
+    return mapper.countSubtreeMembers(orgId);
+  }
+
+  /** 祖先链（含自身），由近及远 */
+  public List<Organization> ancestors(Long orgId) {
+    return mapper.selectAncestors(orgId);
+  }
+
+  /** 学生所属的最近一个指定类型的上级机构（如所在学院）；type 为空时返回所在班级 */
+  public Organization studentAncestor(Long userId, String type) {
+    for (Organization o : mapper.selectAncestorsOfStudent(userId)) {
+      if (type == null || type.isEmpty() || type.equalsIgnoreCase(o.getType())) return o;
+    }
+    return null;
+  }
 }
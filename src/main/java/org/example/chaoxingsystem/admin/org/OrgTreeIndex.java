@@ -0,0 +1,381 @@
+package org.example.chaoxingsystem.admin.org;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.config.AfterCommit;
+import org.example.chaoxingsystem.user.dto.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻内存的组织机构树：
+ * - 节点按槽位存放在并行数组中（0 号槽位为虚拟根），机构 ID -> 槽位另建索引，子节点为槽位数组，同级按 sort_order、id 排序
+ * - 启动时全量加载；OrgService 的保存/移动/删除在事务提交后原地更新对应节点，每次更新版本号加一
+ * - 整树 JSON（含 ApiResponse 外壳）按版本缓存，/tree 直接写出字节；childrenOf 供超大树按需懒加载
+ * - 每个节点维护直属与子树的学生、教师人数：加载时按班级/部门分组计数一次，之后成员分配与节点移动只沿祖先链增减，随树一并输出
+ * - 其他应用进程的修改由后台线程每 refresh-seconds 秒全量重载一次收敛
+ */
+@Component
+public class OrgTreeIndex implements InitializingBean, DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(OrgTreeIndex.class);
+  private static final int ROOT = 0;
+  private static final int[] NO_CHILDREN = new int[0];
+
+  private final OrganizationMapper mapper;
+  private final ObjectMapper objectMapper;
+  private final long refreshSeconds;
+  private final ScheduledExecutorService scheduler;
+
+  private long[] ids;
+  private long[] parentIds;
+  private int[] parentSlots;
+  private int[] orders;
+  private String[] names;
+  private String[] codes;
+  private String[] types;
+  private int[][] children;
+  private int[] childCounts;
+  private int[] students;
+  private int[] teachers;
+  private int[] subtreeStudents;
+  private int[] subtreeTeachers;
+  private int size;
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+  private final Map<Long, Integer> slotById = new HashMap<>();
+  private volatile long version;
+  private volatile Rendered rendered;
+
+  public OrgTreeIndex(OrganizationMapper mapper, ObjectMapper objectMapper,
+                      @Value("${org.tree.refresh-seconds:60}") long refreshSeconds) {
+    this.mapper = mapper;
+    this.objectMapper = objectMapper;
+    this.refreshSeconds = refreshSeconds;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "org-tree-refresh");
+      t.setDaemon(true);
+      return t;
+    });
+    reset(64);
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    reload();
+    if (refreshSeconds > 0) {
+      scheduler.scheduleWithFixedDelay(() -> {
+        try {
+          reload();
+        } catch (Exception ex) {
+          log.warn("组织机构树重载失败", ex);
+        }
+      }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  /** 从数据库全量重载 */
+  public void reload() {
+    List<Organization> all = mapper.selectAll();
+    List<Map<String, Object>> counts = mapper.countDirectMembers();
+    synchronized (this) {
+      reset(Math.max(64, all.size() + 1));
+      for (Organization o : all) {
+        int slot = allocate(o.getId());
+        write(slot, o);
+      }
+      for (Organization o : all) {
+        int slot = slotById.get(o.getId());
+        Integer parent = parentSlotOf(parentIds[slot]);
+        if (parent != null) appendChild(parent, slot);
+      }
+      for (int i = 0; i < size; i++) {
+        if (childCounts[i] > 1) sortChildren(i);
+      }
+      for (Map<String, Object> row : counts) {
+        Integer slot = slotById.get(((Number) row.get("orgId")).longValue());
+        if (slot == null) continue;
+        students[slot] = ((Number) row.get("students")).intValue();
+        teachers[slot] = ((Number) row.get("teachers")).intValue();
+      }
+      rollUp(ROOT);
+      version++;
+    }
+  }
+
+  /** 新增或更新节点（含父节点、排序变化） */
+  public synchronized void upsert(Organization o) {
+    if (o == null || o.getId() == null) return;
+    Integer existing = slotById.get(o.getId());
+    int slot = existing != null ? existing : allocate(o.getId());
+    if (existing != null && parentSlots[slot] >= 0) {
+      addToAncestors(slot, -subtreeStudents[slot], -subtreeTeachers[slot]);
+      removeChild(parentSlots[slot], slot);
+    }
+    write(slot, o);
+    Integer parent = parentSlotOf(parentIds[slot]);
+    if (parent != null) {
+      insertChild(parent, slot);
+      addToAncestors(slot, subtreeStudents[slot], subtreeTeachers[slot]);
+    }
+    version++;
+  }
+
+  /** 批量更新同级排序 */
+  public synchronized void setSortOrders(Map<Long, Integer> sortOrders) {
+    if (sortOrders.isEmpty()) return;
+    Set<Integer> parents = new HashSet<>();
+    sortOrders.forEach((id, order) -> {
+      Integer slot = slotById.get(id);
+      if (slot == null) return;
+      orders[slot] = order;
+      if (parentSlots[slot] >= 0) parents.add(parentSlots[slot]);
+    });
+    parents.forEach(this::sortChildren);
+    version++;
+  }
+
+  /** 删除节点；其子节点（正常情况下不存在）随之脱离树 */
+  public synchronized void remove(Long id) {
+    Integer slot = slotById.remove(id);
+    if (slot == null) return;
+    if (parentSlots[slot] >= 0) {
+      addToAncestors(slot, -subtreeStudents[slot], -subtreeTeachers[slot]);
+      removeChild(parentSlots[slot], slot);
+    }
+    for (int i = 0; i < childCounts[slot]; i++) parentSlots[children[slot][i]] = -1;
+    children[slot] = NO_CHILDREN;
+    childCounts[slot] = 0;
+    students[slot] = teachers[slot] = subtreeStudents[slot] = subtreeTeachers[slot] = 0;
+    names[slot] = codes[slot] = types[slot] = null;
+    freeSlots.push(slot);
+    version++;
+  }
+
+  /** 调整某机构的直属人数（学生、教师增量），并累加到其祖先的子树人数 */
+  public synchronized void adjustMembers(Long orgId, int studentDelta, int teacherDelta) {
+    if (orgId == null || (studentDelta == 0 && teacherDelta == 0)) return;
+    Integer slot = slotById.get(orgId);
+    if (slot == null) return;
+    students[slot] += studentDelta;
+    teachers[slot] += teacherDelta;
+    subtreeStudents[slot] += studentDelta;
+    subtreeTeachers[slot] += teacherDelta;
+    addToAncestors(slot, studentDelta, teacherDelta);
+    version++;
+  }
+
+  /** 处于事务中时在提交后调整人数，否则立即调整 */
+  public void adjustMembersAfterCommit(Long orgId, int studentDelta, int teacherDelta) {
+    AfterCommit.run(() -> adjustMembers(orgId, studentDelta, teacherDelta));
+  }
+
+  /** 整树响应体（序列化后的 ApiResponse），版本未变时直接返回缓存；返回的数组为共享实例，调用方不得修改 */
+  public byte[] treeBytes() {
+    Rendered r = rendered;
+    if (r != null && r.version() == version) return r.body();
+    synchronized (this) {
+      r = rendered;
+      if (r != null && r.version() == version) return r.body();
+      try {
+        byte[] body = objectMapper.writeValueAsBytes(ApiResponse.success("success", render(ROOT)));
+        rendered = new Rendered(version, body);
+        return body;
+      } catch (JsonProcessingException ex) {
+        throw new IllegalStateException("组织机构树序列化失败", ex);
+      }
+    }
+  }
+
+  /** 某节点的直接子节点（parentId 为 null 时返回顶层节点），附 hasChildren 标记；节点不存在时返回 null */
+  public synchronized List<Map<String, Object>> childrenOf(Long parentId) {
+    Integer parent = parentId == null ? Integer.valueOf(ROOT) : slotById.get(parentId);
+    if (parent == null) return null;
+    List<Map<String, Object>> result = new ArrayList<>(childCounts[parent]);
+    for (int i = 0; i < childCounts[parent]; i++) {
+      int slot = children[parent][i];
+      Map<String, Object> node = node(slot);
+      node.put("hasChildren", childCounts[slot] > 0);
+      result.add(node);
+    }
+    return result;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  private List<Map<String, Object>> render(int parent) {
+    List<Map<String, Object>> result = new ArrayList<>(childCounts[parent]);
+    for (int i = 0; i < childCounts[parent]; i++) {
+      int slot = children[parent][i];
+      Map<String, Object> node = node(slot);
+      node.put("children", render(slot));
+      result.add(node);
+    }
+    return result;
+  }
+
+  private Map<String, Object> node(int slot) {
+    Map<String, Object> node = new LinkedHashMap<>();
+    node.put("id", ids[slot]);
+    node.put("name", names[slot]);
+    node.put("code", codes[slot]);
+    node.put("type", types[slot]);
+    node.put("parentId", parentIds[slot] == 0L ? null : parentIds[slot]);
+    node.put("studentCount", students[slot]);
+    node.put("teacherCount", teachers[slot]);
+    node.put("subtreeStudentCount", subtreeStudents[slot]);
+    node.put("subtreeTeacherCount", subtreeTeachers[slot]);
+    return node;
+  }
+
+  /** 自底向上汇总子树人数（仅全量加载时使用） */
+  private void rollUp(int slot) {
+    int s = students[slot];
+    int t = teachers[slot];
+    for (int i = 0; i < childCounts[slot]; i++) {
+      int c = children[slot][i];
+      rollUp(c);
+      s += subtreeStudents[c];
+      t += subtreeTeachers[c];
+    }
+    subtreeStudents[slot] = s;
+    subtreeTeachers[slot] = t;
+  }
+
+  /** 将增量累加到 slot 的各级祖先（不含自身） */
+  private void addToAncestors(int slot, int studentDelta, int teacherDelta) {
+    if (studentDelta == 0 && teacherDelta == 0) return;
+    for (int p = parentSlots[slot]; p >= 0; p = parentSlots[p]) {
+      subtreeStudents[p] += studentDelta;
+      subtreeTeachers[p] += teacherDelta;
+    }
+  }
+
+  private void reset(int capacity) {
+    ids = new long[capacity];
+    parentIds = new long[capacity];
+    parentSlots = new int[capacity];
+    orders = new int[capacity];
+    names = new String[capacity];
+    codes = new String[capacity];
+    types = new String[capacity];
+    children = new int[capacity][];
+    childCounts = new int[capacity];
+    students = new int[capacity];
+    teachers = new int[capacity];
+    subtreeStudents = new int[capacity];
+    subtreeTeachers = new int[capacity];
+    Arrays.fill(children, NO_CHILDREN);
+    Arrays.fill(parentSlots, -1);
+    slotById.clear();
+    freeSlots.clear();
+    size = 1;
+  }
+
+  private int allocate(Long id) {
+    int slot;
+    if (!freeSlots.isEmpty()) {
+      slot = freeSlots.pop();
+    } else {
+      if (size == ids.length) grow(size * 2);
+      slot = size++;
+    }
+    ids[slot] = id;
+    parentSlots[slot] = -1;
+    slotById.put(id, slot);
+    return slot;
+  }
+
+  private void grow(int capacity) {
+    ids = Arrays.copyOf(ids, capacity);
+    parentIds = Arrays.copyOf(parentIds, capacity);
+    parentSlots = Arrays.copyOf(parentSlots, capacity);
+    orders = Arrays.copyOf(orders, capacity);
+    names = Arrays.copyOf(names, capacity);
+    codes = Arrays.copyOf(codes, capacity);
+    types = Arrays.copyOf(types, capacity);
+    childCounts = Arrays.copyOf(childCounts, capacity);
+    students = Arrays.copyOf(students, capacity);
+    teachers = Arrays.copyOf(teachers, capacity);
+    subtreeStudents = Arrays.copyOf(subtreeStudents, capacity);
+    subtreeTeachers = Arrays.copyOf(subtreeTeachers, capacity);
+    int old = children.length;
+    children = Arrays.copyOf(children, capacity);
+    Arrays.fill(children, old, capacity, NO_CHILDREN);
+    Arrays.fill(parentSlots, old, capacity, -1);
+  }
+
+  private void write(int slot, Organization o) {
+    parentIds[slot] = o.getParentId() == null ? 0L : o.getParentId();
+    orders[slot] = o.getSortOrder() == null ? 0 : o.getSortOrder();
+    names[slot] = o.getName();
+    codes[slot] = o.getCode();
+    types[slot] = o.getType();
+  }
+
+  /** 父节点槽位：顶层为虚拟根，父节点不在树中时返回 null */
+  private Integer parentSlotOf(long parentId) {
+    return parentId == 0L ? Integer.valueOf(ROOT) : slotById.get(parentId);
+  }
+
+  private void appendChild(int parent, int slot) {
+    int n = childCounts[parent];
+    if (n == children[parent].length) children[parent] = Arrays.copyOf(children[parent], Math.max(4, n * 2));
+    children[parent][n] = slot;
+    childCounts[parent] = n + 1;
+    parentSlots[slot] = parent;
+  }
+
+  /** 按排序位置插入子节点 */
+  private void insertChild(int parent, int slot) {
+    appendChild(parent, slot);
+    int[] cs = children[parent];
+    int i = childCounts[parent] - 1;
+    while (i > 0 && before(slot, cs[i - 1])) {
+      cs[i] = cs[i - 1];
+      i--;
+    }
+    cs[i] = slot;
+  }
+
+  private void removeChild(int parent, int slot) {
+    int[] cs = children[parent];
+    int n = childCounts[parent];
+    for (int i = 0; i < n; i++) {
+      if (cs[i] == slot) {
+        System.arraycopy(cs, i + 1, cs, i, n - i - 1);
+        childCounts[parent] = n - 1;
+        break;
+      }
+    }
+    parentSlots[slot] = -1;
+  }
+
+  private void sortChildren(int parent) {
+    int n = childCounts[parent];
+    Integer[] boxed = new Integer[n];
+    for (int i = 0; i < n; i++) boxed[i] = children[parent][i];
+    Arrays.sort(boxed, (a, b) -> before(a, b) ? -1 : before(b, a) ? 1 : 0);
+    for (int i = 0; i < n; i++) children[parent][i] = boxed[i];
+  }
+
+  private boolean before(int a, int b) {
+    return orders[a] != orders[b] ? orders[a] < orders[b] : ids[a] < ids[b];
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  private record Rendered(long version, byte[] body) {}
+}
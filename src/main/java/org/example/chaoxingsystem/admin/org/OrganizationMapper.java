@@ -11,9 +11,34 @@ public interface OrganizationMapper {
   Organization selectById(@Param("id") Long id);
   Long countChildren(@Param("id") Long id);
   List<Organization> selectChildren(@Param("parentId") Long parentId);
+  /** 同 selectChildren，并对整组加行锁（SELECT ... FOR UPDATE），须在事务中调用 */
+  List<Organization> selectChildrenForUpdate(@Param("parentId") Long parentId);
+  /** 同级最大排序值，无子节点时返回 null */
+  Integer selectMaxSortOrder(@Param("parentId") Long parentId);
   Long countByCode(@Param("code") String code);
   List<Organization> selectAll();
   List<Organization> selectSubtree(@Param("pathPrefix") String pathPrefix);
+  int updatePath(@Param("id") Long id, @Param("path") String path);
+  /** 将路径以 oldPrefix 开头的节点（excludeId 除外）的前缀整体替换为 newPrefix */
+  int replacePathPrefix(@Param("oldPrefix") String oldPrefix, @Param("newPrefix") String newPrefix, @Param("excludeId") Long excludeId);
+  /** 批量更新排序：机构 ID -> 新排序值 */
+  int updateSortOrders(@Param("orders") Map<Long, Integer> orders);
+
+  /** 闭包表：为新节点写入自身行及与父节点祖先链的行（parentId 为空时只写自身行） */
+  int insertClosure(@Param("id") Long id, @Param("parentId") Long parentId);
+  /** 闭包表：移动前断开子树与原祖先的行 */
+  int detachClosure(@Param("id") Long id);
+  /** 闭包表：移动后将子树挂到新父节点的祖先链下 */
+  int attachClosure(@Param("id") Long id, @Param("parentId") Long parentId);
+  int deleteClosure(@Param("id") Long id);
+  /** 按机构分组的直属人数：orgId、students（班级学生）、teachers（部门教师） */
+  List<Map<String, Object>> countDirectMembers();
+  List<Organization> selectAncestors(@Param("id") Long id);
+  List<Organization> selectAncestorsOfStudent(@Param("userId") Long userId);
+  List<Map<String, Object>> listStudentMembersInSubtree(@Param("id") Long id);
+  List<Map<String, Object>> listTeacherMembersInSubtree(@Param("id") Long id);
+  /** 子树人数：students、teachers、descendants（不含自身） */
+  Map<String, Object> countSubtreeMembers(@Param("id") Long id);
 
   List<Map<String, Object>> listStudentMembersByClassIds(@Param("classIds") List<Long> classIds);
   List<Map<String, Object>> listTeacherMembersByDeptIds(@Param("deptIds") List<Long> deptIds);
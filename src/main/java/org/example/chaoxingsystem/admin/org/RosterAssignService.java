@@ -0,0 +1,259 @@
+package org.example.chaoxingsystem.admin.org;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.admin.user.ImportRecordReader;
+import org.example.chaoxingsystem.admin.user.dto.UserImportResult;
+import org.example.chaoxingsystem.user.User;
+import org.example.chaoxingsystem.user.UserMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 名册批量分配：将学生分入班级、教师分入部门
+ * - 逐行流式读取 CSV（首行为表头）或 NDJSON，字段：orgCode 与 username 或 number（学号/工号），按 batchSize 分批处理
+ * - 机构按编码一次预载为哈希表；每批用户名、学号/工号及现有档案各用一次 IN 查询预取为哈希表
+ * - 每批在一个事务内多行写入档案：已有档案的只改班级/部门，没有的新建；提交后增量调整 OrgTreeIndex 的人数
+ * - 单行校验失败不影响其他行；整批写入失败时该批所有行记为失败
+ */
+@Service
+public class RosterAssignService {
+  private static final int MAX_ERRORS = 1000;
+  private static final int MAX_BATCH_SIZE = 2000;
+
+  private final OrganizationMapper organizationMapper;
+  private final StudentProfileMapper studentMapper;
+  private final TeacherProfileMapper teacherMapper;
+  private final UserMapper userMapper;
+  private final OrgTreeIndex treeIndex;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final int defaultBatchSize;
+
+  public RosterAssignService(OrganizationMapper organizationMapper, StudentProfileMapper studentMapper,
+                             TeacherProfileMapper teacherMapper, UserMapper userMapper, OrgTreeIndex treeIndex,
+                             TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                             @Value("${org.roster.batch-size:1000}") int defaultBatchSize) {
+    this.organizationMapper = organizationMapper;
+    this.studentMapper = studentMapper;
+    this.teacherMapper = teacherMapper;
+    this.userMapper = userMapper;
+    this.treeIndex = treeIndex;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.defaultBatchSize = defaultBatchSize;
+  }
+
+  /** 分配名册；format 为 csv 或 ndjson。错误报告中的 username 列为该行的用户名或学号/工号 */
+  public UserImportResult assign(InputStream in, String format, Integer batchSize) throws IOException {
+    long start = System.nanoTime();
+    int size = Math.min(Math.max(batchSize != null ? batchSize : defaultBatchSize, 1), MAX_BATCH_SIZE);
+    Context ctx = new Context();
+    for (Organization o : organizationMapper.selectAll()) {
+      if (o.getCode() != null) ctx.orgsByCode.put(o.getCode(), o);
+    }
+    UserImportResult result = new UserImportResult(MAX_ERRORS);
+    ImportRecordReader records = ImportRecordReader.open(in, format, objectMapper, "orgcode");
+    List<RosterRow> batch = new ArrayList<>(size);
+    ImportRecordReader.Record rec;
+    while ((rec = records.next()) != null) {
+      result.addRow();
+      RosterRow row = RosterRow.of(rec);
+      String error = rec.error() != null ? rec.error() : validate(row, ctx);
+      if (error != null) {
+        result.fail(row.line, row.key(), error);
+        continue;
+      }
+      batch.add(row);
+      if (batch.size() >= size) {
+        flush(batch, ctx, result);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) flush(batch, ctx, result);
+    result.finish(System.nanoTime() - start);
+    return result;
+  }
+
+  private String validate(RosterRow r, Context ctx) {
+    if (r.orgCode == null) return "缺少机构编码";
+    if (r.username == null && r.number == null) return "缺少用户名或学号/工号";
+    Organization org = ctx.orgsByCode.get(r.orgCode);
+    if (org == null) return "机构不存在";
+    String type = org.getType() == null ? "" : org.getType().toLowerCase(Locale.ROOT);
+    if ("class".equals(type)) {
+      r.student = true;
+    } else if (!"department".equals(type) && !"dept".equals(type)) {
+      return "仅支持班级或部门类型分配成员";
+    }
+    r.orgId = org.getId();
+    return null;
+  }
+
+  private void flush(List<RosterRow> batch, Context ctx, UserImportResult result) {
+    // 每批一次预取：用户名 -> 用户，学号/工号 -> 档案
+    Set<String> usernames = new HashSet<>();
+    Set<String> studentNos = new HashSet<>();
+    Set<String> teacherNos = new HashSet<>();
+    for (RosterRow r : batch) {
+      if (r.username != null) usernames.add(r.username);
+      else if (r.student) studentNos.add(r.number);
+      else teacherNos.add(r.number);
+    }
+    Map<String, User> users = new HashMap<>();
+    if (!usernames.isEmpty()) {
+      for (User u : userMapper.selectByUsernames(usernames)) users.put(u.getUsername().toLowerCase(Locale.ROOT), u);
+    }
+    Map<String, Long> studentsByNo = byNumber(studentNos.isEmpty() ? List.of() : studentMapper.selectByStudentNos(studentNos), "studentNo");
+    Map<String, Long> teachersByNo = byNumber(teacherNos.isEmpty() ? List.of() : teacherMapper.selectByTeacherNos(teacherNos), "teacherNo");
+
+    List<RosterRow> accepted = new ArrayList<>(batch.size());
+    for (RosterRow r : batch) {
+      if (r.username != null) {
+        User u = users.get(r.username.toLowerCase(Locale.ROOT));
+        String userType = u == null || u.getUserType() == null ? "" : u.getUserType().toLowerCase(Locale.ROOT);
+        if (u == null) {
+          result.fail(r.line, r.key(), "用户不存在");
+          continue;
+        }
+        if (r.student && !"student".equals(userType)) {
+          result.fail(r.line, r.key(), "仅能为班级分配学生");
+          continue;
+        }
+        if (!r.student && !"teacher".equals(userType)) {
+          result.fail(r.line, r.key(), "仅能为部门分配教师");
+          continue;
+        }
+        r.userId = u.getId();
+        r.realName = u.getRealName() != null ? u.getRealName() : u.getUsername();
+      } else {
+        r.userId = (r.student ? studentsByNo : teachersByNo).get(r.number);
+        if (r.userId == null) {
+          result.fail(r.line, r.key(), r.student ? "学号不存在" : "工号不存在");
+          continue;
+        }
+      }
+      if (!ctx.seenUserIds.add(r.userId)) {
+        result.fail(r.line, r.key(), "文件内用户重复");
+        continue;
+      }
+      accepted.add(r);
+    }
+    if (accepted.isEmpty()) return;
+
+    long writeStart = System.nanoTime();
+    try {
+      transactionTemplate.executeWithoutResult(status -> write(accepted));
+      result.addSucceeded(accepted.size());
+    } catch (RuntimeException ex) {
+      String message = "批量写入失败：" + rootMessage(ex);
+      for (RosterRow r : accepted) {
+        ctx.seenUserIds.remove(r.userId);
+        result.fail(r.line, r.key(), message);
+      }
+    }
+    result.addWriteNanos(System.nanoTime() - writeStart);
+  }
+
+  private void write(List<RosterRow> rows) {
+    List<Long> studentIds = new ArrayList<>();
+    List<Long> teacherIds = new ArrayList<>();
+    for (RosterRow r : rows) (r.student ? studentIds : teacherIds).add(r.userId);
+    Map<Long, Long> currentClass = current(studentIds.isEmpty() ? List.of() : studentMapper.selectClassIdsByUserIds(studentIds), "classId");
+    Map<Long, Long> currentDept = current(teacherIds.isEmpty() ? List.of() : teacherMapper.selectDeptIdsByUserIds(teacherIds), "deptId");
+
+    List<Map<String, Object>> students = new ArrayList<>();
+    List<Map<String, Object>> teachers = new ArrayList<>();
+    Map<Long, int[]> deltas = new HashMap<>();
+    int year = LocalDate.now().getYear();
+    for (RosterRow r : rows) {
+      Map<Long, Long> current = r.student ? currentClass : currentDept;
+      boolean exists = current.containsKey(r.userId);
+      Long oldOrgId = current.get(r.userId);
+      if (exists && r.orgId.equals(oldOrgId)) continue;
+      int idx = r.student ? 0 : 1;
+      if (exists) deltas.computeIfAbsent(oldOrgId, k -> new int[2])[idx]--;
+      deltas.computeIfAbsent(r.orgId, k -> new int[2])[idx]++;
+      Map<String, Object> p = new HashMap<>();
+      p.put("userId", r.userId);
+      p.put("realName", r.realName != null ? r.realName : "");
+      if (r.student) {
+        p.put("studentNo", r.number != null ? r.number : "S" + year + String.format("%04d", r.userId));
+        p.put("classId", r.orgId);
+        p.put("majorCode", "UNASSIGNED");
+        p.put("enrollmentYear", year);
+        students.add(p);
+      } else {
+        p.put("teacherNo", r.number != null ? r.number : "T" + year + String.format("%04d", r.userId));
+        p.put("deptId", r.orgId);
+        teachers.add(p);
+      }
+    }
+    if (!students.isEmpty()) studentMapper.upsertClassIds(students);
+    if (!teachers.isEmpty()) teacherMapper.upsertDeptIds(teachers);
+    deltas.forEach((orgId, d) -> treeIndex.adjustMembersAfterCommit(orgId, d[0], d[1]));
+  }
+
+  private static Map<String, Long> byNumber(List<Map<String, Object>> rows, String numberKey) {
+    Map<String, Long> out = new HashMap<>();
+    for (Map<String, Object> row : rows) out.put((String) row.get(numberKey), ((Number) row.get("userId")).longValue());
+    return out;
+  }
+
+  private static Map<Long, Long> current(List<Map<String, Object>> rows, String orgKey) {
+    Map<Long, Long> out = new HashMap<>();
+    for (Map<String, Object> row : rows) {
+      Object org = row.get(orgKey);
+      out.put(((Number) row.get("userId")).longValue(), org == null ? null : ((Number) org).longValue());
+    }
+    return out;
+  }
+
+  private static String rootMessage(Throwable ex) {
+    Throwable t = ex;
+    while (t.getCause() != null) t = t.getCause();
+    return t.getMessage();
+  }
+
+  /** 单次分配的共享状态：机构编码字典与已分配的用户 */
+  private static final class Context {
+    final Map<String, Organization> orgsByCode = new HashMap<>();
+    final Set<Long> seenUserIds = new HashSet<>();
+  }
+
+  static final class RosterRow {
+    long line;
+    String username;
+    String number;
+    String orgCode;
+    boolean student;
+    Long orgId;
+    Long userId;
+    String realName;
+
+    static RosterRow of(ImportRecordReader.Record rec) {
+      RosterRow r = new RosterRow();
+      r.line = rec.line();
+      r.username = trim(rec.fields().get("username"));
+      r.number = trim(rec.fields().get("number"));
+      r.orgCode = trim(rec.fields().get("orgcode"));
+      return r;
+    }
+
+    /** 错误报告中标识该行的键 */
+    String key() {
+      return username != null ? username : number;
+    }
+
+    private static String trim(String s) {
+      if (s == null) return null;
+      s = s.trim();
+      return s.isEmpty() ? null : s;
+    }
+  }
+}
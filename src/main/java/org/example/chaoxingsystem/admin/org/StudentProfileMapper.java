@@ -1,10 +1,15 @@
 package org.example.chaoxingsystem.admin.org;
 
 import org.apache.ibatis.annotations.Param;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface StudentProfileMapper {
   long countByClassId(@Param("classId") Long classId);
   Long countByUserId(@Param("userId") Long userId);
+  /** 学生当前所在班级 ID；无档案或未分班时返回 null */
+  Long selectClassIdByUserId(@Param("userId") Long userId);
   int updateClassIdByUserId(@Param("userId") Long userId, @Param("classId") Long classId);
   int insertStudentProfile(@Param("userId") Long userId,
                            @Param("studentNo") String studentNo,
@@ -14,4 +19,12 @@ public interface StudentProfileMapper {
                            @Param("majorCode") String majorCode,
                            @Param("enrollmentYear") Integer enrollmentYear,
                            @Param("politicsStatus") String politicsStatus);
+  /** 按学号批量查询：userId、studentNo、classId */
+  List<Map<String, Object>> selectByStudentNos(@Param("studentNos") Collection<String> studentNos);
+  /** 按用户批量查询现有档案：userId、classId */
+  List<Map<String, Object>> selectClassIdsByUserIds(@Param("userIds") Collection<Long> userIds);
+  /** 多行写入，已有档案的只改班级；键同 insertStudentProfile 参数名 */
+  int upsertClassIds(@Param("rows") List<Map<String, Object>> rows);
+  /** 多行插入，键同 insertStudentProfile 参数名 */
+  int insertStudentProfiles(@Param("rows") List<Map<String, Object>> rows);
 }
@@ -1,10 +1,15 @@
 package org.example.chaoxingsystem.admin.org;
 
 import org.apache.ibatis.annotations.Param;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface TeacherProfileMapper {
   long countByDeptId(@Param("deptId") Long deptId);
   Long countByUserId(@Param("userId") Long userId);
+  /** 教师当前所在部门 ID；无档案或未分配部门时返回 null */
+  Long selectDeptIdByUserId(@Param("userId") Long userId);
   int updateDeptIdByUserId(@Param("userId") Long userId, @Param("deptId") Long deptId);
   int insertTeacherProfile(@Param("userId") Long userId,
                            @Param("teacherNo") String teacherNo,
@@ -12,4 +17,12 @@ public interface TeacherProfileMapper {
                            @Param("deptId") Long deptId,
                            @Param("title") String title,
                            @Param("entryDate") String entryDate);
+  /** 按工号批量查询：userId、teacherNo、deptId */
+  List<Map<String, Object>> selectByTeacherNos(@Param("teacherNos") Collection<String> teacherNos);
+  /** 按用户批量查询现有档案：userId、deptId */
+  List<Map<String, Object>> selectDeptIdsByUserIds(@Param("userIds") Collection<Long> userIds);
+  /** 多行写入，已有档案的只改部门；键同 insertTeacherProfile 参数名 */
+  int upsertDeptIds(@Param("rows") List<Map<String, Object>> rows);
+  /** 多行插入，键同 insertTeacherProfile 参数名 */
+  int insertTeacherProfiles(@Param("rows") List<Map<String, Object>> rows);
 }
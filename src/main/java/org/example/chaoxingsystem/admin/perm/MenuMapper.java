@@ -2,6 +2,7 @@ package org.example.chaoxingsystem.admin.perm;
 
 import org.apache.ibatis.annotations.Param;
 import java.util.List;
+import java.util.Map;
 
 public interface MenuMapper {
   int insert(Menu m);
@@ -9,7 +10,17 @@ public interface MenuMapper {
   int deleteById(@Param("id") Long id);
   Menu selectById(@Param("id") Long id);
   List<Menu> selectAll();
+  /** 某父菜单的直接子菜单，按 sort_order、id 排序，并对整组加行锁（SELECT ... FOR UPDATE），须在事务中调用 */
+  List<Menu> selectChildrenForUpdate(@Param("parentId") Long parentId);
+  int updateParentAndOrder(@Param("id") Long id, @Param("parentId") Long parentId, @Param("sortOrder") int sortOrder);
+  /** 批量改写排序：一条 CASE UPDATE，orders 为 id -> sort_order，不能为空 */
+  int updateSortOrders(@Param("orders") Map<Long, Integer> orders);
   List<Menu> selectByRoleId(@Param("roleId") Long roleId);
   List<Long> selectRoleMenuIds(@Param("roleId") Long roleId);
-  int replaceRoleMenus(@Param("roleId") Long roleId, @Param("menuIds") List<Long> menuIds);
+  /** 全部角色-权限字符对（roleId, perms），perms 可能为逗号分隔的多个权限 */
+  List<Map<String, Object>> selectRolePerms();
+  /** 为角色追加若干菜单（已存在的忽略），menuIds 不能为空 */
+  int insertRoleMenus(@Param("roleId") Long roleId, @Param("menuIds") List<Long> menuIds);
+  /** 移除角色的若干菜单，menuIds 不能为空 */
+  int deleteRoleMenus(@Param("roleId") Long roleId, @Param("menuIds") List<Long> menuIds);
 }
@@ -0,0 +1,78 @@
+package org.example.chaoxingsystem.admin.perm;
+
+import org.example.chaoxingsystem.admin.SiblingOrder;
+import org.example.chaoxingsystem.config.AfterCommit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+/**
+ * 菜单拖拽排序：与组织机构共用 SiblingOrder 的稀疏序值，有空隙时只写被移动的菜单
+ * 移动与后台重排在事务中以 FOR UPDATE 读取同级，互斥写入；写入后清空路由缓存
+ */
+@Service
+public class MenuOrderService {
+  private final MenuMapper menuMapper;
+  private final MenuRouteCache routeCache;
+  private final SiblingOrder siblingOrder;
+  private final TransactionTemplate transactionTemplate;
+
+  public MenuOrderService(MenuMapper menuMapper, MenuRouteCache routeCache, SiblingOrder siblingOrder,
+                          TransactionTemplate transactionTemplate) {
+    this.menuMapper = menuMapper;
+    this.routeCache = routeCache;
+    this.siblingOrder = siblingOrder;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  /** 拖拽移动菜单，dropType 为 before/after/inner */
+  @Transactional
+  public void move(Long draggingId, Long dropId, String dropType) {
+    Menu drag = menuMapper.selectById(draggingId);
+    Menu drop = menuMapper.selectById(dropId);
+    if (drag == null || drop == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "菜单不存在");
+    boolean inner = "inner".equalsIgnoreCase(dropType);
+    Long newParent = inner ? drop.getId() : drop.getParentId();
+    // 防环：目标父菜单不能是拖拽菜单自身或其子孙
+    for (Long p = newParent; p != null && p != 0L; ) {
+      if (p.equals(drag.getId())) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "非法移动：不能移动到自身子孙");
+      Menu m = menuMapper.selectById(p);
+      p = m == null ? null : m.getParentId();
+    }
+    List<Menu> siblings = new ArrayList<>(menuMapper.selectChildrenForUpdate(newParent));
+    siblings.removeIf(m -> m.getId().equals(drag.getId()));
+    int pos = siblings.size();
+    if (!inner) {
+      for (int i = 0; i < siblings.size(); i++) {
+        if (siblings.get(i).getId().equals(drop.getId())) {
+          pos = "before".equalsIgnoreCase(dropType) ? i : i + 1;
+          break;
+        }
+      }
+    }
+    SiblingOrder.Placement placement = SiblingOrder.place(siblings, pos, drag.getId(), Menu::getId, MenuOrderService::orderOf);
+    if (!placement.respaced().isEmpty()) menuMapper.updateSortOrders(placement.respaced());
+    menuMapper.updateParentAndOrder(drag.getId(), newParent, placement.order());
+    routeCache.invalidateAll();
+    if (placement.tight()) AfterCommit.run(() -> siblingOrder.rebalanceLater("menu:" + newParent, () -> rebalance(newParent)));
+  }
+
+  /** 后台重排：在独立事务中锁定并重新读取同级，按现有顺序重新分配间隔序值 */
+  private void rebalance(Long parentId) {
+    Map<Long, Integer> changed = transactionTemplate.execute(status -> {
+      Map<Long, Integer> c = SiblingOrder.respace(menuMapper.selectChildrenForUpdate(parentId), Menu::getId, MenuOrderService::orderOf);
+      if (!c.isEmpty()) menuMapper.updateSortOrders(c);
+      return c;
+    });
+    if (changed != null && !changed.isEmpty()) routeCache.invalidateAll();
+  }
+
+  private static int orderOf(Menu m) {
+    return m.getSortOrder() == null ? 0 : m.getSortOrder();
+  }
+
+}
@@ -0,0 +1,180 @@
+package org.example.chaoxingsystem.admin.perm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.chaoxingsystem.config.AfterCommit;
+import org.example.chaoxingsystem.security.LoginUser;
+import org.example.chaoxingsystem.user.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 菜单路由树缓存：
+ * - 按“排序后的角色 ID 集合”缓存序列化完成的路由树响应体（JSON 字节）及其 ETag，角色组合通常只有少数几种
+ * - 另缓存用户 ID -> 角色集合键，命中时整个请求不访问数据库；未分配角色的用户按 userType 对应的角色键归组
+ * - 角色增删改、角色菜单授权、菜单变更调用 invalidateAll；用户角色变更调用 invalidateUser
+ * - 处于事务中时在提交后再失效一次；加载期间发生过失效则放弃回填
+ * - 各应用进程各自持有缓存，跨进程的修改依赖 TTL（permission.routes.cache.ttl-seconds）收敛
+ */
+@Component
+public class MenuRouteCache implements MeterBinder {
+  private final MenuMapper menuMapper;
+  private final RoleMapper roleMapper;
+  private final UserRoleMapper userRoleMapper;
+  private final ObjectMapper objectMapper;
+  private final int maxUsers;
+  private final long ttlMillis;
+  private final ConcurrentHashMap<String, Routes> trees = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Long, UserKey> userKeys = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public MenuRouteCache(MenuMapper menuMapper, RoleMapper roleMapper, UserRoleMapper userRoleMapper, ObjectMapper objectMapper,
+                        @Value("${permission.routes.cache.max-users:10000}") int maxUsers,
+                        @Value("${permission.routes.cache.ttl-seconds:300}") long ttlSeconds) {
+    this.menuMapper = menuMapper;
+    this.roleMapper = roleMapper;
+    this.userRoleMapper = userRoleMapper;
+    this.objectMapper = objectMapper;
+    this.maxUsers = maxUsers;
+    this.ttlMillis = ttlSeconds * 1000L;
+  }
+
+  /** 获取当前用户的路由树响应（已序列化） */
+  public Routes routesFor(LoginUser me) {
+    long now = System.currentTimeMillis();
+    long stamp = generation.get();
+    String key = userKey(me, now, stamp);
+    Routes cached = trees.get(key);
+    if (cached != null && cached.expiresAt() > now) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    Routes built = build(key, now);
+    if (generation.get() == stamp) {
+      trees.put(key, built);
+      if (generation.get() != stamp) trees.remove(key, built);
+    }
+    return built;
+  }
+
+  /** 角色、菜单或角色-菜单关系变化后调用 */
+  public void invalidateAll() {
+    clearAll();
+    AfterCommit.runAgain(this::clearAll);
+  }
+
+  /** 用户的角色分配变化后调用 */
+  public void invalidateUser(Long userId) {
+    if (userId == null) return;
+    evictUser(userId);
+    AfterCommit.runAgain(() -> evictUser(userId));
+  }
+
+  /** 角色集合键：显式分配的角色 ID 升序拼接；未分配时为 "@" + userType */
+  private String userKey(LoginUser me, long now, long stamp) {
+    UserKey uk = userKeys.get(me.getId());
+    if (uk != null && uk.expiresAt() > now) return uk.key();
+    List<Long> roleIds = new ArrayList<>(userRoleMapper.selectRoleIdsByUserId(me.getId()));
+    String key;
+    if (roleIds.isEmpty()) {
+      key = "@" + me.getUserType().toLowerCase(Locale.ROOT);
+    } else {
+      Collections.sort(roleIds);
+      key = roleIds.stream().distinct().map(String::valueOf).collect(Collectors.joining(","));
+    }
+    if (maxUsers > 0 && generation.get() == stamp) {
+      if (userKeys.size() >= maxUsers) userKeys.clear();
+      UserKey fresh = new UserKey(key, now + ttlMillis);
+      userKeys.put(me.getId(), fresh);
+      if (generation.get() != stamp) userKeys.remove(me.getId(), fresh);
+    }
+    return key;
+  }
+
+  private Routes build(String key, long now) {
+    List<Long> roleIds;
+    if (key.startsWith("@")) {
+      // 若未显式分配角色，则根据 userType 推断
+      String roleKey = key.substring(1);
+      roleIds = roleMapper.selectAll().stream().filter(r -> roleKey.equals(r.getRoleKey())).findFirst()
+        .map(r -> List.of(r.getId())).orElse(List.of());
+    } else {
+      roleIds = Arrays.stream(key.split(",")).map(Long::valueOf).toList();
+    }
+    List<Menu> menus = new ArrayList<>();
+    for (Long rid : roleIds) menus.addAll(menuMapper.selectByRoleId(rid));
+    Map<Long, List<Menu>> byParent = menus.stream().collect(Collectors.groupingBy(m -> m.getParentId()));
+    // 收集角色字符用于前端 meta.roles
+    List<String> roleKeys = roleIds.stream()
+      .map(roleMapper::selectById)
+      .filter(Objects::nonNull)
+      .map(Role::getRoleKey)
+      .toList();
+    List<Map<String, Object>> tree = buildMenuTree(byParent, 0L, roleKeys);
+    try {
+      byte[] body = objectMapper.writeValueAsBytes(ApiResponse.success("获取成功", tree));
+      String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+      return new Routes(body, etag, now + ttlMillis);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("路由树序列化失败", ex);
+    }
+  }
+
+  private List<Map<String, Object>> buildMenuTree(Map<Long, List<Menu>> byParent, Long parentId, List<String> roleKeys) {
+    return byParent.getOrDefault(parentId, List.of()).stream().map(m -> {
+      Map<String, Object> node = new LinkedHashMap<>();
+      node.put("name", m.getName());
+      node.put("path", m.getPath());
+      node.put("hidden", m.getVisible() != null && m.getVisible() == 0);
+      if (m.getComponent() != null) node.put("component", m.getComponent());
+      Map<String, Object> meta = new LinkedHashMap<>();
+      meta.put("title", m.getName());
+      meta.put("icon", m.getIcon());
+      meta.put("roles", roleKeys);
+      node.put("meta", meta);
+      node.put("children", buildMenuTree(byParent, m.getId(), roleKeys));
+      return node;
+    }).collect(Collectors.toList());
+  }
+
+  private void clearAll() {
+    generation.incrementAndGet();
+    trees.clear();
+    userKeys.clear();
+  }
+
+  private void evictUser(Long userId) {
+    generation.incrementAndGet();
+    userKeys.remove(userId);
+  }
+
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue)
+      .tag("cache", "menuRoutes").tag("result", "hit").register(registry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue)
+      .tag("cache", "menuRoutes").tag("result", "miss").register(registry);
+    Gauge.builder("cache.size", trees, Map::size)
+      .tag("cache", "menuRoutes").register(registry);
+  }
+
+  /** 路由树响应：序列化后的 ApiResponse 字节、ETag 与过期时间（毫秒）；body 为共享数组，调用方不得修改 */
+  public record Routes(byte[] body, String etag, long expiresAt) {}
+
+  private record UserKey(String key, long expiresAt) {}
+}
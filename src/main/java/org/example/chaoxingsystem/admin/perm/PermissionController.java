@@ -1,19 +1,25 @@
 package org.example.chaoxingsystem.admin.perm;
 
-import org.example.chaoxingsystem.user.UserService;
+import org.example.chaoxingsystem.config.FilterCache;
+import org.example.chaoxingsystem.config.PermissionRegistry;
+import org.example.chaoxingsystem.security.LoginUser;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 权限与菜单相关接口：
- * - 路由树按角色聚合生成，前端使用 meta.roles 控制显示
+ * - 路由树按角色聚合生成，前端使用 meta.roles 控制显示；按角色集合缓存（MenuRouteCache）
  * - 角色的增删改查、用户-角色授权、角色-菜单授权
+ * - 菜单拖拽排序由 MenuOrderService 按稀疏序值写入
+ * - 授权写入由 RoleGrantService 按集合/差异执行，并使身份缓存与路由缓存失效；角色增删改后清空路由缓存并重建权限位图
  */
 @RestController
 @RequestMapping("/api/system")
@@ -21,55 +27,37 @@ public class PermissionController {
   private final MenuMapper menuMapper;
   private final RoleMapper roleMapper;
   private final UserRoleMapper userRoleMapper;
-  private final UserService userService;
-
-  public PermissionController(MenuMapper menuMapper, RoleMapper roleMapper, UserRoleMapper userRoleMapper, UserService userService) {
+  private final MenuRouteCache routeCache;
+  private final RoleGrantService roleGrantService;
+  private final PermissionRegistry permissions;
+  private final MenuOrderService menuOrderService;
+  private final FilterCache<UnallocatedFilter, Long> unallocatedCounts;
+
+  public PermissionController(MenuMapper menuMapper, RoleMapper roleMapper, UserRoleMapper userRoleMapper,
+                              MenuRouteCache routeCache, RoleGrantService roleGrantService, PermissionRegistry permissions,
+                              MenuOrderService menuOrderService, FilterCache<UnallocatedFilter, Long> unallocatedCounts) {
     this.menuMapper = menuMapper;
     this.roleMapper = roleMapper;
     this.userRoleMapper = userRoleMapper;
-    this.userService = userService;
+    this.routeCache = routeCache;
+    this.roleGrantService = roleGrantService;
+    this.permissions = permissions;
+    this.menuOrderService = menuOrderService;
+    this.unallocatedCounts = unallocatedCounts;
   }
 
-  /** 获取当前用户的菜单路由树 */
+  /**
+   * 获取当前用户的菜单路由树：按角色集合缓存预序列化的响应体
+   * 条件请求由 checkNotModified 按 HTTP 语义判断（If-None-Match 支持 *、多个标签与 W/ 弱标签），命中时返回 304；ETag 头同样由其写入
+   */
   @GetMapping("/menu/routes")
   @PreAuthorize("hasAnyRole('ADMIN','TEACHER','STUDENT')")
-  public ResponseEntity<ApiResponse<List<Map<String, Object>>>> routes(Authentication auth) {
-    var user = userService.getByUsername(auth.getName());
-    List<Long> roleIds = userRoleMapper.selectRoleIdsByUserId(user.getId());
-    // 若未显式分配角色，则根据 userType 推断
-    if (roleIds.isEmpty()) {
-      String key = user.getUserType().toLowerCase(Locale.ROOT);
-      var candidate = roleMapper.selectAll().stream().filter(r -> key.equals(r.getRoleKey())).findFirst();
-      if (candidate.isPresent()) roleIds = List.of(candidate.get().getId());
+  public ResponseEntity<byte[]> routes(LoginUser me, ServletWebRequest request) {
+    MenuRouteCache.Routes routes = routeCache.routesFor(me);
+    if (request.checkNotModified(routes.etag())) {
+      return null;
     }
-    List<Menu> menus = new ArrayList<>();
-    for (Long rid : roleIds) menus.addAll(menuMapper.selectByRoleId(rid));
-    Map<Long, List<Menu>> byParent = menus.stream().collect(Collectors.groupingBy(m -> m.getParentId()));
-    // 收集角色字符用于前端 meta.roles
-    List<String> roleKeys = roleIds.stream()
-      .map(roleMapper::selectById)
-      .filter(Objects::nonNull)
-      .map(Role::getRoleKey)
-      .toList();
-    List<Map<String, Object>> tree = buildMenuTree(byParent, 0L, roleKeys);
-    return ResponseEntity.ok(ApiResponse.success("获取成功", tree));
-  }
-
-  private List<Map<String, Object>> buildMenuTree(Map<Long, List<Menu>> byParent, Long parentId, List<String> roleKeys) {
-    return byParent.getOrDefault(parentId, List.of()).stream().map(m -> {
-      Map<String, Object> node = new LinkedHashMap<>();
-      node.put("name", m.getName());
-      node.put("path", m.getPath());
-      node.put("hidden", m.getVisible() != null && m.getVisible() == 0);
-      if (m.getComponent() != null) node.put("component", m.getComponent());
-      Map<String, Object> meta = new LinkedHashMap<>();
-      meta.put("title", m.getName());
-      meta.put("icon", m.getIcon());
-      meta.put("roles", roleKeys);
-      node.put("meta", meta);
-      node.put("children", buildMenuTree(byParent, m.getId(), roleKeys));
-      return node;
-    }).collect(Collectors.toList());
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(routes.body());
   }
 
   /** 角色列表 */
@@ -88,6 +76,8 @@ public class PermissionController {
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<ApiResponse<Void>> addRole(@RequestBody Role r) {
     roleMapper.insert(r);
+    routeCache.invalidateAll();
+    permissions.rebuildAfterCommit();
     return ResponseEntity.ok(ApiResponse.success("新增成功", null));
   }
 
@@ -96,6 +86,8 @@ public class PermissionController {
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<ApiResponse<Void>> updateRole(@RequestBody Role r) {
     roleMapper.updateById(r);
+    routeCache.invalidateAll();
+    permissions.rebuildAfterCommit();
     return ResponseEntity.ok(ApiResponse.success("修改成功", null));
   }
 
@@ -104,6 +96,8 @@ public class PermissionController {
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<ApiResponse<Void>> deleteRole(@PathVariable("roleId") Long roleId) {
     roleMapper.deleteById(roleId);
+    routeCache.invalidateAll();
+    permissions.rebuildAfterCommit();
     return ResponseEntity.ok(ApiResponse.success("删除成功", null));
   }
 
@@ -140,21 +134,27 @@ public class PermissionController {
     return ResponseEntity.ok(ApiResponse.success("获取成功", data));
   }
 
-  /** 获取未分配该角色的用户列表（分页筛选） */
+  /**
+   * 获取未分配该角色的用户列表（分页筛选）
+   * 传 afterId 时按 ID 键集分页（忽略 pageNum），nextAfterId 为下一页游标；total 按筛选条件缓存（FilterCache），每页都返回
+   */
   @GetMapping("/role/{roleId}/unallocated-users")
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<ApiResponse<Map<String, Object>>> unallocatedUsers(@PathVariable("roleId") Long roleId,
                                                                           @RequestParam(value = "username", required = false) String username,
                                                                           @RequestParam(value = "realName", required = false) String realName,
                                                                           @RequestParam(value = "orgId", required = false) Long orgId,
+                                                                          @RequestParam(value = "afterId", required = false) Long afterId,
                                                                           @RequestParam(value = "pageNum", defaultValue = "1") int pageNum,
                                                                           @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
-    int offset = (Math.max(pageNum, 1) - 1) * Math.max(pageSize, 1);
-    var list = userRoleMapper.selectUnallocatedUsersByRole(roleId, username, realName, orgId, offset, pageSize);
-    Long total = userRoleMapper.countUnallocatedUsersByRole(roleId, username, realName, orgId);
+    int size = Math.min(Math.max(pageSize, 1), 1000);
+    int offset = afterId != null ? 0 : (Math.max(pageNum, 1) - 1) * size;
+    var list = userRoleMapper.selectUnallocatedUsersByRole(roleId, username, realName, orgId, afterId, offset, size);
     Map<String, Object> data = new HashMap<>();
     data.put("list", list);
-    data.put("total", total);
+    data.put("total", unallocatedCounts.get(new UnallocatedFilter(roleId, username, realName, orgId),
+      () -> Optional.ofNullable(userRoleMapper.countUnallocatedUsersByRole(roleId, username, realName, orgId)).orElse(0L)));
+    data.put("nextAfterId", list.size() >= size ? list.get(list.size() - 1).get("id") : null);
     return ResponseEntity.ok(ApiResponse.success("获取成功", data));
   }
 
@@ -164,13 +164,7 @@ public class PermissionController {
   public ResponseEntity<ApiResponse<Void>> grantUsers(@RequestBody Map<String, Object> body) {
     Long roleId = Long.valueOf(body.get("roleId").toString());
     List<Long> userIds = ((List<?>) body.get("userIds")).stream().map(Object::toString).map(Long::valueOf).toList();
-    // 简化：逐个追加（生产建议做合并而非覆盖）
-    for (Long uid : userIds) {
-      List<Long> current = userRoleMapper.selectRoleIdsByUserId(uid);
-      Set<Long> merged = new HashSet<>(current);
-      merged.add(roleId);
-      userRoleMapper.replaceUserRoles(uid, new ArrayList<>(merged));
-    }
+    roleGrantService.grantUsers(roleId, userIds);
     return ResponseEntity.ok(ApiResponse.success("授权成功", null));
   }
 
@@ -180,11 +174,7 @@ public class PermissionController {
   public ResponseEntity<ApiResponse<Void>> revokeUsers(@RequestBody Map<String, Object> body) {
     Long roleId = Long.valueOf(body.get("roleId").toString());
     List<Long> userIds = ((List<?>) body.get("userIds")).stream().map(Object::toString).map(Long::valueOf).toList();
-    for (Long uid : userIds) {
-      List<Long> current = userRoleMapper.selectRoleIdsByUserId(uid);
-      current = current.stream().filter(id -> !id.equals(roleId)).toList();
-      userRoleMapper.replaceUserRoles(uid, current);
-    }
+    roleGrantService.revokeUsers(roleId, userIds);
     return ResponseEntity.ok(ApiResponse.success("取消授权成功", null));
   }
 
@@ -196,13 +186,25 @@ public class PermissionController {
     return ResponseEntity.ok(ApiResponse.success("获取成功", mids));
   }
 
+  /** 拖拽移动/排序菜单：draggingId、dropId、dropType（before/after/inner） */
+  @PostMapping("/menu/move")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<Void>> moveMenu(@RequestBody Map<String, Object> body) {
+    Object dragging = body.get("draggingId");
+    Object drop = body.get("dropId");
+    if (dragging == null || drop == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少拖拽节点或目标节点");
+    String dropType = body.get("dropType") == null ? "after" : body.get("dropType").toString();
+    menuOrderService.move(Long.valueOf(dragging.toString()), Long.valueOf(drop.toString()), dropType);
+    return ResponseEntity.ok(ApiResponse.success("移动成功", null));
+  }
+
   /** 给角色分配菜单权限 */
   @PutMapping("/role/auth")
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<ApiResponse<Void>> roleAuth(@RequestBody Map<String, Object> body) {
     Long roleId = Long.valueOf(body.get("roleId").toString());
     List<Long> menuIds = ((List<?>) body.get("menuIds")).stream().map(Object::toString).map(Long::valueOf).toList();
-    menuMapper.replaceRoleMenus(roleId, menuIds);
+    roleGrantService.replaceRoleMenus(roleId, menuIds);
     return ResponseEntity.ok(ApiResponse.success("授权成功", null));
   }
 
@@ -212,7 +214,7 @@ public class PermissionController {
   public ResponseEntity<ApiResponse<Void>> userAuth(@RequestBody Map<String, Object> body) {
     Long userId = Long.valueOf(body.get("userId").toString());
     List<Long> roleIds = ((List<?>) body.get("roleIds")).stream().map(Object::toString).map(Long::valueOf).toList();
-    userRoleMapper.replaceUserRoles(userId, roleIds);
+    roleGrantService.replaceUserRoles(userId, roleIds);
     return ResponseEntity.ok(ApiResponse.success("授权成功", null));
   }
 }
@@ -0,0 +1,136 @@
+package org.example.chaoxingsystem.admin.perm;
+
+import org.example.chaoxingsystem.config.AfterCommit;
+import org.example.chaoxingsystem.config.FilterCache;
+import org.example.chaoxingsystem.config.PermissionRegistry;
+import org.example.chaoxingsystem.user.TokenRevocationList;
+import org.example.chaoxingsystem.user.UserIdentityCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * 角色授权写入：
+ * - 批量授权/取消授权按集合执行：每 chunk-size 个用户一条 INSERT IGNORE ... SELECT 或 DELETE ... IN，
+ *   各块独立提交，行锁只在单条语句内持有；操作幂等，失败后可整体重试
+ * - 用户-角色、角色-菜单的整体替换先读出现有集合，只删除移除项、只插入新增项
+ * - 写入后使受影响用户的身份缓存与路由缓存、未分配用户总数缓存失效，并重建/重载权限位图
+ * - 令牌携带的角色与权限来自 sys_user_role：角色实际发生变化的用户在提交后吊销已签发的令牌，需重新登录或刷新
+ */
+@Service
+public class RoleGrantService {
+  private final UserRoleMapper userRoleMapper;
+  private final MenuMapper menuMapper;
+  private final UserIdentityCache identityCache;
+  private final MenuRouteCache routeCache;
+  private final PermissionRegistry permissions;
+  private final TokenRevocationList tokenRevocationList;
+  private final FilterCache<UnallocatedFilter, Long> unallocatedCounts;
+  private final int chunkSize;
+
+  public RoleGrantService(UserRoleMapper userRoleMapper, MenuMapper menuMapper,
+                          UserIdentityCache identityCache, MenuRouteCache routeCache, PermissionRegistry permissions,
+                          TokenRevocationList tokenRevocationList, FilterCache<UnallocatedFilter, Long> unallocatedCounts,
+                          @Value("${permission.grant.chunk-size:1000}") int chunkSize) {
+    this.userRoleMapper = userRoleMapper;
+    this.menuMapper = menuMapper;
+    this.identityCache = identityCache;
+    this.routeCache = routeCache;
+    this.permissions = permissions;
+    this.tokenRevocationList = tokenRevocationList;
+    this.unallocatedCounts = unallocatedCounts;
+    this.chunkSize = Math.max(chunkSize, 1);
+  }
+
+  /** 为一批用户追加同一角色，返回新增的授权行数 */
+  public int grantUsers(Long roleId, Collection<Long> userIds) {
+    int changed = 0;
+    for (List<Long> chunk : chunks(userIds)) {
+      Set<Long> holders = new HashSet<>(userRoleMapper.selectUserIdsHavingRole(roleId, chunk));
+      int inserted = userRoleMapper.grantRoleToUsers(roleId, chunk);
+      evictUsers(chunk);
+      if (inserted > 0) revokeTokens(chunk.stream().filter(id -> !holders.contains(id)).toList());
+      changed += inserted;
+    }
+    if (changed > 0) {
+      unallocatedCounts.invalidateAll();
+      permissions.rebuildAfterCommit();
+    }
+    return changed;
+  }
+
+  /** 取消一批用户的同一角色，返回删除的授权行数 */
+  public int revokeUsers(Long roleId, Collection<Long> userIds) {
+    int changed = 0;
+    for (List<Long> chunk : chunks(userIds)) {
+      List<Long> holders = userRoleMapper.selectUserIdsHavingRole(roleId, chunk);
+      if (holders.isEmpty()) continue;
+      changed += userRoleMapper.deleteByRoleAndUsers(roleId, holders);
+      evictUsers(chunk);
+      revokeTokens(holders);
+    }
+    if (changed > 0) {
+      unallocatedCounts.invalidateAll();
+      permissions.rebuildAfterCommit();
+    }
+    return changed;
+  }
+
+  /** 将用户的角色替换为 roleIds，只写入差异 */
+  @Transactional
+  public void replaceUserRoles(Long userId, Collection<Long> roleIds) {
+    Set<Long> target = new LinkedHashSet<>(roleIds);
+    Set<Long> current = new HashSet<>(userRoleMapper.selectRoleIdsByUserId(userId));
+    List<Long> removed = current.stream().filter(id -> !target.contains(id)).toList();
+    List<Long> added = target.stream().filter(id -> !current.contains(id)).toList();
+    if (!removed.isEmpty()) userRoleMapper.deleteUserRoles(userId, removed);
+    if (!added.isEmpty()) userRoleMapper.insertUserRoles(userId, added);
+    if (!removed.isEmpty() || !added.isEmpty()) {
+      identityCache.invalidate(userId);
+      routeCache.invalidateUser(userId);
+      unallocatedCounts.invalidateAll();
+      permissions.reloadUserAfterCommit(userId);
+      revokeTokens(List.of(userId));
+    }
+  }
+
+  /** 将角色的菜单替换为 menuIds，只写入差异 */
+  @Transactional
+  public void replaceRoleMenus(Long roleId, Collection<Long> menuIds) {
+    Set<Long> target = new LinkedHashSet<>(menuIds);
+    Set<Long> current = new HashSet<>(menuMapper.selectRoleMenuIds(roleId));
+    List<Long> removed = current.stream().filter(id -> !target.contains(id)).toList();
+    List<Long> added = target.stream().filter(id -> !current.contains(id)).toList();
+    if (!removed.isEmpty()) menuMapper.deleteRoleMenus(roleId, removed);
+    if (!added.isEmpty()) menuMapper.insertRoleMenus(roleId, added);
+    if (!removed.isEmpty() || !added.isEmpty()) {
+      routeCache.invalidateAll();
+      permissions.rebuildAfterCommit();
+    }
+  }
+
+  private void evictUsers(List<Long> userIds) {
+    for (Long uid : userIds) {
+      identityCache.invalidate(uid);
+      routeCache.invalidateUser(uid);
+    }
+  }
+
+  /** 在事务提交后（无事务时立即）吊销这些用户已签发的令牌，避免刷新出仍携带旧角色的新令牌 */
+  private void revokeTokens(List<Long> userIds) {
+    if (userIds.isEmpty()) return;
+    AfterCommit.run(() -> tokenRevocationList.revokeUsers(userIds));
+  }
+
+  /** 去重后按 chunkSize 切分 */
+  private List<List<Long>> chunks(Collection<Long> ids) {
+    List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+    List<List<Long>> out = new ArrayList<>();
+    for (int i = 0; i < distinct.size(); i += chunkSize) {
+      out.add(distinct.subList(i, Math.min(i + chunkSize, distinct.size())));
+    }
+    return out;
+  }
+}
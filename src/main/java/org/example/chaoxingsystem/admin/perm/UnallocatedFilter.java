@@ -0,0 +1,9 @@
+package org.example.chaoxingsystem.admin.perm;
+
+/** 未分配角色用户的筛选条件，空字符串视为未传；用作总数缓存的键 */
+public record UnallocatedFilter(Long roleId, String username, String realName, Long orgId) {
+  public UnallocatedFilter {
+    username = username == null || username.isEmpty() ? null : username;
+    realName = realName == null || realName.isEmpty() ? null : realName;
+  }
+}
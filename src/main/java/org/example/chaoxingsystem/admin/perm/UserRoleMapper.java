@@ -7,8 +7,23 @@ import java.util.Map;
 public interface UserRoleMapper {
   List<Long> selectRoleIdsByUserId(@Param("userId") Long userId);
   List<String> selectRoleKeysByUserId(@Param("userId") Long userId);
-  int replaceUserRoles(@Param("userId") Long userId, @Param("roleIds") List<Long> roleIds);
+  /** 为单个用户追加若干角色（已存在的忽略），roleIds 不能为空 */
+  int insertUserRoles(@Param("userId") Long userId, @Param("roleIds") List<Long> roleIds);
+  /** 移除单个用户的若干角色，roleIds 不能为空 */
+  int deleteUserRoles(@Param("userId") Long userId, @Param("roleIds") List<Long> roleIds);
+  /** 为一批用户追加同一角色 */
+  int insertBatch(@Param("roleId") Long roleId, @Param("userIds") List<Long> userIds);
+  /** 单条 INSERT IGNORE ... SELECT 为一批用户授权，仅作用于存在的用户；userIds 不能为空 */
+  int grantRoleToUsers(@Param("roleId") Long roleId, @Param("userIds") List<Long> userIds);
+  /** userIds 中已持有该角色的用户；userIds 不能为空 */
+  List<Long> selectUserIdsHavingRole(@Param("roleId") Long roleId, @Param("userIds") List<Long> userIds);
+  /** 单条 DELETE 取消一批用户的同一角色；userIds 不能为空 */
+  int deleteByRoleAndUsers(@Param("roleId") Long roleId, @Param("userIds") List<Long> userIds);
   List<Long> selectUserIdsByRoleId(@Param("roleId") Long roleId);
+  /** 全部用户-角色对（userId, roleId），供权限位图加载 */
+  List<Map<String, Object>> selectAllAssignments();
+  /** sys_user_role 的校验值（行数:CRC 异或），用于判断是否需要重新全量加载 */
+  String selectAssignmentChecksum();
 
   List<Map<String, Object>> selectAllocatedUsersByRole(@Param("roleId") Long roleId,
                                                        @Param("username") String username,
@@ -19,10 +34,12 @@ public interface UserRoleMapper {
                                  @Param("username") String username,
                                  @Param("realName") String realName);
 
+  /** afterId 非空时按 id 键集分页（offset 应为 0），否则退化为 offset 分页 */
   List<Map<String, Object>> selectUnallocatedUsersByRole(@Param("roleId") Long roleId,
                                                          @Param("username") String username,
                                                          @Param("realName") String realName,
                                                          @Param("orgId") Long orgId,
+                                                         @Param("afterId") Long afterId,
                                                          @Param("offset") int offset,
                                                          @Param("limit") int limit);
   Long countUnallocatedUsersByRole(@Param("roleId") Long roleId,
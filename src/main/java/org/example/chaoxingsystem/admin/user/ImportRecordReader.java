@@ -0,0 +1,134 @@
+package org.example.chaoxingsystem.admin.user;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 批量导入的逐行读取：CSV（首行为表头）或 NDJSON，每次返回一行的字段表（键为小写列名）
+ * 供用户导入与名册分配共用，内存占用与文件大小无关
+ */
+public abstract class ImportRecordReader {
+  protected final BufferedReader reader;
+  protected long line;
+
+  private ImportRecordReader(InputStream in) {
+    this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+
+  /** format 为 ndjson 时按 NDJSON 读取，否则按 CSV；CSV 表头须包含 requiredColumn（为 null 时不检查） */
+  public static ImportRecordReader open(InputStream in, String format, ObjectMapper objectMapper, String requiredColumn) {
+    return "ndjson".equals(format) ? new Ndjson(in, objectMapper) : new Csv(in, requiredColumn);
+  }
+
+  /** 读取下一行，读完返回 null */
+  public abstract Record next() throws IOException;
+
+  /** 读取下一个非空行并计行号，读完返回 null */
+  protected String nextLine() throws IOException {
+    String text;
+    do {
+      text = reader.readLine();
+      if (text == null) return null;
+      line++;
+    } while (text.isBlank());
+    return text;
+  }
+
+  /** 一行记录：line 为数据行号（CSV 不含表头，从 1 开始）；整行无法解析时 error 非空 */
+  public record Record(long line, Map<String, String> fields, String error) {}
+
+  /** CSV：列名不区分大小写，支持双引号包裹与 "" 转义，不支持字段内换行 */
+  private static final class Csv extends ImportRecordReader {
+    private final String requiredColumn;
+    private List<String> header;
+
+    Csv(InputStream in, String requiredColumn) {
+      super(in);
+      this.requiredColumn = requiredColumn;
+    }
+
+    @Override
+    public Record next() throws IOException {
+      if (header == null) {
+        String first = reader.readLine();
+        if (first == null) return null;
+        if (first.startsWith("\uFEFF")) first = first.substring(1);
+        header = split(first).stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+        if (requiredColumn != null && !header.contains(requiredColumn)) {
+          throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV 表头缺少 " + requiredColumn + " 列");
+        }
+      }
+      String text = nextLine();
+      if (text == null) return null;
+      List<String> cells = split(text);
+      Map<String, String> fields = new HashMap<>();
+      for (int i = 0; i < header.size() && i < cells.size(); i++) fields.put(header.get(i), cells.get(i));
+      return new Record(line, fields, null);
+    }
+
+    private static List<String> split(String text) {
+      List<String> cells = new ArrayList<>();
+      StringBuilder cur = new StringBuilder();
+      boolean quoted = false;
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        if (quoted) {
+          if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+            cur.append('"');
+            i++;
+          } else if (c == '"') {
+            quoted = false;
+          } else {
+            cur.append(c);
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == ',') {
+          cells.add(cur.toString());
+          cur.setLength(0);
+        } else {
+          cur.append(c);
+        }
+      }
+      cells.add(cur.toString());
+      return cells;
+    }
+  }
+
+  /** NDJSON：每行一个 JSON 对象，数组/对象字段保留为 JSON 文本；单行解析失败只记该行错误 */
+  private static final class Ndjson extends ImportRecordReader {
+    private final ObjectMapper objectMapper;
+
+    Ndjson(InputStream in, ObjectMapper objectMapper) {
+      super(in);
+      this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Record next() throws IOException {
+      String text = nextLine();
+      if (text == null) return null;
+      Map<String, String> fields = new HashMap<>();
+      try {
+        JsonNode node = objectMapper.readTree(text);
+        if (!node.isObject()) throw new IOException("not an object");
+        node.fields().forEachRemaining(e -> {
+          JsonNode v = e.getValue();
+          if (!v.isNull()) fields.put(e.getKey().toLowerCase(Locale.ROOT), v.isContainerNode() ? v.toString() : v.asText());
+        });
+      } catch (IOException ex) {
+        return new Record(line, Map.of(), "JSON 格式不正确");
+      }
+      return new Record(line, fields, null);
+    }
+  }
+}
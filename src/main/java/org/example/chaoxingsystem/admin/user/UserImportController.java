@@ -0,0 +1,43 @@
+package org.example.chaoxingsystem.admin.user;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.chaoxingsystem.admin.user.dto.UserImportResult;
+import org.example.chaoxingsystem.user.dto.ApiResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * 用户批量导入接口：请求体直接为 CSV 或 NDJSON 文件内容，服务端边读边写
+ * 格式由 format 参数指定，缺省时按 Content-Type 判断（含 json 视为 NDJSON，否则为 CSV）
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+public class UserImportController {
+  private final UserImportService importService;
+
+  public UserImportController(UserImportService importService) {
+    this.importService = importService;
+  }
+
+  @PostMapping("/import")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<UserImportResult>> importUsers(HttpServletRequest request,
+                                                                   @RequestParam(value = "format", required = false) String format,
+                                                                   @RequestParam(value = "batchSize", required = false) Integer batchSize) throws IOException {
+    String fmt = format;
+    if (fmt == null) {
+      String contentType = request.getContentType() == null ? "" : request.getContentType().toLowerCase(Locale.ROOT);
+      fmt = contentType.contains("json") ? "ndjson" : "csv";
+    }
+    fmt = fmt.toLowerCase(Locale.ROOT);
+    if (!"csv".equals(fmt) && !"ndjson".equals(fmt)) {
+      return ResponseEntity.badRequest().body(ApiResponse.error(400, "仅支持 csv 或 ndjson 格式"));
+    }
+    UserImportResult result = importService.importUsers(request.getInputStream(), fmt, batchSize);
+    return ResponseEntity.ok(ApiResponse.success("导入完成", result));
+  }
+}
@@ -0,0 +1,295 @@
+package org.example.chaoxingsystem.admin.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.admin.org.OrgTreeIndex;
+import org.example.chaoxingsystem.admin.org.Organization;
+import org.example.chaoxingsystem.admin.org.OrganizationMapper;
+import org.example.chaoxingsystem.admin.org.StudentProfileMapper;
+import org.example.chaoxingsystem.admin.org.TeacherProfileMapper;
+import org.example.chaoxingsystem.admin.perm.Role;
+import org.example.chaoxingsystem.admin.perm.RoleMapper;
+import org.example.chaoxingsystem.admin.perm.UserRoleMapper;
+import org.example.chaoxingsystem.admin.user.dto.UserImportResult;
+import org.example.chaoxingsystem.user.User;
+import org.example.chaoxingsystem.user.UserMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 用户批量导入：
+ * - 经 ImportRecordReader 逐行流式读取 CSV（首行为表头）或 NDJSON，按 batchSize 分批处理，内存占用与文件大小无关
+ * - 字段：username,email,password,userType[,realName,phone,orgId,number]；orgId 为班级（学生）或部门（教师），number 为学号/工号
+ * - 文件内重复由已见集合判定；与库中重复每批各用一次 IN 查询预取
+ * - BCrypt 哈希在独立的 ForkJoinPool 中并行计算，不占用登录校验线程
+ * - 每批在一个事务内写入：多行插入 users，回填 ID 后按用户类型批量写入 sys_user_role 与学生/教师档案
+ * - 档案写入提交后按机构增量调整 OrgTreeIndex 的人数
+ * - 单行校验失败不影响其他行；整批写入失败时该批所有行记为失败
+ */
+@Service
+public class UserImportService implements DisposableBean {
+  private static final int MAX_ERRORS = 1000;
+  private static final int MAX_BATCH_SIZE = 2000;
+  private static final Set<String> USER_TYPES = Set.of("student", "teacher", "admin");
+
+  private final UserMapper userMapper;
+  private final UserRoleMapper userRoleMapper;
+  private final RoleMapper roleMapper;
+  private final OrganizationMapper organizationMapper;
+  private final StudentProfileMapper studentMapper;
+  private final TeacherProfileMapper teacherMapper;
+  private final OrgTreeIndex orgTree;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final ForkJoinPool hashPool;
+  private final int defaultBatchSize;
+  private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+  public UserImportService(UserMapper userMapper, UserRoleMapper userRoleMapper, RoleMapper roleMapper,
+                           OrganizationMapper organizationMapper, StudentProfileMapper studentMapper,
+                           TeacherProfileMapper teacherMapper, OrgTreeIndex orgTree, TransactionTemplate transactionTemplate,
+                           ObjectMapper objectMapper,
+                           @Value("${user.import.batch-size:500}") int defaultBatchSize,
+                           @Value("${user.import.hash-parallelism:0}") int hashParallelism) {
+    this.userMapper = userMapper;
+    this.userRoleMapper = userRoleMapper;
+    this.roleMapper = roleMapper;
+    this.organizationMapper = organizationMapper;
+    this.studentMapper = studentMapper;
+    this.teacherMapper = teacherMapper;
+    this.orgTree = orgTree;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.defaultBatchSize = defaultBatchSize;
+    this.hashPool = new ForkJoinPool(hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors());
+  }
+
+  /** 导入用户；format 为 csv 或 ndjson */
+  public UserImportResult importUsers(InputStream in, String format, Integer batchSize) throws IOException {
+    long start = System.nanoTime();
+    int size = Math.min(Math.max(batchSize != null ? batchSize : defaultBatchSize, 1), MAX_BATCH_SIZE);
+    Context ctx = new Context();
+    for (Role r : roleMapper.selectAll()) {
+      if (r.getRoleKey() != null) ctx.roleIds.put(r.getRoleKey().toUpperCase(Locale.ROOT), r.getId());
+    }
+    for (Organization o : organizationMapper.selectAll()) {
+      ctx.orgTypes.put(o.getId(), o.getType() == null ? "" : o.getType().toLowerCase(Locale.ROOT));
+    }
+    UserImportResult result = new UserImportResult(MAX_ERRORS);
+    ImportRecordReader records = ImportRecordReader.open(in, format, objectMapper, "username");
+    List<ImportRow> batch = new ArrayList<>(size);
+    ImportRecordReader.Record rec;
+    while ((rec = records.next()) != null) {
+      result.addRow();
+      ImportRow row = rec.error() != null ? ImportRow.failed(rec.line(), rec.error()) : ImportRow.of(rec.line(), rec.fields());
+      String error = row.error != null ? row.error : validate(row, ctx);
+      if (error != null) {
+        result.fail(row.line, row.username, error);
+        continue;
+      }
+      batch.add(row);
+      if (batch.size() >= size) {
+        flush(batch, ctx, result);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) flush(batch, ctx, result);
+    result.finish(System.nanoTime() - start);
+    return result;
+  }
+
+  private String validate(ImportRow r, Context ctx) {
+    if (r.username == null || r.username.length() < 3 || r.username.length() > 50) return "用户名长度需为 3-50";
+    if (r.email == null || r.email.length() > 100 || r.email.indexOf('@') <= 0) return "邮箱格式不正确";
+    if (r.password == null || r.password.length() < 6 || r.password.length() > 100) return "密码长度需为 6-100";
+    if (r.userType == null || !USER_TYPES.contains(r.userType)) return "用户类型需为 student/teacher/admin";
+    if (r.realName.length() > 50) return "姓名过长";
+    if (r.phone != null && r.phone.length() > 20) return "手机号过长";
+    if (r.orgId != null) {
+      String type = ctx.orgTypes.get(r.orgId);
+      if (type == null) return "机构不存在";
+      boolean isClass = "class".equals(type);
+      boolean isDept = "department".equals(type) || "dept".equals(type);
+      if ("student".equals(r.userType) && !isClass) return "学生只能归属班级";
+      if ("teacher".equals(r.userType) && !isDept) return "教师只能归属部门";
+      if ("admin".equals(r.userType)) return "管理员不支持归属机构";
+    }
+    // 文件内重复：用户名与邮箱均按不区分大小写比较，与库表排序规则一致
+    String name = r.username.toLowerCase(Locale.ROOT);
+    if (ctx.seenUsernames.contains(name)) return "文件内用户名重复";
+    if (ctx.seenEmails.contains(r.email)) return "文件内邮箱重复";
+    ctx.seenUsernames.add(name);
+    ctx.seenEmails.add(r.email);
+    return null;
+  }
+
+  private void flush(List<ImportRow> batch, Context ctx, UserImportResult result) {
+    // 每批一次预取库中已存在的用户名与邮箱
+    Set<String> takenNames = new HashSet<>();
+    for (String n : userMapper.selectExistingUsernames(batch.stream().map(r -> r.username).toList())) {
+      takenNames.add(n.toLowerCase(Locale.ROOT));
+    }
+    Set<String> takenEmails = new HashSet<>();
+    for (String e : userMapper.selectExistingEmails(batch.stream().map(r -> r.email).toList())) {
+      takenEmails.add(e.toLowerCase(Locale.ROOT));
+    }
+    List<ImportRow> accepted = new ArrayList<>(batch.size());
+    for (ImportRow r : batch) {
+      if (takenNames.contains(r.username.toLowerCase(Locale.ROOT))) {
+        result.fail(r.line, r.username, "用户名已存在");
+      } else if (takenEmails.contains(r.email)) {
+        result.fail(r.line, r.username, "邮箱已存在");
+      } else {
+        accepted.add(r);
+      }
+    }
+    if (accepted.isEmpty()) return;
+
+    long hashStart = System.nanoTime();
+    hashPool.submit(() -> accepted.parallelStream().forEach(r -> r.passwordHash = passwordEncoder.encode(r.password))).join();
+    result.addHashNanos(System.nanoTime() - hashStart);
+
+    long writeStart = System.nanoTime();
+    try {
+      transactionTemplate.executeWithoutResult(status -> write(accepted, ctx));
+      result.addSucceeded(accepted.size());
+    } catch (RuntimeException ex) {
+      String message = "批量写入失败：" + rootMessage(ex);
+      for (ImportRow r : accepted) result.fail(r.line, r.username, message);
+    }
+    result.addWriteNanos(System.nanoTime() - writeStart);
+  }
+
+  private void write(List<ImportRow> rows, Context ctx) {
+    List<User> users = new ArrayList<>(rows.size());
+    for (ImportRow r : rows) {
+      User u = new User();
+      u.setUsername(r.username);
+      u.setEmail(r.email);
+      u.setPhone(r.phone);
+      u.setPasswordHash(r.passwordHash);
+      u.setUserType(r.userType);
+      u.setRealName(r.realName);
+      users.add(u);
+    }
+    userMapper.insertBatch(users);
+
+    Map<String, List<Long>> idsByType = new HashMap<>();
+    List<Map<String, Object>> students = new ArrayList<>();
+    List<Map<String, Object>> teachers = new ArrayList<>();
+    int year = LocalDate.now().getYear();
+    for (int i = 0; i < rows.size(); i++) {
+      ImportRow r = rows.get(i);
+      Long id = users.get(i).getId();
+      idsByType.computeIfAbsent(r.userType, k -> new ArrayList<>()).add(id);
+      if (r.orgId == null) continue;
+      Map<String, Object> p = new HashMap<>();
+      p.put("userId", id);
+      p.put("realName", r.realName);
+      if ("student".equals(r.userType)) {
+        p.put("studentNo", r.number != null ? r.number : "S" + year + String.format("%04d", id));
+        p.put("classId", r.orgId);
+        p.put("majorCode", "UNASSIGNED");
+        p.put("enrollmentYear", year);
+        students.add(p);
+      } else {
+        p.put("teacherNo", r.number != null ? r.number : "T" + year + String.format("%04d", id));
+        p.put("deptId", r.orgId);
+        teachers.add(p);
+      }
+    }
+    idsByType.forEach((type, ids) -> {
+      Long roleId = ctx.roleIds.get(type.toUpperCase(Locale.ROOT));
+      if (roleId != null) userRoleMapper.insertBatch(roleId, ids);
+    });
+    if (!students.isEmpty()) studentMapper.insertStudentProfiles(students);
+    if (!teachers.isEmpty()) teacherMapper.insertTeacherProfiles(teachers);
+    // 批次提交后增量调整组织机构树上的人数
+    Map<Long, int[]> deltas = new HashMap<>();
+    for (Map<String, Object> p : students) deltas.computeIfAbsent((Long) p.get("classId"), k -> new int[2])[0]++;
+    for (Map<String, Object> p : teachers) deltas.computeIfAbsent((Long) p.get("deptId"), k -> new int[2])[1]++;
+    deltas.forEach((orgId, d) -> orgTree.adjustMembersAfterCommit(orgId, d[0], d[1]));
+  }
+
+  private static String rootMessage(Throwable ex) {
+    Throwable t = ex;
+    while (t.getCause() != null) t = t.getCause();
+    return t.getMessage();
+  }
+
+  @Override
+  public void destroy() {
+    hashPool.shutdown();
+  }
+
+  /** 单次导入的共享状态：角色/机构字典与文件内已见的用户名、邮箱 */
+  private static final class Context {
+    final Map<String, Long> roleIds = new HashMap<>();
+    final Map<Long, String> orgTypes = new HashMap<>();
+    final Set<String> seenUsernames = new HashSet<>();
+    final Set<String> seenEmails = new HashSet<>();
+  }
+
+  static final class ImportRow {
+    long line;
+    String username;
+    String email;
+    String password;
+    String userType;
+    String realName;
+    String phone;
+    Long orgId;
+    String number;
+    String passwordHash;
+    String error;
+
+    static ImportRow failed(long line, String error) {
+      ImportRow r = new ImportRow();
+      r.line = line;
+      r.error = error;
+      return r;
+    }
+
+    /** 统一清洗：去空白、邮箱与类型转小写、姓名缺省为用户名 */
+    static ImportRow of(long line, Map<String, String> f) {
+      ImportRow r = new ImportRow();
+      r.line = line;
+      r.username = trim(f.get("username"));
+      r.email = lower(f.get("email"));
+      r.password = f.get("password");
+      r.userType = lower(f.get("usertype"));
+      r.phone = trim(f.get("phone"));
+      r.number = trim(f.get("number"));
+      String realName = trim(f.get("realname"));
+      r.realName = realName != null ? realName : (r.username != null ? r.username : "");
+      String orgId = trim(f.get("orgid"));
+      if (orgId != null) {
+        try {
+          r.orgId = Long.valueOf(orgId);
+        } catch (NumberFormatException ex) {
+          r.error = "机构ID格式不正确";
+        }
+      }
+      return r;
+    }
+
+    private static String trim(String s) {
+      if (s == null) return null;
+      s = s.trim();
+      return s.isEmpty() ? null : s;
+    }
+
+    private static String lower(String s) {
+      s = trim(s);
+      return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package org.example.chaoxingsystem.admin.user.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** 批量导入结果：成功/失败计数、逐行错误（最多 maxErrors 条）与吞吐统计 */
+public class UserImportResult {
+  private final int maxErrors;
+  private long total;
+  private long succeeded;
+  private long failed;
+  private final List<RowError> errors = new ArrayList<>();
+  private boolean errorsTruncated;
+  private long hashMillis;
+  private long writeMillis;
+  private long elapsedMillis;
+  private double rowsPerSecond;
+
+  public UserImportResult(int maxErrors) {
+    this.maxErrors = maxErrors;
+  }
+
+  public void addRow() { total++; }
+
+  public void addSucceeded(int n) { succeeded += n; }
+
+  public void fail(long line, String username, String message) {
+    failed++;
+    if (errors.size() < maxErrors) {
+      errors.add(new RowError(line, username, message));
+    } else {
+      errorsTruncated = true;
+    }
+  }
+
+  public void addHashNanos(long nanos) { hashMillis += nanos / 1_000_000L; }
+
+  public void addWriteNanos(long nanos) { writeMillis += nanos / 1_000_000L; }
+
+  public void finish(long elapsedNanos) {
+    this.elapsedMillis = elapsedNanos / 1_000_000L;
+    this.rowsPerSecond = elapsedNanos > 0 ? total * 1_000_000_000d / elapsedNanos : 0d;
+  }
+
+  public long getTotal() { return total; }
+  public long getSucceeded() { return succeeded; }
+  public long getFailed() { return failed; }
+  public List<RowError> getErrors() { return errors; }
+  public boolean isErrorsTruncated() { return errorsTruncated; }
+  /** 口令哈希累计耗时（毫秒） */
+  public long getHashMillis() { return hashMillis; }
+  /** 数据库写入累计耗时（毫秒） */
+  public long getWriteMillis() { return writeMillis; }
+  public long getElapsedMillis() { return elapsedMillis; }
+  public double getRowsPerSecond() { return rowsPerSecond; }
+
+  /** 行错误：line 为数据行号（CSV 不含表头，从 1 开始） */
+  public record RowError(long line, String username, String message) {}
+}
@@ -0,0 +1,35 @@
+package org.example.chaoxingsystem.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** 事务提交后执行内存结构的更新，避免回滚后缓存/索引与数据库不一致 */
+public final class AfterCommit {
+  private AfterCommit() {}
+
+  /** 处于事务中时在提交后执行，否则立即执行 */
+  public static void run(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+
+  /** 调用方已立即执行过 action（如清空缓存）；处于事务中时在提交后再执行一次，以清掉提交前被并发读回的旧数据 */
+  public static void runAgain(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    }
+  }
+}
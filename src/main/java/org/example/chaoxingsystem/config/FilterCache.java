@@ -0,0 +1,86 @@
+package org.example.chaoxingsystem.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按筛选条件缓存的查询结果（COUNT 总数、命中 ID 列表等）：
+ * - 键为调用方的筛选条件记录，须实现值相等；条目数达到 max-entries 时整体清空，超过 ttl-seconds 视为过期
+ * - 写入方调用 invalidateAll，处于事务中时在提交后再失效一次；加载期间发生过失效则放弃回填
+ * - 其他应用进程的写入依赖 TTL 收敛
+ * - 以 cache.gets / cache.size 指标暴露，tag 为构造时的 name
+ */
+public class FilterCache<K, V> implements MeterBinder {
+  private final String name;
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public FilterCache(String name, int maxEntries, long ttlSeconds) {
+    this.name = name;
+    this.maxEntries = maxEntries;
+    this.ttlMillis = ttlSeconds * 1000L;
+  }
+
+  /** 按 prefix.max-entries（缺省 defaultMaxEntries）与 prefix.ttl-seconds（缺省 60）构建 */
+  public static <K, V> FilterCache<K, V> fromProperties(Environment env, String prefix, String name, int defaultMaxEntries) {
+    return new FilterCache<>(name,
+      env.getProperty(prefix + ".max-entries", Integer.class, defaultMaxEntries),
+      env.getProperty(prefix + ".ttl-seconds", Long.class, 60L));
+  }
+
+  /** 取缓存的结果，未命中或过期时由 loader 计算并回填；返回值为共享实例，调用方不得修改 */
+  public V get(K key, Supplier<V> loader) {
+    long now = System.currentTimeMillis();
+    Entry<V> cached = entries.get(key);
+    if (cached != null && cached.expiresAt() > now) {
+      hits.increment();
+      return cached.value();
+    }
+    misses.increment();
+    long stamp = generation.get();
+    V value = loader.get();
+    if (maxEntries > 0 && generation.get() == stamp) {
+      if (entries.size() >= maxEntries) entries.clear();
+      Entry<V> fresh = new Entry<>(value, now + ttlMillis);
+      entries.put(key, fresh);
+      if (generation.get() != stamp) entries.remove(key, fresh);
+    }
+    return value;
+  }
+
+  /** 底层数据写入后调用 */
+  public void invalidateAll() {
+    clear();
+    AfterCommit.runAgain(this::clear);
+  }
+
+  private void clear() {
+    generation.incrementAndGet();
+    entries.clear();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue)
+      .tag("cache", name).tag("result", "hit").register(registry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue)
+      .tag("cache", name).tag("result", "miss").register(registry);
+    Gauge.builder("cache.size", entries, Map::size)
+      .tag("cache", name).register(registry);
+  }
+
+  private record Entry<V>(V value, long expiresAt) {}
+}
@@ -0,0 +1,30 @@
+package org.example.chaoxingsystem.config;
+
+import org.example.chaoxingsystem.admin.perm.UnallocatedFilter;
+import org.example.chaoxingsystem.teacher.bank.QuestionFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/** 按筛选条件的结果缓存；各缓存的失效时机见使用方 */
+@Configuration
+public class FilterCacheConfig {
+
+  /** 题库筛选总数：题目写入（QuestionService、QuestionImportService）时失效 */
+  @Bean
+  public FilterCache<QuestionFilter, Long> questionCountCache(Environment env) {
+    return FilterCache.fromProperties(env, "question.count-cache", "questionCounts", 1000);
+  }
+
+  /** 题库关键字检索复核后的命中 ID 列表：题目写入与检索索引追加、重建（QuestionTextIndex）时失效；每条至多 max-candidates 个 ID，条目上限宜小 */
+  @Bean
+  public FilterCache<QuestionFilter, long[]> questionMatchCache(Environment env) {
+    return FilterCache.fromProperties(env, "question.search.match-cache", "questionMatches", 200);
+  }
+
+  /** 未分配角色用户总数：角色授权（RoleGrantService）时失效，新增用户与机构成员变动靠 TTL 收敛 */
+  @Bean
+  public FilterCache<UnallocatedFilter, Long> unallocatedCountCache(Environment env) {
+    return FilterCache.fromProperties(env, "permission.unallocated-count-cache", "unallocatedCounts", 1000);
+  }
+}
@@ -0,0 +1,80 @@
+package org.example.chaoxingsystem.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @ModuleCheck 处理器解析表：
+ * - 启动时遍历所有 RequestMappingHandlerMapping 的处理器方法，预先解析方法/类上的 @ModuleCheck
+ * - 处理器方法（按 Method 实例做身份映射）-> 模块编码下标；每个快照版本对应一个“被禁用下标”位图
+ * - 请求时只做一次身份表查找与一次位图测试，不再反射读取注解
+ */
+@Component
+public class ModuleHandlerTable implements SmartInitializingSingleton {
+  private final ApplicationContext context;
+  private final ModuleStateRegistry moduleState;
+  private volatile Map<Method, Integer> handlers = Map.of();
+  private volatile String[] codes = new String[0];
+  private volatile Blocked blocked = new Blocked(-1L, new BitSet());
+
+  public ModuleHandlerTable(ApplicationContext context, ModuleStateRegistry moduleState) {
+    this.context = context;
+    this.moduleState = moduleState;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    Map<Method, Integer> table = new IdentityHashMap<>();
+    Map<String, Integer> index = new HashMap<>();
+    List<String> codeList = new ArrayList<>();
+    for (RequestMappingHandlerMapping mapping : context.getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+      for (HandlerMethod hm : mapping.getHandlerMethods().values()) {
+        ModuleCheck anno = AnnotatedElementUtils.findMergedAnnotation(hm.getMethod(), ModuleCheck.class);
+        if (anno == null) anno = AnnotatedElementUtils.findMergedAnnotation(hm.getBeanType(), ModuleCheck.class);
+        if (anno == null) continue;
+        Integer i = index.computeIfAbsent(anno.moduleCode(), c -> {
+          codeList.add(c);
+          return codeList.size() - 1;
+        });
+        table.put(hm.getMethod(), i);
+      }
+    }
+    this.codes = codeList.toArray(new String[0]);
+    this.handlers = Collections.unmodifiableMap(table);
+  }
+
+  /** 处理器所属模块（含依赖链）是否被禁用；未标注 @ModuleCheck 的处理器返回 false */
+  public boolean isBlocked(HandlerMethod hm) {
+    Integer i = handlers.get(hm.getMethod());
+    return i != null && bits().get(i);
+  }
+
+  /** 当前快照下被禁用的模块编码下标位图，快照版本变化时重算 */
+  private BitSet bits() {
+    Blocked b = blocked;
+    ModuleStateRegistry.Snapshot s = moduleState.current();
+    if (b.version() == s.version()) return b.bits();
+    String[] cs = codes;
+    BitSet bits = new BitSet(cs.length);
+    for (int i = 0; i < cs.length; i++) {
+      if (s.disabled().contains(cs[i])) bits.set(i);
+    }
+    blocked = new Blocked(s.version(), bits);
+    return bits;
+  }
+
+  private record Blocked(long version, BitSet bits) {}
+}
@@ -0,0 +1,146 @@
+package org.example.chaoxingsystem.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.chaoxingsystem.admin.module.SystemModule;
+import org.example.chaoxingsystem.admin.module.SystemModuleMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模块启用状态快照：
+ * - 模块编码 -> 是否启用 的不可变映射，重建后整体替换，读取无锁且不访问数据库
+ * - 重建时按 dependencies 求传递闭包：依赖的模块被禁用时，依赖方同样视为禁用；处于循环依赖中的模块视为禁用
+ * - SystemModuleService 增删改/启停后在事务提交后重建
+ * - 其他应用进程的修改由后台线程每 refresh-seconds 秒重建一次收敛
+ * - 快照版本与年龄通过 Micrometer 暴露
+ */
+@Component
+public class ModuleStateRegistry implements InitializingBean, DisposableBean, MeterBinder {
+  private static final Logger log = LoggerFactory.getLogger(ModuleStateRegistry.class);
+
+  private final SystemModuleMapper moduleMapper;
+  private final long refreshSeconds;
+  private final ScheduledExecutorService scheduler;
+  private volatile Snapshot snapshot = new Snapshot(Map.of(), Set.of(), List.of(), 0L, System.currentTimeMillis());
+
+  public ModuleStateRegistry(SystemModuleMapper moduleMapper,
+                             @Value("${module.snapshot.refresh-seconds:30}") long refreshSeconds) {
+    this.moduleMapper = moduleMapper;
+    this.refreshSeconds = refreshSeconds;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "module-snapshot-refresh");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    rebuild();
+    if (refreshSeconds > 0) {
+      scheduler.scheduleWithFixedDelay(() -> {
+        try {
+          rebuild();
+        } catch (Exception ex) {
+          log.warn("模块状态快照刷新失败", ex);
+        }
+      }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  /** 模块是否可用（自身启用且依赖链上均启用）；未配置的模块视为启用 */
+  public boolean isEnabled(String code) {
+    return !snapshot.disabled().contains(code);
+  }
+
+  public Snapshot current() {
+    return snapshot;
+  }
+
+  /** 从数据库重建快照并原子替换 */
+  public synchronized void rebuild() {
+    Map<String, Boolean> enabled = new HashMap<>();
+    Map<String, List<String>> dependencies = new HashMap<>();
+    for (SystemModule m : moduleMapper.selectAll()) {
+      enabled.put(m.getCode(), !Boolean.FALSE.equals(m.getEnabled()));
+      dependencies.put(m.getCode(), split(m.getDependencies()));
+    }
+    Map<String, Boolean> memo = new HashMap<>();
+    List<String> disabledCodes = new ArrayList<>();
+    for (String code : enabled.keySet()) {
+      if (blocked(code, enabled, dependencies, memo, new HashSet<>())) disabledCodes.add(code);
+    }
+    disabledCodes.sort(null);
+    snapshot = new Snapshot(Map.copyOf(enabled), Set.copyOf(disabledCodes), List.copyOf(disabledCodes),
+      snapshot.version() + 1, System.currentTimeMillis());
+  }
+
+  /**
+   * 自身禁用、任一（传递）依赖禁用或依赖链回到正在求值的模块（循环依赖）即视为禁用；未配置的依赖视为启用
+   * visiting 为当前求值路径上的模块；只有求值完成的结果才写入 memo，不缓存循环中途的中间值
+   */
+  private static boolean blocked(String code, Map<String, Boolean> enabled, Map<String, List<String>> dependencies,
+                                 Map<String, Boolean> memo, Set<String> visiting) {
+    Boolean known = memo.get(code);
+    if (known != null) return known;
+    Boolean self = enabled.get(code);
+    if (self == null) return false;
+    if (!visiting.add(code)) return true;
+    boolean result = !self;
+    for (String dep : dependencies.getOrDefault(code, List.of())) {
+      if (result) break;
+      result = blocked(dep, enabled, dependencies, memo, visiting);
+    }
+    visiting.remove(code);
+    memo.put(code, result);
+    return result;
+  }
+
+  private static List<String> split(String s) {
+    if (s == null || s.isBlank()) return List.of();
+    List<String> out = new ArrayList<>();
+    for (String part : s.split(",")) {
+      String t = part.trim();
+      if (!t.isEmpty()) out.add(t);
+    }
+    return out;
+  }
+
+  /** 处于事务中时在提交后重建，否则立即重建 */
+  public void rebuildAfterCommit() {
+    AfterCommit.run(this::rebuild);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("module.snapshot.version", this, r -> r.snapshot.version())
+      .description("模块状态快照版本").register(registry);
+    Gauge.builder("module.snapshot.age", this, r -> (System.currentTimeMillis() - r.snapshot.builtAt()) / 1000d)
+      .baseUnit("seconds").description("模块状态快照距上次重建的时间").register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  /** 快照：编码 -> 自身是否启用、按依赖闭包后的禁用集合（及其有序列表）、版本号与构建时间（毫秒） */
+  public record Snapshot(Map<String, Boolean> enabled, Set<String> disabled, List<String> disabledCodes,
+                         long version, long builtAt) {}
+}
@@ -0,0 +1,197 @@
+package org.example.chaoxingsystem.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.chaoxingsystem.admin.perm.MenuMapper;
+import org.example.chaoxingsystem.admin.perm.Role;
+import org.example.chaoxingsystem.admin.perm.RoleMapper;
+import org.example.chaoxingsystem.admin.perm.UserRoleMapper;
+import org.example.chaoxingsystem.security.LoginUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 权限位图注册表：
+ * - 权限字符（sys_menu.perms，逗号分隔）在加载时驻留为下标，下标只增不减，注解中的权限字符同样驻留
+ * - 角色 -> 菜单 -> 权限编译为稠密位图（long[]）；另在内存中保存用户 -> 角色 ID 映射
+ * - 用户的有效权限为其角色位图按位或，每个快照内每个用户只计算一次；检查时只做一次位测试，不访问数据库
+ * - 未显式分配角色的用户按 userType 对应的角色（role_key 忽略大小写）计算
+ * - 角色菜单/角色变更后整体重建，单个用户角色变更后只重载该用户；处于事务中时在提交后执行
+ * - 其他应用进程的修改由后台线程每 refresh-seconds 秒收敛：角色与菜单表很小，每次重新编译；
+ *   sys_user_role 先取一行校验值（行数 + CRC 异或），与上次加载一致时沿用内存中的用户角色映射，不再全表读取
+ */
+@Component
+public class PermissionRegistry implements InitializingBean, DisposableBean, MeterBinder {
+  private static final Logger log = LoggerFactory.getLogger(PermissionRegistry.class);
+  private static final long[] NONE = new long[0];
+
+  private final MenuMapper menuMapper;
+  private final RoleMapper roleMapper;
+  private final UserRoleMapper userRoleMapper;
+  private final long refreshSeconds;
+  private final ScheduledExecutorService scheduler;
+  private final ConcurrentHashMap<String, Integer> permIndex = new ConcurrentHashMap<>();
+  private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), new ConcurrentHashMap<>(), 0L);
+  // 上次全量加载时 sys_user_role 的校验值
+  private String assignmentChecksum;
+
+  public PermissionRegistry(MenuMapper menuMapper, RoleMapper roleMapper, UserRoleMapper userRoleMapper,
+                            @Value("${permission.snapshot.refresh-seconds:30}") long refreshSeconds) {
+    this.menuMapper = menuMapper;
+    this.roleMapper = roleMapper;
+    this.userRoleMapper = userRoleMapper;
+    this.refreshSeconds = refreshSeconds;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "permission-snapshot-refresh");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    rebuild();
+    if (refreshSeconds > 0) {
+      scheduler.scheduleWithFixedDelay(() -> {
+        try {
+          refresh();
+        } catch (Exception ex) {
+          log.warn("权限快照刷新失败", ex);
+        }
+      }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  /** 权限字符驻留为下标 */
+  public int intern(String perm) {
+    Integer i = permIndex.get(perm);
+    if (i != null) return i;
+    synchronized (permIndex) {
+      return permIndex.computeIfAbsent(perm, p -> permIndex.size());
+    }
+  }
+
+  /** 当前用户是否持有下标为 perm 的权限 */
+  public boolean hasPerm(LoginUser user, int perm) {
+    Snapshot s = snapshot;
+    long[] bits = s.effective().computeIfAbsent(user.getId(), id -> s.effectiveOf(id, user.getUserType()));
+    int word = perm >>> 6;
+    return word < bits.length && (bits[word] & (1L << perm)) != 0;
+  }
+
+  /** 从数据库重建角色位图与用户角色映射并原子替换 */
+  public synchronized void rebuild() {
+    String checksum = userRoleMapper.selectAssignmentChecksum();
+    Map<Long, List<Long>> grouped = new HashMap<>();
+    for (Map<String, Object> row : userRoleMapper.selectAllAssignments()) {
+      grouped.computeIfAbsent(((Number) row.get("userId")).longValue(), k -> new ArrayList<>())
+        .add(((Number) row.get("roleId")).longValue());
+    }
+    ConcurrentHashMap<Long, long[]> userRoles = new ConcurrentHashMap<>(Math.max(16, grouped.size() * 4 / 3 + 1));
+    grouped.forEach((uid, rids) -> userRoles.put(uid, rids.stream().mapToLong(Long::longValue).toArray()));
+    swap(userRoles);
+    assignmentChecksum = checksum;
+  }
+
+  /** 定时收敛：用户角色映射未变化时只重新编译角色位图 */
+  synchronized void refresh() {
+    if (!Objects.equals(assignmentChecksum, userRoleMapper.selectAssignmentChecksum())) {
+      rebuild();
+      return;
+    }
+    swap(snapshot.userRoles());
+  }
+
+  /** 编译角色位图并与给定的用户角色映射组成新快照；有效权限在新快照中重新计算 */
+  private void swap(ConcurrentHashMap<Long, long[]> userRoles) {
+    Map<Long, long[]> roleBits = new HashMap<>();
+    for (Map<String, Object> row : menuMapper.selectRolePerms()) {
+      Long roleId = ((Number) row.get("roleId")).longValue();
+      long[] bits = roleBits.getOrDefault(roleId, NONE);
+      for (String perm : String.valueOf(row.get("perms")).split(",")) {
+        String p = perm.trim();
+        if (!p.isEmpty()) bits = set(bits, intern(p));
+      }
+      roleBits.put(roleId, bits);
+    }
+    Map<String, Long> roleIdByKey = new HashMap<>();
+    for (Role r : roleMapper.selectAll()) {
+      if (r.getRoleKey() != null) roleIdByKey.put(r.getRoleKey().toUpperCase(Locale.ROOT), r.getId());
+    }
+    snapshot = new Snapshot(Map.copyOf(roleBits), Map.copyOf(roleIdByKey), userRoles, snapshot.version() + 1);
+  }
+
+  /** 重新加载单个用户的角色并丢弃其已计算的有效权限 */
+  public synchronized void reloadUser(Long userId) {
+    Snapshot s = snapshot;
+    long[] rids = userRoleMapper.selectRoleIdsByUserId(userId).stream().mapToLong(Long::longValue).toArray();
+    if (rids.length == 0) s.userRoles().remove(userId); else s.userRoles().put(userId, rids);
+    s.effective().remove(userId);
+  }
+
+  /** 处于事务中时在提交后重建，否则立即重建 */
+  public void rebuildAfterCommit() {
+    AfterCommit.run(this::rebuild);
+  }
+
+  /** 处于事务中时在提交后重载该用户，否则立即重载 */
+  public void reloadUserAfterCommit(Long userId) {
+    AfterCommit.run(() -> reloadUser(userId));
+  }
+
+
+  private static long[] set(long[] bits, int index) {
+    int word = index >>> 6;
+    long[] out = word < bits.length ? bits : Arrays.copyOf(bits, word + 1);
+    out[word] |= 1L << index;
+    return out;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("permission.snapshot.version", this, r -> r.snapshot.version())
+      .description("权限快照版本").register(registry);
+    Gauge.builder("permission.perms", permIndex, Map::size)
+      .description("已驻留的权限字符数").register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  /** 快照：角色位图、角色字符 -> 角色 ID、用户 -> 角色 ID，以及按用户惰性计算的有效权限 */
+  private record Snapshot(Map<Long, long[]> roleBits, Map<String, Long> roleIdByKey,
+                          ConcurrentHashMap<Long, long[]> userRoles, long version,
+                          ConcurrentHashMap<Long, long[]> effective) {
+    Snapshot(Map<Long, long[]> roleBits, Map<String, Long> roleIdByKey, ConcurrentHashMap<Long, long[]> userRoles, long version) {
+      this(roleBits, roleIdByKey, userRoles, version, new ConcurrentHashMap<>());
+    }
+
+    long[] effectiveOf(Long userId, String userType) {
+      long[] rids = userRoles.get(userId);
+      if (rids == null) {
+        Long fallback = userType == null ? null : roleIdByKey.get(userType.toUpperCase(Locale.ROOT));
+        rids = fallback == null ? NONE : new long[]{fallback};
+      }
+      long[] out = NONE;
+      for (long rid : rids) {
+        long[] bits = roleBits.getOrDefault(rid, NONE);
+        if (bits.length > out.length) out = Arrays.copyOf(out, bits.length);
+        for (int i = 0; i < bits.length; i++) out[i] |= bits[i];
+      }
+      return out;
+    }
+  }
+}
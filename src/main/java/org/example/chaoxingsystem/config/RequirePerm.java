@@ -0,0 +1,11 @@
+package org.example.chaoxingsystem.config;
+
+import java.lang.annotation.*;
+
+/** 细粒度权限检查注解：当前用户的角色未持有该权限字符（sys_menu.perms）时拦截请求 */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequirePerm {
+  String value();
+}
@@ -0,0 +1,64 @@
+package org.example.chaoxingsystem.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.chaoxingsystem.security.LoginUser;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * @RequirePerm 校验：
+ * - 启动时预解析所有处理器方法（方法优先于类）上的权限字符并驻留为下标
+ * - 请求时按 Method 身份查表，再对当前用户的有效权限位图做一次位测试，不反射、不访问数据库
+ */
+@Component
+public class RequirePermInterceptor implements HandlerInterceptor, SmartInitializingSingleton {
+  private final ApplicationContext context;
+  private final PermissionRegistry registry;
+  private volatile Map<Method, Integer> handlers = Map.of();
+
+  public RequirePermInterceptor(ApplicationContext context, PermissionRegistry registry) {
+    this.context = context;
+    this.registry = registry;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    Map<Method, Integer> table = new IdentityHashMap<>();
+    for (RequestMappingHandlerMapping mapping : context.getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+      for (HandlerMethod hm : mapping.getHandlerMethods().values()) {
+        RequirePerm anno = AnnotatedElementUtils.findMergedAnnotation(hm.getMethod(), RequirePerm.class);
+        if (anno == null) anno = AnnotatedElementUtils.findMergedAnnotation(hm.getBeanType(), RequirePerm.class);
+        if (anno != null) table.put(hm.getMethod(), registry.intern(anno.value()));
+      }
+    }
+    this.handlers = Collections.unmodifiableMap(table);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+    if (!(handler instanceof HandlerMethod hm)) return true;
+    Integer perm = handlers.get(hm.getMethod());
+    if (perm == null) return true;
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    if (auth != null && auth.getPrincipal() instanceof LoginUser user && user.getId() != null && registry.hasPerm(user, perm)) {
+      return true;
+    }
+    response.setStatus(403);
+    response.setContentType("application/json;charset=UTF-8");
+    response.getWriter().write("{\"code\":403,\"message\":\"没有操作权限\",\"data\":null}");
+    return false;
+  }
+}
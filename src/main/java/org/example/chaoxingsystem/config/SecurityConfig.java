@@ -20,7 +20,8 @@ import org.springframework.beans.factory.annotation.Value;
  * 安全配置：
  * - 关闭 CSRF，启用无状态会话
  * - 配置 CORS 允许来源
- * - 放行登录/注册/重置密码，其余接口按角色鉴权
+ * - 放行登录/注册/刷新令牌/重置密码，其余接口按角色鉴权
+ * - 健康检查（/actuator/health/**）匿名放行供负载均衡与探针使用，其余运行指标（/actuator/**）仅管理员可访问
  * - 在用户名密码过滤器之前加入 JWT 认证过滤器
  */
 @Configuration
@@ -32,9 +33,11 @@ public class SecurityConfig {
     http.sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
     http.cors(cors -> cors.configurationSource(corsConfigurationSource()));
     http.authorizeHttpRequests(auth -> auth
-      .requestMatchers(HttpMethod.POST, "/api/login", "/api/register", "/api/reset-password").permitAll()
-      .requestMatchers(HttpMethod.POST, "/api/auth/login", "/api/auth/register", "/api/auth/reset-password").permitAll()
+      .requestMatchers(HttpMethod.POST, "/api/login", "/api/register", "/api/refresh", "/api/reset-password").permitAll()
+      .requestMatchers(HttpMethod.POST, "/api/auth/login", "/api/auth/register", "/api/auth/refresh", "/api/auth/reset-password").permitAll()
       .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+      .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll()
+      .requestMatchers("/actuator/**").hasRole("ADMIN")
       .anyRequest().authenticated()
     );
     http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -1,17 +1,33 @@
 package org.example.chaoxingsystem.config;
 
+import org.example.chaoxingsystem.security.LoginUserArgumentResolver;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-/** 注册模块检查拦截器 */
+import java.util.List;
+
+/** 注册模块检查、权限检查拦截器与当前用户参数解析器 */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
   private final ModuleCheckInterceptor interceptor;
-  public WebMvcConfig(ModuleCheckInterceptor interceptor) { this.interceptor = interceptor; }
+  private final RequirePermInterceptor permInterceptor;
+  public WebMvcConfig(ModuleCheckInterceptor interceptor, RequirePermInterceptor permInterceptor) {
+    this.interceptor = interceptor;
+    this.permInterceptor = permInterceptor;
+  }
   @Override
   public void addInterceptors(InterceptorRegistry registry) {
     // 全局拦截，读取 @ModuleCheck 注解以判断模块启用状态
     registry.addInterceptor(interceptor).addPathPatterns("/**");
+    // 读取 @RequirePerm 注解，按权限位图校验
+    registry.addInterceptor(permInterceptor).addPathPatterns("/**");
+  }
+
+  @Override
+  public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+    // 控制器方法声明 LoginUser 参数即可获得当前用户，无需按用户名回查
+    resolvers.add(new LoginUserArgumentResolver());
   }
 }
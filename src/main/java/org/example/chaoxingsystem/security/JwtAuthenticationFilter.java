@@ -4,10 +4,12 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.chaoxingsystem.user.TokenRevocationList;
 import org.example.chaoxingsystem.user.TokenService;
 import org.example.chaoxingsystem.user.TokenService.TokenData;
 import org.springframework.stereotype.Component;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,16 +20,23 @@ import java.util.Collections;
 /**
  * JWT 认证过滤器：
  * - 从请求头读取 Authorization: Bearer <token>
- * - 解析并校验自定义 JWT，提取用户名与用户类型
+ * - 解析并校验自定义 JWT，提取用户 ID、用户名与用户类型
  * - 基于用户类型映射 Spring Security 角色（ROLE_STUDENT/ROLE_TEACHER/ROLE_ADMIN）
+ * - 认证主体为 LoginUser（用户 ID/用户名/用户类型），控制器无需再查询用户表
+ * - 已验签令牌命中 VerifiedTokenCache 时直接复用认证对象，跳过验签与解析
+ * - 无论是否命中缓存都检查内存吊销表，已吊销的令牌不建立认证
  * - 设置认证上下文后放行
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
   private final TokenService tokenService;
+  private final VerifiedTokenCache tokenCache;
+  private final TokenRevocationList revocationList;
 
-  public JwtAuthenticationFilter(TokenService tokenService) {
+  public JwtAuthenticationFilter(TokenService tokenService, VerifiedTokenCache tokenCache, TokenRevocationList revocationList) {
     this.tokenService = tokenService;
+    this.tokenCache = tokenCache;
+    this.revocationList = revocationList;
   }
 
   @Override
@@ -35,12 +44,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     String authHeader = request.getHeader("Authorization");
     if (authHeader != null && authHeader.startsWith("Bearer ")) {
       String token = authHeader.substring(7);
-      TokenData data = tokenService.parseAndValidate(token);
-      if (data != null) {
-        String role = "ROLE_" + data.getUserType().toUpperCase();
-        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-          data.getUsername(), null, Collections.singletonList(new SimpleGrantedAuthority(role))
-        );
+      VerifiedTokenCache.Entry cached = tokenCache.get(token);
+      TokenData data = cached != null ? cached.data() : null;
+      Authentication authentication = cached != null ? cached.authentication() : null;
+      if (authentication == null) {
+        data = tokenService.parseAndValidate(token);
+        if (data != null) {
+          String role = "ROLE_" + data.getUserType().toUpperCase();
+          LoginUser principal = new LoginUser(data.getId(), data.getUsername(), data.getUserType());
+          authentication = new UsernamePasswordAuthenticationToken(
+            principal, null, Collections.singletonList(new SimpleGrantedAuthority(role))
+          );
+          tokenCache.put(token, data, authentication);
+        }
+      }
+      if (authentication != null && !revocationList.isRevoked(data)) {
         SecurityContextHolder.getContext().setAuthentication(authentication);
       }
     }
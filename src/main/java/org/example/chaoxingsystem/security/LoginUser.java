@@ -0,0 +1,32 @@
+package org.example.chaoxingsystem.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.io.Serializable;
+
+/**
+ * 当前登录用户：由 JwtAuthenticationFilter 从令牌解析后写入认证上下文
+ * - 携带用户 ID、用户名与解析后的用户类型，控制器直接注入即可，无需再按用户名查询 users
+ * - 实现 AuthenticatedPrincipal，Authentication.getName() 仍返回用户名
+ */
+public class LoginUser implements AuthenticatedPrincipal, Serializable {
+  private final Long id;
+  private final String username;
+  private final String userType;
+
+  public LoginUser(Long id, String username, String userType) {
+    this.id = id;
+    this.username = username;
+    this.userType = userType;
+  }
+
+  public Long getId() { return id; }
+  public String getUsername() { return username; }
+  public String getUserType() { return userType; }
+
+  @Override
+  public String getName() { return username; }
+
+  @Override
+  public String toString() { return username; }
+}
@@ -0,0 +1,118 @@
+package org.example.chaoxingsystem.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.chaoxingsystem.user.TokenService.TokenData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验签令牌缓存：
+ * - 以令牌签名段为键，命中时直接复用解析结果与预构建的 Authentication，跳过 HMAC 计算与 JSON 解析
+ * - 命中时比对完整令牌，避免仅签名段相同的伪造令牌复用缓存
+ * - 按容量与令牌签发时长淘汰：超过 max-age 的令牌不再缓存，超出容量时先清理过期项再随机淘汰
+ * - 缓存项不会晚于令牌自身的 exp 失效；吊销检查由过滤器在命中后另行完成
+ * - 命中/未命中/淘汰计数通过 Micrometer 暴露（cache=verifiedTokens）
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final int maxSize;
+  private final long maxAgeMillis;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  public VerifiedTokenCache(@Value("${security.token.cache.max-size:10000}") int maxSize,
+                            @Value("${security.token.cache.max-age-seconds:43200}") long maxAgeSeconds) {
+    this.maxSize = maxSize;
+    this.maxAgeMillis = maxAgeSeconds * 1000L;
+  }
+
+  /** 查找已验签的令牌，未命中或已过期返回 null */
+  public Entry get(String token) {
+    String key = signatureOf(token);
+    Entry e = key == null ? null : entries.get(key);
+    if (e == null || !e.token().equals(token)) {
+      misses.increment();
+      return null;
+    }
+    if (e.expiresAt() <= System.currentTimeMillis()) {
+      if (entries.remove(key, e)) evictions.increment();
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return e;
+  }
+
+  /** 缓存验签结果；令牌签发时间超过 max-age 或已过期时不缓存 */
+  public void put(String token, TokenData data, Authentication authentication) {
+    if (maxSize <= 0) return;
+    String key = signatureOf(token);
+    if (key == null) return;
+    long now = System.currentTimeMillis();
+    long issuedAt = data.getIssuedAt() != null ? data.getIssuedAt() * 1000L : now;
+    long expiresAt = Math.min(issuedAt + maxAgeMillis, Math.min(data.getExpiresAt(), Long.MAX_VALUE / 1000L) * 1000L);
+    if (expiresAt <= now) return;
+    if (entries.size() >= maxSize) sweep(now);
+    entries.put(key, new Entry(token, data, authentication, expiresAt));
+  }
+
+  public long hitCount() { return hits.sum(); }
+  public long missCount() { return misses.sum(); }
+  public int size() { return entries.size(); }
+
+  /** 清理过期项；仍超出容量时按迭代顺序淘汰至 90% 容量，同一时刻仅允许一个线程清理 */
+  private void sweep(long now) {
+    if (!sweeping.compareAndSet(false, true)) return;
+    try {
+      entries.values().removeIf(e -> {
+        if (e.expiresAt() > now) return false;
+        evictions.increment();
+        return true;
+      });
+      int target = maxSize - Math.max(1, maxSize / 10);
+      Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+      while (entries.size() > target && it.hasNext()) {
+        it.next();
+        it.remove();
+        evictions.increment();
+      }
+    } finally {
+      sweeping.set(false);
+    }
+  }
+
+  private static String signatureOf(String token) {
+    if (token == null) return null;
+    int dot = token.lastIndexOf('.');
+    if (dot < 0 || dot == token.length() - 1) return null;
+    return token.substring(dot + 1);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue)
+      .tag("cache", "verifiedTokens").tag("result", "hit").register(registry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue)
+      .tag("cache", "verifiedTokens").tag("result", "miss").register(registry);
+    FunctionCounter.builder("cache.evictions", evictions, LongAdder::doubleValue)
+      .tag("cache", "verifiedTokens").register(registry);
+    Gauge.builder("cache.size", entries, Map::size)
+      .tag("cache", "verifiedTokens").register(registry);
+  }
+
+  /** 缓存项：原始令牌、解析结果、预构建认证对象与过期时间（毫秒） */
+  public record Entry(String token, TokenData data, Authentication authentication, long expiresAt) {}
+}
@@ -1,12 +1,11 @@
 package org.example.chaoxingsystem.student.exam;
 
+import org.example.chaoxingsystem.security.LoginUser;
 import org.example.chaoxingsystem.teacher.exam.Exam;
 import org.example.chaoxingsystem.teacher.exam.ExamService;
-import org.example.chaoxingsystem.user.UserService;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -18,12 +17,10 @@ import java.util.Map;
 public class StudentExamController {
   private final ExamService examService;
   private final StudentExamService studentExamService;
-  private final UserService userService;
 
-  public StudentExamController(ExamService examService, StudentExamService studentExamService, UserService userService) {
+  public StudentExamController(ExamService examService, StudentExamService studentExamService) {
     this.examService = examService;
     this.studentExamService = studentExamService;
-    this.userService = userService;
   }
 
   @GetMapping
@@ -54,8 +51,7 @@ public class StudentExamController {
 
   @PostMapping("/{examId}/submit")
   @PreAuthorize("hasRole('STUDENT')")
-  public ResponseEntity<ApiResponse<Void>> submit(Authentication auth, @PathVariable("examId") Long examId, @RequestBody Map<String, Object> body) {
-    var me = userService.getByUsername(auth.getName());
+  public ResponseEntity<ApiResponse<Void>> submit(LoginUser me, @PathVariable("examId") Long examId, @RequestBody Map<String, Object> body) {
     Map<String, Object> answers = (Map<String, Object>) body.get("answers");
     Integer durationUsed = body.get("durationUsed") instanceof Number ? ((Number) body.get("durationUsed")).intValue() : null;
     studentExamService.submit(examId, me.getId(), answers, durationUsed);
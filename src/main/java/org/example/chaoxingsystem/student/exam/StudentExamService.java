@@ -2,6 +2,7 @@ package org.example.chaoxingsystem.student.exam;
 
 import org.example.chaoxingsystem.teacher.exam.ExamMapper;
 import org.example.chaoxingsystem.teacher.exam.Exam;
+import org.example.chaoxingsystem.teacher.bank.QuestionTypeRegistry;
 import org.example.chaoxingsystem.teacher.paper.PaperMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,13 +18,16 @@ public class StudentExamService {
   private final PaperMapper paperMapper;
   private final StudentExamMapper studentExamMapper;
   private final org.example.chaoxingsystem.teacher.score.ScoreMapper scoreMapper;
+  private final QuestionTypeRegistry typeRegistry;
   private final ObjectMapper objectMapper = new ObjectMapper();
 
-  public StudentExamService(ExamMapper examMapper, PaperMapper paperMapper, StudentExamMapper studentExamMapper, org.example.chaoxingsystem.teacher.score.ScoreMapper scoreMapper) {
+  public StudentExamService(ExamMapper examMapper, PaperMapper paperMapper, StudentExamMapper studentExamMapper, org.example.chaoxingsystem.teacher.score.ScoreMapper scoreMapper,
+                            QuestionTypeRegistry typeRegistry) {
     this.examMapper = examMapper;
     this.paperMapper = paperMapper;
     this.studentExamMapper = studentExamMapper;
     this.scoreMapper = scoreMapper;
+    this.typeRegistry = typeRegistry;
   }
 
   public Map<String, Object> getPaper(Long examId) {
@@ -31,6 +35,11 @@ public class StudentExamService {
     if (e == null) return Map.of();
     var p = paperMapper.selectById(e.getPaperId());
     List<Map<String, Object>> qs = paperMapper.selectPaperQuestionViews(e.getPaperId());
+    // 题型编码由常驻字典补齐，视图查询不再关联题型表
+    for (Map<String, Object> q : qs) {
+      Object typeId = q.get("type_id");
+      q.put("type_code", typeId instanceof Number n ? typeRegistry.codeOf(n.intValue()) : null);
+    }
     Map<String, Object> data = new HashMap<>();
     data.put("paperId", p != null ? p.getId() : null);
     data.put("name", p != null ? p.getName() : null);
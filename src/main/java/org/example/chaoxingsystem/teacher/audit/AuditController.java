@@ -1,12 +1,12 @@
 package org.example.chaoxingsystem.teacher.audit;
 
 import org.example.chaoxingsystem.config.ModuleCheck;
+import org.example.chaoxingsystem.config.RequirePerm;
+import org.example.chaoxingsystem.security.LoginUser;
 import org.example.chaoxingsystem.teacher.audit.dto.ProcessRequest;
-import org.example.chaoxingsystem.user.UserService;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -23,15 +23,14 @@ import java.util.List;
 @ModuleCheck(moduleCode = "tch_audit")
 public class AuditController {
   private final QuestionAuditService service;
-  private final UserService userService;
 
-  public AuditController(QuestionAuditService service, UserService userService) {
+  public AuditController(QuestionAuditService service) {
     this.service = service;
-    this.userService = userService;
   }
 
   @GetMapping("/list")
   @PreAuthorize("hasRole('TEACHER')")
+  @RequirePerm("audit:view")
   public ResponseEntity<ApiResponse<HashMap<String, Object>>> list(
     @RequestParam(value = "pageNum", defaultValue = "1") int pageNum,
     @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
@@ -50,8 +49,8 @@ public class AuditController {
 
   @PutMapping("/process")
   @PreAuthorize("hasRole('TEACHER')")
-  public ResponseEntity<ApiResponse<HashMap<String, Object>>> process(Authentication auth, @RequestBody ProcessRequest req) {
-    var me = userService.getByUsername(auth.getName());
+  @RequirePerm("audit:view")
+  public ResponseEntity<ApiResponse<HashMap<String, Object>>> process(LoginUser me, @RequestBody ProcessRequest req) {
     int affected = service.process(req.getIds(), req.getStatus(), req.getComment(), me.getId());
     HashMap<String, Object> data = new HashMap<>();
     data.put("affected", affected);
@@ -60,6 +59,7 @@ public class AuditController {
 
   @GetMapping("/{id}")
   @PreAuthorize("hasRole('TEACHER')")
+  @RequirePerm("audit:view")
   public ResponseEntity<ApiResponse<QuestionAuditDetail>> detail(@PathVariable("id") Long id) {
     var d = service.detail(id);
     return ResponseEntity.ok(ApiResponse.success("获取成功", d));
@@ -1,5 +1,6 @@
 package org.example.chaoxingsystem.teacher.audit;
 
+import org.example.chaoxingsystem.teacher.bank.QuestionTypeRegistry;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -7,13 +8,16 @@ import java.util.List;
 
 /**
  * 题目审核领域服务：列表统计/分页、详情查询、批量处理
+ * 题型编码由 QuestionTypeRegistry 在内存中补齐，查询不再关联题型表
  */
 @Service
 public class QuestionAuditService {
   private final QuestionAuditMapper mapper;
+  private final QuestionTypeRegistry typeRegistry;
 
-  public QuestionAuditService(QuestionAuditMapper mapper) {
+  public QuestionAuditService(QuestionAuditMapper mapper, QuestionTypeRegistry typeRegistry) {
     this.mapper = mapper;
+    this.typeRegistry = typeRegistry;
   }
 
   public long count(Integer status, String submitterName, String beginTime, String endTime) {
@@ -22,11 +26,15 @@ public class QuestionAuditService {
 
   public List<QuestionAuditListRow> page(Integer status, String submitterName, String beginTime, String endTime, int pageNum, int pageSize) {
     int offset = (Math.max(pageNum, 1) - 1) * Math.max(pageSize, 1);
-    return mapper.selectPage(status, submitterName, beginTime, endTime, offset, pageSize);
+    List<QuestionAuditListRow> rows = mapper.selectPage(status, submitterName, beginTime, endTime, offset, pageSize);
+    for (QuestionAuditListRow r : rows) r.setTypeCode(typeRegistry.codeOf(r.getTypeId()));
+    return rows;
   }
 
   public QuestionAuditDetail detail(Long id) {
-    return mapper.selectDetail(id);
+    QuestionAuditDetail d = mapper.selectDetail(id);
+    if (d != null) d.setTypeCode(typeRegistry.codeOf(d.getTypeId()));
+    return d;
   }
 
   @Transactional
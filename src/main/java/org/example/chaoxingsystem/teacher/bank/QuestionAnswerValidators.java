@@ -0,0 +1,269 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.teacher.bank.dto.OptionItem;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按题型预编译的答案校验器：
+ * - 每个题型的 config_json 只解析一次（max_option、requires_file_id），按 typeId 缓存，配置变更后重新编译
+ * - 单选/多选：答案为选项键数组（单选也接受单个字符串），键须存在于题目选项中；未给选项时按 max_option 取 A、B、C…
+ * - 判断：布尔值；填空：非空字符串数组；简答/编程：非空字符串或对象；其他题型只要求是合法 JSON
+ * - 绑定后的请求对象（String/Boolean/List/Map）直接校验；JSON 文本用流式解析器逐个 token 校验，均不构建 JsonNode 树
+ * 校验器无状态，线程安全
+ */
+@Component
+public class QuestionAnswerValidators {
+  static final String EMPTY = "答案不能为空";
+  static final String MALFORMED = "答案结构不合法";
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ConcurrentHashMap<Integer, Validator> compiled = new ConcurrentHashMap<>();
+
+  /** 取题型的校验器，首次使用或配置变化时编译 */
+  public Validator forType(QuestionType type) {
+    Validator v = type.getTypeId() == null ? null : compiled.get(type.getTypeId());
+    if (v != null && Objects.equals(v.typeCode, type.getTypeCode()) && Objects.equals(v.configJson, type.getConfigJson())) return v;
+    v = compile(type);
+    if (type.getTypeId() != null) compiled.put(type.getTypeId(), v);
+    return v;
+  }
+
+  private Validator compile(QuestionType type) {
+    int maxOption = 26;
+    boolean requiresFile = false;
+    if (type.getConfigJson() != null && !type.getConfigJson().isBlank()) {
+      try {
+        JsonNode config = objectMapper.readTree(type.getConfigJson());
+        maxOption = Math.min(Math.max(config.path("max_option").asInt(maxOption), 1), 26);
+        requiresFile = config.path("requires_file_id").asBoolean(false);
+      } catch (IOException ignored) {
+        // 配置损坏时按缺省值校验
+      }
+    }
+    Set<String> defaultKeys = new HashSet<>();
+    for (int i = 0; i < maxOption; i++) defaultKeys.add(String.valueOf((char) ('A' + i)));
+    String code = type.getTypeCode() == null ? "" : type.getTypeCode().toUpperCase(Locale.ROOT);
+    Rule rule = switch (code) {
+      case "SINGLE" -> new ChoiceRule(1);
+      case "MULTI", "MULTIPLE" -> new ChoiceRule(Integer.MAX_VALUE);
+      case "TRUE_FALSE", "JUDGE" -> new BooleanRule();
+      case "FILL", "BLANK" -> new FillRule();
+      case "SHORT", "ESSAY", "PROGRAM", "PROGRAMMING", "CODE" -> new TextRule();
+      default -> new AnyRule();
+    };
+    return new Validator(type.getTypeCode(), type.getConfigJson(), rule, Set.copyOf(defaultKeys), requiresFile);
+  }
+
+  /** 从选项 JSON（[{key,value},…]）中流式取出选项键；为空时返回 null，结构不合法时抛出 IOException */
+  public Set<String> optionKeys(String optionsJson) throws IOException {
+    if (optionsJson == null || optionsJson.isBlank()) return null;
+    try (JsonParser p = jsonFactory.createParser(optionsJson)) {
+      JsonToken t = p.nextToken();
+      if (t == JsonToken.VALUE_NULL) return null;
+      if (t != JsonToken.START_ARRAY) throw new IOException("选项必须为数组");
+      Set<String> keys = new HashSet<>();
+      while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+        if (t != JsonToken.START_OBJECT) throw new IOException("选项必须为对象");
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String field = p.currentName();
+          JsonToken v = p.nextToken();
+          if ("key".equals(field) && v == JsonToken.VALUE_STRING) keys.add(p.getText());
+          else p.skipChildren();
+        }
+      }
+      if (p.nextToken() != null) throw new IOException("选项后有多余内容");
+      return keys;
+    }
+  }
+
+  /** 请求绑定的选项列表取键；为空时返回 null */
+  public static Set<String> optionKeys(List<OptionItem> options) {
+    if (options == null) return null;
+    Set<String> keys = new HashSet<>();
+    for (OptionItem o : options) if (o != null && o.getKey() != null) keys.add(o.getKey());
+    return keys;
+  }
+
+  /** 流式判断文本是否为单个合法 JSON 值 */
+  public boolean isJson(String text) {
+    try (JsonParser p = jsonFactory.createParser(text)) {
+      if (p.nextToken() == null) return false;
+      p.skipChildren();
+      return p.nextToken() == null;
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+
+  /** 单个题型的校验器；optionKeys 为 null 时使用题型配置的缺省选项键 */
+  public final class Validator {
+    private final String typeCode;
+    private final String configJson;
+    private final Rule rule;
+    private final Set<String> defaultKeys;
+    private final boolean requiresFile;
+
+    private Validator(String typeCode, String configJson, Rule rule, Set<String> defaultKeys, boolean requiresFile) {
+      this.typeCode = typeCode;
+      this.configJson = configJson;
+      this.rule = rule;
+      this.defaultKeys = defaultKeys;
+      this.requiresFile = requiresFile;
+    }
+
+    /** 校验请求绑定的答案对象，返回错误信息，通过时返回 null */
+    public String check(Object answer, Set<String> optionKeys, String fileId) {
+      if (answer == null) return EMPTY;
+      String error = rule.check(answer, optionKeys == null ? defaultKeys : optionKeys);
+      return error != null ? error : checkFile(fileId);
+    }
+
+    /** 流式校验答案 JSON 文本，返回错误信息，通过时返回 null */
+    public String checkJson(String answerJson, Set<String> optionKeys, String fileId) {
+      if (answerJson == null || answerJson.isBlank()) return EMPTY;
+      try (JsonParser p = jsonFactory.createParser(answerJson)) {
+        JsonToken t = p.nextToken();
+        if (t == null || t == JsonToken.VALUE_NULL) return EMPTY;
+        String error = rule.check(p, t, optionKeys == null ? defaultKeys : optionKeys);
+        if (error != null) return error;
+        if (p.nextToken() != null) return MALFORMED;
+      } catch (IOException ex) {
+        return MALFORMED;
+      }
+      return checkFile(fileId);
+    }
+
+    private String checkFile(String fileId) {
+      return requiresFile && (fileId == null || fileId.isBlank()) ? "该题型需要上传附件" : null;
+    }
+  }
+
+  /** 题型规则：同一规则分别作用于绑定对象与流式 token；流式校验须恰好消费完当前值 */
+  private interface Rule {
+    String check(Object answer, Set<String> keys);
+
+    String check(JsonParser p, JsonToken first, Set<String> keys) throws IOException;
+  }
+
+  /** 选择题：max 为可选答案数上限（单选为 1） */
+  private record ChoiceRule(int max) implements Rule {
+    @Override
+    public String check(Object answer, Set<String> keys) {
+      if (answer instanceof String s) return max == 1 ? key(s, keys) : MALFORMED;
+      if (!(answer instanceof List<?> list)) return MALFORMED;
+      if (list.isEmpty()) return EMPTY;
+      if (list.size() > Math.min(max, keys.size())) return max == 1 ? "单选题只能有一个答案" : "答案数量超过选项数";
+      for (int i = 0; i < list.size(); i++) {
+        if (!(list.get(i) instanceof String s)) return MALFORMED;
+        String error = key(s, keys);
+        if (error != null) return error;
+        for (int j = 0; j < i; j++) if (s.equals(list.get(j))) return "答案选项重复";
+      }
+      return null;
+    }
+
+    @Override
+    public String check(JsonParser p, JsonToken first, Set<String> keys) throws IOException {
+      if (first == JsonToken.VALUE_STRING) return max == 1 ? key(p.getText(), keys) : MALFORMED;
+      if (first != JsonToken.START_ARRAY) return MALFORMED;
+      // 选项键不多，逐个比较即可判重
+      String[] seen = new String[Math.min(max, keys.size())];
+      int n = 0;
+      JsonToken t;
+      while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+        if (t != JsonToken.VALUE_STRING) return MALFORMED;
+        String s = p.getText();
+        String error = key(s, keys);
+        if (error != null) return error;
+        for (int j = 0; j < n; j++) if (s.equals(seen[j])) return "答案选项重复";
+        if (n == seen.length) return max == 1 ? "单选题只能有一个答案" : "答案数量超过选项数";
+        seen[n++] = s;
+      }
+      return n == 0 ? EMPTY : null;
+    }
+
+    private static String key(String s, Set<String> keys) {
+      return keys.contains(s) ? null : "答案选项不存在：" + s;
+    }
+  }
+
+  private record BooleanRule() implements Rule {
+    @Override
+    public String check(Object answer, Set<String> keys) {
+      return answer instanceof Boolean ? null : MALFORMED;
+    }
+
+    @Override
+    public String check(JsonParser p, JsonToken first, Set<String> keys) {
+      return first == JsonToken.VALUE_TRUE || first == JsonToken.VALUE_FALSE ? null : MALFORMED;
+    }
+  }
+
+  /** 填空题：每空一个非空字符串 */
+  private record FillRule() implements Rule {
+    @Override
+    public String check(Object answer, Set<String> keys) {
+      if (!(answer instanceof List<?> list)) return MALFORMED;
+      if (list.isEmpty()) return EMPTY;
+      for (Object o : list) {
+        if (!(o instanceof String s)) return MALFORMED;
+        if (s.isBlank()) return "填空答案不能为空";
+      }
+      return null;
+    }
+
+    @Override
+    public String check(JsonParser p, JsonToken first, Set<String> keys) throws IOException {
+      if (first != JsonToken.START_ARRAY) return MALFORMED;
+      int n = 0;
+      JsonToken t;
+      while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+        if (t != JsonToken.VALUE_STRING) return MALFORMED;
+        if (p.getText().isBlank()) return "填空答案不能为空";
+        n++;
+      }
+      return n == 0 ? EMPTY : null;
+    }
+  }
+
+  /** 简答/编程题：参考答案文本，或结构化对象（如 {language, code}） */
+  private record TextRule() implements Rule {
+    @Override
+    public String check(Object answer, Set<String> keys) {
+      if (answer instanceof String s) return s.isBlank() ? EMPTY : null;
+      return answer instanceof Map<?, ?> ? null : MALFORMED;
+    }
+
+    @Override
+    public String check(JsonParser p, JsonToken first, Set<String> keys) throws IOException {
+      if (first == JsonToken.VALUE_STRING) return p.getText().isBlank() ? EMPTY : null;
+      if (first != JsonToken.START_OBJECT) return MALFORMED;
+      p.skipChildren();
+      return null;
+    }
+  }
+
+  /** 未知题型：仅要求合法 JSON */
+  private record AnyRule() implements Rule {
+    @Override
+    public String check(Object answer, Set<String> keys) {
+      return null;
+    }
+
+    @Override
+    public String check(JsonParser p, JsonToken first, Set<String> keys) throws IOException {
+      p.skipChildren();
+      return null;
+    }
+  }
+}
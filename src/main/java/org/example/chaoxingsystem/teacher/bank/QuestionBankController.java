@@ -1,37 +1,40 @@
 package org.example.chaoxingsystem.teacher.bank;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.example.chaoxingsystem.config.ModuleCheck;
+import org.example.chaoxingsystem.config.RequirePerm;
+import org.example.chaoxingsystem.security.LoginUser;
 import org.example.chaoxingsystem.teacher.bank.dto.CreateQuestionRequest;
-import org.example.chaoxingsystem.teacher.bank.dto.OptionItem;
 import org.example.chaoxingsystem.teacher.bank.dto.UpdateQuestionRequest;
-import org.example.chaoxingsystem.user.UserService;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
 
-/** 题库管理接口：分页查询、创建/更新/删除、批量导入 */
+/** 题库管理接口：分页查询、创建/更新/删除、批量导入、题型字典刷新 */
 @RestController
 @RequestMapping("/api")
 @ModuleCheck(moduleCode = "tch_bank")
 public class QuestionBankController {
   private final QuestionService service;
-  private final UserService userService;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final QuestionImportService importService;
+  private final QuestionTypeRegistry typeRegistry;
 
-  public QuestionBankController(QuestionService service, UserService userService) {
+  public QuestionBankController(QuestionService service, QuestionImportService importService, QuestionTypeRegistry typeRegistry) {
     this.service = service;
-    this.userService = userService;
+    this.importService = importService;
+    this.typeRegistry = typeRegistry;
   }
 
+  /** 分页查询题目；传 cursor（上一页返回的 nextCursor）时按游标续读，page 被忽略 */
   @GetMapping("/questions")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN','STUDENT')")
   public ResponseEntity<ApiResponse<HashMap<String, Object>>> list(
@@ -40,24 +43,23 @@ public class QuestionBankController {
     @RequestParam(value = "typeCode", required = false) String typeCode,
     @RequestParam(value = "keyword", required = false) String keyword,
     @RequestParam(value = "difficulty", required = false) Integer difficulty,
-    @RequestParam(value = "subject", required = false) String subject
+    @RequestParam(value = "subject", required = false) String subject,
+    @RequestParam(value = "cursor", required = false) String cursor
   ) {
-    long total = service.count(typeCode, keyword, difficulty, subject);
-    List<Question> list = service.page(typeCode, keyword, difficulty, subject, page, size);
+    QuestionService.Page result = service.search(typeCode, keyword, difficulty, subject, page, size, cursor);
     HashMap<String, Object> data = new HashMap<>();
-    data.put("list", list);
-    data.put("total", total);
+    data.put("list", result.list());
+    data.put("total", result.total());
+    data.put("nextCursor", result.nextCursor());
     return ResponseEntity.ok(ApiResponse.success("获取成功", data));
   }
 
   @PostMapping("/questions")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
-  public ResponseEntity<ApiResponse<HashMap<String, Object>>> create(Authentication auth, @Valid @RequestBody CreateQuestionRequest req) throws Exception {
-    var me = userService.getByUsername(auth.getName());
-    String optionsJson = req.getOptions() != null ? objectMapper.writeValueAsString(req.getOptions()) : null;
-    String answerJson = objectMapper.writeValueAsString(req.getAnswer());
+  @RequirePerm("bank:view")
+  public ResponseEntity<ApiResponse<HashMap<String, Object>>> create(LoginUser me, @Valid @RequestBody CreateQuestionRequest req) {
     String fileId = (req.getUseFile() != null && !req.getUseFile()) ? null : req.getFileId();
-    Long id = service.create(me.getId(), req.getTypeCode(), req.getContent(), optionsJson, answerJson, req.getDifficulty(), req.getSubject(), req.getKnowledgePoints(), fileId);
+    Long id = service.create(me.getId(), req.getTypeCode(), req.getContent(), req.getOptions(), req.getAnswer(), req.getDifficulty(), req.getSubject(), req.getKnowledgePoints(), fileId);
     HashMap<String, Object> data = new HashMap<>();
     data.put("id", id);
     return ResponseEntity.ok(ApiResponse.success("创建成功", data));
@@ -65,13 +67,14 @@ public class QuestionBankController {
 
   @PutMapping("/questions/{id}")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
-  public ResponseEntity<ApiResponse<Void>> update(@PathVariable("id") Long id, @Valid @RequestBody UpdateQuestionRequest req) throws Exception {
+  @RequirePerm("bank:view")
+  public ResponseEntity<ApiResponse<Void>> update(@PathVariable("id") Long id, @Valid @RequestBody UpdateQuestionRequest req) {
     QuestionService.UpdateCommand cmd = new QuestionService.UpdateCommand();
     cmd.id = id;
     cmd.typeCode = req.getTypeCode();
     cmd.content = req.getContent();
-    cmd.optionsJson = req.getOptions() != null ? objectMapper.writeValueAsString(req.getOptions()) : null;
-    cmd.answerJson = req.getAnswer() != null ? objectMapper.writeValueAsString(req.getAnswer()) : null;
+    cmd.options = req.getOptions();
+    cmd.answer = req.getAnswer();
     cmd.analysis = req.getAnalysis();
     cmd.difficulty = req.getDifficulty();
     cmd.subject = req.getSubject();
@@ -85,18 +88,64 @@ public class QuestionBankController {
 
   @DeleteMapping("/questions/{id}")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("bank:view")
   public ResponseEntity<ApiResponse<Void>> delete(@PathVariable("id") Long id) {
     service.delete(id);
     return ResponseEntity.ok(ApiResponse.success("删除成功", null));
   }
 
+  /**
+   * 批量导入题目（CSV 或 NDJSON）：文件转存后在后台导入，立即返回任务 ID，进度经 GET /questions/import/{jobId} 轮询
+   * 格式由 format 参数指定，缺省时按文件扩展名判断（.jsonl/.ndjson/.json 视为 NDJSON，否则为 CSV）
+   * 导入队列已满时返回 503 + Retry-After；任务状态只在受理实例内存中，多实例部署需按用户会话粘滞
+   */
   @PostMapping(value = "/questions/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
-  public ResponseEntity<ApiResponse<HashMap<String, Object>>> importFile(@RequestParam("file") MultipartFile file) {
-    // 简化：不解析文件，返回 0 条导入结果
+  @RequirePerm("bank:view")
+  public ResponseEntity<ApiResponse<HashMap<String, Object>>> importFile(LoginUser me, @RequestParam("file") MultipartFile file,
+                                                                         @RequestParam(value = "format", required = false) String format) throws IOException {
+    String fmt = format;
+    if (fmt == null) {
+      String name = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+      fmt = name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json") ? "ndjson" : "csv";
+    }
+    fmt = fmt.toLowerCase(Locale.ROOT);
+    if (!"csv".equals(fmt) && !"ndjson".equals(fmt)) {
+      return ResponseEntity.badRequest().body(ApiResponse.error(400, "仅支持 csv 或 ndjson 格式"));
+    }
+    QuestionImportJob job;
+    try {
+      job = importService.submit(me.getId(), file, fmt);
+    } catch (RejectedExecutionException ex) {
+      return ResponseEntity.status(503)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(importService.retryAfterSeconds()))
+        .body(ApiResponse.error(503, "导入任务繁忙，请稍后重试"));
+    }
     HashMap<String, Object> data = new HashMap<>();
-    data.put("imported", 0);
-    data.put("filename", file.getOriginalFilename());
-    return ResponseEntity.ok(ApiResponse.success("导入成功", data));
+    data.put("jobId", job.getJobId());
+    data.put("filename", job.getFilename());
+    return ResponseEntity.ok(ApiResponse.success("导入任务已提交", data));
+  }
+
+  /** 查询导入任务进度 */
+  @GetMapping("/questions/import/{jobId}")
+  @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("bank:view")
+  public ResponseEntity<ApiResponse<QuestionImportJob>> importProgress(LoginUser me, @PathVariable("jobId") String jobId) {
+    QuestionImportJob job = importService.get(jobId, me.getId());
+    if (job == null) {
+      return ResponseEntity.status(404).body(ApiResponse.error(404, "导入任务不存在"));
+    }
+    return ResponseEntity.ok(ApiResponse.success("获取成功", job));
+  }
+
+  /** 管理员修改题型字典后重新加载常驻题型字典 */
+  @PostMapping("/questions/types/refresh")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<HashMap<String, Object>>> refreshTypes() {
+    typeRegistry.refresh();
+    HashMap<String, Object> data = new HashMap<>();
+    data.put("active", typeRegistry.active().size());
+    return ResponseEntity.ok(ApiResponse.success("刷新成功", data));
   }
 }
@@ -0,0 +1,9 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+/** 题库筛选条件（题型已解析为 ID），空字符串视为未传；用作按条件缓存的键 */
+public record QuestionFilter(Integer typeId, String keyword, Integer difficulty, String subject) {
+  public QuestionFilter {
+    keyword = keyword == null || keyword.isEmpty() ? null : keyword;
+    subject = subject == null || subject.isEmpty() ? null : subject;
+  }
+}
@@ -0,0 +1,69 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** 题目导入任务的进度：状态、已读/成功/失败行数与逐行错误（最多 maxErrors 条），供轮询 */
+public class QuestionImportJob {
+  public static final String RUNNING = "running";
+  public static final String DONE = "done";
+  public static final String FAILED = "failed";
+
+  private final String jobId;
+  private final Long creatorId;
+  private final String filename;
+  private final int maxErrors;
+  private final long startedAt = System.currentTimeMillis();
+  private volatile String status = RUNNING;
+  private volatile String message;
+  private volatile long total;
+  private volatile long succeeded;
+  private volatile long failed;
+  private volatile long finishedAt;
+  private final List<RowError> errors = new ArrayList<>();
+  private volatile boolean errorsTruncated;
+
+  public QuestionImportJob(String jobId, Long creatorId, String filename, int maxErrors) {
+    this.jobId = jobId;
+    this.creatorId = creatorId;
+    this.filename = filename;
+    this.maxErrors = maxErrors;
+  }
+
+  void addRow() { total++; }
+
+  void addSucceeded(int n) { succeeded += n; }
+
+  synchronized void fail(long line, String message) {
+    failed++;
+    if (errors.size() < maxErrors) {
+      errors.add(new RowError(line, message));
+    } else {
+      errorsTruncated = true;
+    }
+  }
+
+  void finish(String status, String message) {
+    this.message = message;
+    this.finishedAt = System.currentTimeMillis();
+    this.status = status;
+  }
+
+  public String getJobId() { return jobId; }
+  Long getCreatorId() { return creatorId; }
+  public String getFilename() { return filename; }
+  public String getStatus() { return status; }
+  /** 任务整体失败时的原因 */
+  public String getMessage() { return message; }
+  public long getTotal() { return total; }
+  public long getSucceeded() { return succeeded; }
+  public long getFailed() { return failed; }
+  public synchronized List<RowError> getErrors() { return new ArrayList<>(errors); }
+  public boolean isErrorsTruncated() { return errorsTruncated; }
+  public long getStartedAt() { return startedAt; }
+  /** 结束时间（毫秒），运行中为 0 */
+  public long getFinishedAt() { return finishedAt; }
+
+  /** 行错误：line 为数据行号（CSV 不含表头，从 1 开始） */
+  public record RowError(long line, String message) {}
+}
@@ -0,0 +1,273 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.admin.user.ImportRecordReader;
+import org.example.chaoxingsystem.config.AfterCommit;
+import org.example.chaoxingsystem.config.FilterCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+/**
+ * 题目批量导入（后台任务）：
+ * - 上传文件先流式转存到临时文件，请求立即返回任务 ID，由 question.import.threads 个后台线程处理，进度经 get 轮询
+ * - 经 ImportRecordReader 逐行读取 CSV（首行为表头）或 NDJSON，按 batch-size 分批，内存占用与文件大小无关
+ * - 字段：typeCode,content,answer,difficulty,subject[,options,analysis,knowledgePoints]；options 为 [{key,value}] 形式的 JSON 数组，answer 为 JSON，不是合法 JSON 时按字符串处理
+ * - 每个任务开始时从 QuestionTypeRegistry 取一次已启用题型并取得 QuestionAnswerValidators 的预编译校验器；选项与答案均流式校验，每批的行校验在独立的 ForkJoinPool 中并行执行
+ * - 每批在一个事务内多行插入，提交后写入检索索引并清空总数与命中列表缓存；整批写入失败时该批所有行记为失败
+ * - 难度与字段长度的限制与 CreateQuestionRequest 一致
+ * - 等待队列有界（queue-capacity），队列满时拒绝提交（抛出 RejectedExecutionException），由控制器返回 503 + Retry-After
+ * - 任务状态只保存在本进程内存中，结束的任务保留 retention-minutes 分钟后清除；多实例部署时进度查询须与提交落在同一实例，
+ *   负载均衡需按登录用户做会话粘滞，否则轮询会得到 404
+ */
+@Service
+public class QuestionImportService implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(QuestionImportService.class);
+  private static final int MAX_ERRORS = 1000;
+  private static final int MAX_BATCH_SIZE = 2000;
+  private static final int MIN_DIFFICULTY = 1;
+  private static final int MAX_DIFFICULTY = 5;
+
+  private final QuestionMapper questionMapper;
+  private final QuestionTypeRegistry typeRegistry;
+  private final QuestionTextIndex textIndex;
+  private final FilterCache<QuestionFilter, Long> countCache;
+  private final FilterCache<QuestionFilter, long[]> matchCache;
+  private final QuestionAnswerValidators validators;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+  private final long retentionMillis;
+  private final ThreadPoolExecutor executor;
+  private final int retryAfterSeconds;
+  private final ForkJoinPool validatePool;
+  private final ConcurrentHashMap<String, QuestionImportJob> jobs = new ConcurrentHashMap<>();
+
+  public QuestionImportService(QuestionMapper questionMapper, QuestionTypeRegistry typeRegistry,
+                               QuestionTextIndex textIndex, FilterCache<QuestionFilter, Long> countCache,
+                               FilterCache<QuestionFilter, long[]> matchCache, QuestionAnswerValidators validators,
+                               TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                               @Value("${question.import.batch-size:500}") int batchSize,
+                               @Value("${question.import.threads:2}") int threads,
+                               @Value("${question.import.queue-capacity:16}") int queueCapacity,
+                               @Value("${question.import.retry-after-seconds:30}") int retryAfterSeconds,
+                               @Value("${question.import.retention-minutes:60}") long retentionMinutes) {
+    this.questionMapper = questionMapper;
+    this.typeRegistry = typeRegistry;
+    this.textIndex = textIndex;
+    this.countCache = countCache;
+    this.matchCache = matchCache;
+    this.validators = validators;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.batchSize = Math.min(Math.max(batchSize, 1), MAX_BATCH_SIZE);
+    this.retentionMillis = retentionMinutes * 60_000L;
+    int size = Math.max(threads, 1);
+    this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+      r -> {
+        Thread t = new Thread(r, "question-import");
+        t.setDaemon(true);
+        return t;
+      },
+      new ThreadPoolExecutor.AbortPolicy());
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.validatePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  /** 转存上传文件并提交导入任务；format 为 csv 或 ndjson；等待队列已满时删除临时文件并抛出 RejectedExecutionException */
+  public QuestionImportJob submit(Long creatorId, MultipartFile file, String format) throws IOException {
+    purgeFinished();
+    Path tmp = Files.createTempFile("question-import-", ".tmp");
+    try (InputStream in = file.getInputStream()) {
+      Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      Files.deleteIfExists(tmp);
+      throw ex;
+    }
+    QuestionImportJob job = new QuestionImportJob(UUID.randomUUID().toString(), creatorId, file.getOriginalFilename(), MAX_ERRORS);
+    jobs.put(job.getJobId(), job);
+    try {
+      executor.execute(() -> {
+        try (InputStream in = Files.newInputStream(tmp)) {
+          run(job, in, format);
+          job.finish(QuestionImportJob.DONE, null);
+        } catch (Exception ex) {
+          log.warn("题目导入任务失败: {}", job.getJobId(), ex);
+          job.finish(QuestionImportJob.FAILED, ex.getMessage());
+        } finally {
+          try {
+            Files.deleteIfExists(tmp);
+          } catch (IOException ex) {
+            log.warn("删除导入临时文件失败: {}", tmp, ex);
+          }
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      jobs.remove(job.getJobId());
+      Files.deleteIfExists(tmp);
+      throw ex;
+    }
+    return job;
+  }
+
+  /** 队列满被拒绝时建议客户端的重试间隔（秒） */
+  public int retryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  /** 查询任务进度；仅任务创建者可见，不存在或无权查看时返回 null */
+  public QuestionImportJob get(String jobId, Long userId) {
+    QuestionImportJob job = jobs.get(jobId);
+    return job != null && Objects.equals(job.getCreatorId(), userId) ? job : null;
+  }
+
+  private void run(QuestionImportJob job, InputStream in, String format) throws IOException {
+    Map<String, CompiledType> types = new HashMap<>();
+    for (QuestionType t : typeRegistry.active()) types.put(t.getTypeCode().toUpperCase(Locale.ROOT), new CompiledType(t, validators.forType(t)));
+    ImportRecordReader records = ImportRecordReader.open(in, format, objectMapper, "content");
+    List<ImportRecordReader.Record> batch = new ArrayList<>(batchSize);
+    ImportRecordReader.Record rec;
+    while ((rec = records.next()) != null) {
+      job.addRow();
+      if (rec.error() != null) {
+        job.fail(rec.line(), rec.error());
+        continue;
+      }
+      batch.add(rec);
+      if (batch.size() >= batchSize) {
+        flush(job, batch, types);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) flush(job, batch, types);
+  }
+
+  private void flush(QuestionImportJob job, List<ImportRecordReader.Record> batch, Map<String, CompiledType> types) {
+    Parsed[] parsed = new Parsed[batch.size()];
+    validatePool.submit(() -> IntStream.range(0, batch.size()).parallel()
+      .forEach(i -> parsed[i] = parse(batch.get(i), types, job.getCreatorId()))).join();
+    List<Question> accepted = new ArrayList<>(batch.size());
+    List<Long> lines = new ArrayList<>(batch.size());
+    for (int i = 0; i < parsed.length; i++) {
+      if (parsed[i].error() != null) {
+        job.fail(batch.get(i).line(), parsed[i].error());
+      } else {
+        accepted.add(parsed[i].question());
+        lines.add(batch.get(i).line());
+      }
+    }
+    if (accepted.isEmpty()) return;
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        questionMapper.insertBatch(accepted);
+        countCache.invalidateAll();
+        matchCache.invalidateAll();
+        AfterCommit.run(() -> {
+          for (Question q : accepted) textIndex.index(q.getId(), q.getContent());
+        });
+      });
+      job.addSucceeded(accepted.size());
+    } catch (RuntimeException ex) {
+      String message = "批量写入失败：" + rootMessage(ex);
+      for (Long line : lines) job.fail(line, message);
+    }
+  }
+
+  /** 单行校验与转换，线程安全 */
+  private Parsed parse(ImportRecordReader.Record rec, Map<String, CompiledType> types, Long creatorId) {
+    Map<String, String> f = rec.fields();
+    String typeCode = trim(f.get("typecode"));
+    String content = trim(f.get("content"));
+    String subject = trim(f.get("subject"));
+    if (typeCode == null) return Parsed.error("缺少题型");
+    CompiledType type = types.get(typeCode.toUpperCase(Locale.ROOT));
+    if (type == null) return Parsed.error("题型无效或未启用");
+    if (content == null) return Parsed.error("题干不能为空");
+    if (subject == null) return Parsed.error("学科不能为空");
+    if (subject.length() > 50) return Parsed.error("学科过长");
+    Integer difficulty;
+    try {
+      String d = trim(f.get("difficulty"));
+      if (d == null) return Parsed.error("难度不能为空");
+      difficulty = Integer.valueOf(d);
+    } catch (NumberFormatException ex) {
+      return Parsed.error("难度格式不正确");
+    }
+    if (difficulty < MIN_DIFFICULTY || difficulty > MAX_DIFFICULTY) return Parsed.error("难度须为 1-5");
+    String knowledgePoints = trim(f.get("knowledgepoints"));
+    if (knowledgePoints != null && knowledgePoints.length() > 255) return Parsed.error("知识点过长");
+    String options = trim(f.get("options"));
+    Set<String> optionKeys;
+    try {
+      optionKeys = validators.optionKeys(options);
+    } catch (IOException ex) {
+      return Parsed.error("选项格式不正确");
+    }
+    String answer = trim(f.get("answer"));
+    if (answer != null && !validators.isJson(answer)) {
+      try {
+        answer = objectMapper.writeValueAsString(answer);
+      } catch (IOException ex) {
+        return Parsed.error("答案结构不合法");
+      }
+    }
+    String error = type.validator().checkJson(answer, optionKeys, null);
+    if (error != null) return Parsed.error(error);
+    Question q = new Question();
+    q.setTypeId(type.type().getTypeId());
+    q.setContent(content);
+    q.setOptions(options);
+    q.setAnswer(answer);
+    q.setAnalysis(trim(f.get("analysis")));
+    q.setDifficulty(difficulty);
+    q.setSubject(subject);
+    q.setKnowledgePoints(knowledgePoints);
+    q.setCreatorId(creatorId);
+    return new Parsed(q, null);
+  }
+
+  private void purgeFinished() {
+    long now = System.currentTimeMillis();
+    jobs.values().removeIf(j -> j.getFinishedAt() > 0 && now - j.getFinishedAt() > retentionMillis);
+  }
+
+  private static String trim(String s) {
+    if (s == null) return null;
+    s = s.trim();
+    return s.isEmpty() ? null : s;
+  }
+
+  private static String rootMessage(Throwable ex) {
+    Throwable t = ex;
+    while (t.getCause() != null) t = t.getCause();
+    return t.getMessage();
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+    validatePool.shutdown();
+  }
+
+  private record CompiledType(QuestionType type, QuestionAnswerValidators.Validator validator) {}
+
+  private record Parsed(Question question, String error) {
+    static Parsed error(String message) {
+      return new Parsed(null, message);
+    }
+  }
+}
@@ -1,15 +1,29 @@
 package org.example.chaoxingsystem.teacher.bank;
 
 import org.apache.ibatis.annotations.Param;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 /** 题库 Mapper */
 public interface QuestionMapper {
-  long count(@Param("typeCode") String typeCode, @Param("keyword") String keyword, @Param("difficulty") Integer difficulty, @Param("subject") String subject);
-  List<Question> selectPage(@Param("typeCode") String typeCode, @Param("keyword") String keyword, @Param("difficulty") Integer difficulty, @Param("subject") String subject, @Param("offset") int offset, @Param("limit") int limit);
+  long count(@Param("typeId") Integer typeId, @Param("keyword") String keyword, @Param("difficulty") Integer difficulty, @Param("subject") String subject);
+  /** 按 create_time、id 倒序分页；afterTime 与 afterId 均非空时按键集定位，忽略 offset */
+  List<Question> selectPage(@Param("typeId") Integer typeId, @Param("keyword") String keyword, @Param("difficulty") Integer difficulty, @Param("subject") String subject,
+                            @Param("afterTime") Instant afterTime, @Param("afterId") Long afterId, @Param("offset") int offset, @Param("limit") int limit);
   int insert(Question q);
+  /** 多行插入，回填自增 ID */
+  int insertBatch(@Param("questions") List<Question> questions);
   int updateById(Question q);
   int deleteById(@Param("id") Long id);
   Question selectById(@Param("id") Long id);
-  List<Question> selectByTypeSubjectDifficultyLimit(@Param("typeCode") String typeCode, @Param("subject") String subject, @Param("difficulty") Integer difficulty, @Param("limit") int limit);
+  /** 按主键批量取回，顺序不定 */
+  List<Question> selectByIds(@Param("ids") Collection<Long> ids);
+  /** 在候选 ID 中按筛选条件与 LIKE 复核，返回真正命中的 ID */
+  List<Long> selectMatchingIds(@Param("ids") Collection<Long> ids, @Param("typeId") Integer typeId, @Param("keyword") String keyword, @Param("difficulty") Integer difficulty, @Param("subject") String subject);
+  /** 主键大于 afterId 的题目中按筛选条件与 LIKE 命中的 ID，按 ID 倒序；补查检索索引尚未覆盖的新题 */
+  List<Long> selectMatchingIdsAfter(@Param("afterId") long afterId, @Param("typeId") Integer typeId, @Param("keyword") String keyword, @Param("difficulty") Integer difficulty, @Param("subject") String subject);
+  /** 键集分段读取题干（仅 id、content），供检索索引构建 */
+  List<Question> selectContentAfterId(@Param("afterId") long afterId, @Param("limit") int limit);
+  List<Question> selectByTypeSubjectDifficultyLimit(@Param("typeId") Integer typeId, @Param("subject") String subject, @Param("difficulty") Integer difficulty, @Param("limit") int limit);
 }
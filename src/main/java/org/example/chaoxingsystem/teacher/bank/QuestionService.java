@@ -1,115 +1,257 @@
 package org.example.chaoxingsystem.teacher.bank;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.config.AfterCommit;
+import org.example.chaoxingsystem.config.FilterCache;
+import org.example.chaoxingsystem.teacher.bank.dto.OptionItem;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
 
-/** 题库服务：分页查询、创建/更新/删除、答案结构校验与归一化 */
+/** 题库服务：分页查询（关键字经 QuestionTextIndex 检索，命中列表与总数按条件缓存，支持键集游标）、创建/更新/删除；答案在请求绑定对象上按题型校验后才序列化入库 */
 @Service
 public class QuestionService {
   private final QuestionMapper questionMapper;
-  private final QuestionTypeMapper typeMapper;
+  private final QuestionTypeRegistry typeRegistry;
+  private final QuestionTextIndex textIndex;
+  private final FilterCache<QuestionFilter, Long> countCache;
+  private final FilterCache<QuestionFilter, long[]> matchCache;
+  private final QuestionAnswerValidators validators;
   private final ObjectMapper objectMapper = new ObjectMapper();
 
-  public QuestionService(QuestionMapper questionMapper, QuestionTypeMapper typeMapper) {
+  public QuestionService(QuestionMapper questionMapper, QuestionTypeRegistry typeRegistry, QuestionTextIndex textIndex, FilterCache<QuestionFilter, Long> countCache,
+                         FilterCache<QuestionFilter, long[]> matchCache, QuestionAnswerValidators validators) {
     this.questionMapper = questionMapper;
-    this.typeMapper = typeMapper;
+    this.typeRegistry = typeRegistry;
+    this.textIndex = textIndex;
+    this.countCache = countCache;
+    this.matchCache = matchCache;
+    this.validators = validators;
   }
 
-  public long count(String typeCode, String keyword, Integer difficulty, String subject) {
-    return questionMapper.count(typeCode, keyword, difficulty, subject);
+  /**
+   * 分页查询：
+   * - 带关键字时先由 QuestionTextIndex 得到按相关度排序的候选 ID，再在候选中一次复核筛选条件与 LIKE；复核后的命中列表按条件缓存，
+   *   翻页只按主键取回当前页，题目写入与索引重建时失效
+   * - 否则（或索引不可用时）按 create_time、id 倒序查询；传入 cursor 时按键集定位，不再使用 OFFSET
+   * - 总数经 FilterCache 按筛选条件缓存
+   * 返回的 nextCursor 为下一页游标，已到末页时为 null
+   */
+  public Page search(String typeCode, String keyword, Integer difficulty, String subject, int page, int size, String cursor) {
+    Integer typeId = null;
+    if (typeCode != null && !typeCode.isEmpty()) {
+      QuestionType type = typeRegistry.byCode(typeCode);
+      if (type == null) return new Page(List.of(), 0, null);
+      typeId = type.getTypeId();
+    }
+    int offset = (Math.max(page, 1) - 1) * Math.max(size, 1);
+    Cursor c = Cursor.parse(cursor);
+    QuestionFilter filter = new QuestionFilter(typeId, keyword, difficulty, subject);
+    if (filter.keyword() != null) {
+      long[] matched = matchCache.get(filter, () -> matchedIds(filter));
+      if (matched != null) return ranked(matched, c != null && c.rank() != null ? c.rank() : offset, size);
+    }
+    Integer tid = typeId;
+    long total = countCache.get(filter, () -> questionMapper.count(tid, keyword, difficulty, subject));
+    Instant afterTime = c == null ? null : c.time();
+    Long afterId = c == null ? null : c.id();
+    List<Question> list = questionMapper.selectPage(typeId, keyword, difficulty, subject, afterTime, afterId, offset, size);
+    String next = null;
+    if (size > 0 && list.size() == size) {
+      Question last = list.get(list.size() - 1);
+      if (last.getCreateTime() != null) next = Cursor.seek(last.getCreateTime(), last.getId());
+    }
+    return new Page(list, total, next);
   }
 
-  public List<Question> page(String typeCode, String keyword, Integer difficulty, String subject, int page, int size) {
-    int offset = (Math.max(page, 1) - 1) * Math.max(size, 1);
-    return questionMapper.selectPage(typeCode, keyword, difficulty, subject, offset, size);
+  /**
+   * 索引候选经筛选条件与 LIKE 复核后的命中 ID，按相关度排序；索引不可用时返回 null，调用方走 LIKE 路径
+   * 上次全量重建之后由其他应用进程新增的题目不在本进程索引中，按主键范围以 LIKE 补查，按 ID 倒序排在索引命中之后
+   */
+  private long[] matchedIds(QuestionFilter f) {
+    long[] candidates = textIndex.search(f.keyword());
+    if (candidates == null) return null;
+    List<Long> matched = new ArrayList<>();
+    if (candidates.length > 0) {
+      List<Long> ranked = new ArrayList<>(candidates.length);
+      for (long id : candidates) ranked.add(id);
+      Set<Long> hits = new HashSet<>(questionMapper.selectMatchingIds(ranked, f.typeId(), f.keyword(), f.difficulty(), f.subject()));
+      for (Long id : ranked) if (hits.contains(id)) matched.add(id);
+    }
+    Set<Long> seen = new HashSet<>(matched);
+    for (Long id : questionMapper.selectMatchingIdsAfter(textIndex.indexedThroughId(), f.typeId(), f.keyword(), f.difficulty(), f.subject())) {
+      if (seen.add(id)) matched.add(id);
+    }
+    long[] out = new long[matched.size()];
+    for (int i = 0; i < out.length; i++) out[i] = matched.get(i);
+    return out;
+  }
+
+  /** 索引路径：在命中列表中取第 from 条起的 size 条，按主键取回 */
+  private Page ranked(long[] matched, int from, int size) {
+    if (from >= matched.length || size <= 0) return new Page(List.of(), matched.length, null);
+    int to = Math.min(from + size, matched.length);
+    List<Long> pageIds = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) pageIds.add(matched[i]);
+    Map<Long, Question> byId = new HashMap<>();
+    for (Question q : questionMapper.selectByIds(pageIds)) byId.put(q.getId(), q);
+    List<Question> list = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+    return new Page(list, matched.length, to < matched.length ? Cursor.rank(to) : null);
   }
 
   @Transactional
-  public Long create(Long creatorId, String typeCode, String content, String optionsJson, String answerJson, Integer difficulty, String subject, String knowledgePoints, String fileId) {
-    QuestionType type = typeMapper.selectByCode(typeCode);
-    if (type == null || type.getIsActive() == null || type.getIsActive() == 0) {
+  public Long create(Long creatorId, String typeCode, String content, List<OptionItem> options, Object answer, Integer difficulty, String subject, String knowledgePoints, String fileId) {
+    QuestionType type = typeRegistry.activeByCode(typeCode);
+    if (type == null) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "题型无效或未启用");
     }
-    validateAnswer(type, answerJson, fileId);
+    validateAnswer(type, answer, QuestionAnswerValidators.optionKeys(options), fileId);
     Question q = new Question();
     q.setTypeId(type.getTypeId());
     q.setContent(content);
-    q.setOptions(optionsJson);
-    q.setAnswer(answerJson);
+    q.setOptions(options != null ? toJson(options) : null);
+    q.setAnswer(toJson(answer));
     q.setDifficulty(difficulty);
     q.setSubject(subject);
     q.setKnowledgePoints(knowledgePoints);
     q.setFileId(fileId);
     q.setCreatorId(creatorId);
     questionMapper.insert(q);
-    return q.getId();
+    Long id = q.getId();
+    countCache.invalidateAll();
+    matchCache.invalidateAll();
+    AfterCommit.run(() -> textIndex.index(id, content));
+    return id;
   }
 
+  /**
+   * 更新题目：未传的字段保留原值
+   * 答案按更新后的题型、选项与附件校验；题型、选项或附件变化而未重新提交答案时，校验已存答案
+   */
   @Transactional
   public void update(UpdateCommand cmd) {
     Question exist = questionMapper.selectById(cmd.id);
     if (exist == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "题目不存在");
     Integer typeId = exist.getTypeId();
+    QuestionType type;
     if (cmd.typeCode != null && !cmd.typeCode.isEmpty()) {
-      QuestionType type = typeMapper.selectByCode(cmd.typeCode);
-      if (type == null || type.getIsActive() == null || type.getIsActive() == 0) {
+      type = typeRegistry.activeByCode(cmd.typeCode);
+      if (type == null) {
         throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "题型无效或未启用");
       }
       typeId = type.getTypeId();
+    } else {
+      type = typeRegistry.byId(typeId);
     }
-    if (cmd.answerJson != null) {
-      QuestionType type = typeMapper.selectById(typeId);
-      validateAnswer(type, cmd.answerJson, cmd.fileId);
+    String fileId = cmd.useFile != null && !cmd.useFile ? null : (cmd.fileId != null ? cmd.fileId : exist.getFileId());
+    boolean typeChanged = !Objects.equals(typeId, exist.getTypeId());
+    boolean fileChanged = !Objects.equals(fileId, exist.getFileId());
+    if (cmd.answer != null || cmd.options != null || typeChanged || fileChanged) {
+      Set<String> keys = cmd.options != null ? QuestionAnswerValidators.optionKeys(cmd.options) : storedOptionKeys(exist);
+      if (cmd.answer != null) validateAnswer(type, cmd.answer, keys, fileId);
+      else validateStoredAnswer(type, exist.getAnswer(), keys, fileId);
     }
     Question q = new Question();
     q.setId(cmd.id);
     q.setTypeId(typeId);
     q.setContent(cmd.content != null ? cmd.content : exist.getContent());
-    q.setOptions(cmd.optionsJson != null ? cmd.optionsJson : exist.getOptions());
-    q.setAnswer(cmd.answerJson != null ? cmd.answerJson : exist.getAnswer());
+    q.setOptions(cmd.options != null ? toJson(cmd.options) : exist.getOptions());
+    q.setAnswer(cmd.answer != null ? toJson(cmd.answer) : exist.getAnswer());
     q.setAnalysis(cmd.analysis != null ? cmd.analysis : exist.getAnalysis());
     q.setDifficulty(cmd.difficulty != null ? cmd.difficulty : exist.getDifficulty());
     q.setSubject(cmd.subject != null ? cmd.subject : exist.getSubject());
     q.setKnowledgePoints(cmd.knowledgePoints != null ? cmd.knowledgePoints : exist.getKnowledgePoints());
-    if (cmd.useFile != null && !cmd.useFile) {
-      q.setFileId(null);
-    } else {
-      q.setFileId(cmd.fileId != null ? cmd.fileId : exist.getFileId());
-    }
+    q.setFileId(fileId);
     q.setStatus(cmd.status != null ? cmd.status : exist.getStatus());
     questionMapper.updateById(q);
+    countCache.invalidateAll();
+    matchCache.invalidateAll();
+    if (cmd.content != null && !cmd.content.equals(exist.getContent())) {
+      AfterCommit.run(() -> textIndex.index(cmd.id, cmd.content));
+    }
   }
 
+  /** 不从检索索引摘除：已删除的 ID 仍可能出现在候选中，由 selectMatchingIds 复核过滤，下次全量重建时清理 */
   @Transactional
   public void delete(Long id) {
     questionMapper.deleteById(id);
+    countCache.invalidateAll();
+    matchCache.invalidateAll();
+  }
+
+
+  private void validateAnswer(QuestionType type, Object answer, Set<String> optionKeys, String fileId) {
+    if (type == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "题型无效或未启用");
+    String error = validators.forType(type).check(answer, optionKeys, fileId);
+    if (error != null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+  }
+
+  /** 已存答案为 JSON 文本，流式校验 */
+  private void validateStoredAnswer(QuestionType type, String answerJson, Set<String> optionKeys, String fileId) {
+    if (type == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "题型无效或未启用");
+    String error = validators.forType(type).checkJson(answerJson, optionKeys, fileId);
+    if (error != null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "原答案与修改后的题目不符，请重新提交答案：" + error);
   }
 
-  private void validateAnswer(QuestionType type, String answerJson, String fileId) {
-    if (answerJson == null || answerJson.isEmpty()) {
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "答案不能为空");
+  /** 已存选项的键；选项为空或无法解析时返回 null，按题型缺省选项校验 */
+  private Set<String> storedOptionKeys(Question q) {
+    try {
+      return validators.optionKeys(q.getOptions());
+    } catch (IOException ex) {
+      return null;
     }
+  }
+
+  private String toJson(Object value) {
     try {
-      // 简化校验：仅验证答案 JSON 可解析；fileId 全可选（包括编程题）
-      objectMapper.readTree(answerJson);
-    } catch (Exception ex) {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException ex) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "答案结构不合法");
     }
   }
 
+  /** 分页结果 */
+  public record Page(List<Question> list, long total, String nextCursor) {}
+
+  /**
+   * 分页游标：t{create_time 毫秒}_{id} 为按时间倒序的键集位置，r{n} 为相关度排名中的位置
+   * 格式错误的游标视为未传
+   */
+  record Cursor(Instant time, Long id, Integer rank) {
+    static String seek(Instant time, Long id) {
+      return "t" + time.toEpochMilli() + "_" + id;
+    }
+
+    static String rank(int position) {
+      return "r" + position;
+    }
+
+    static Cursor parse(String s) {
+      if (s == null || s.length() < 2) return null;
+      try {
+        if (s.charAt(0) == 'r') return new Cursor(null, null, Math.max(Integer.parseInt(s.substring(1)), 0));
+        int sep = s.indexOf('_');
+        if (s.charAt(0) != 't' || sep < 0) return null;
+        return new Cursor(Instant.ofEpochMilli(Long.parseLong(s.substring(1, sep))), Long.valueOf(s.substring(sep + 1)), null);
+      } catch (NumberFormatException ex) {
+        return null;
+      }
+    }
+  }
+
   /** 更新命令对象 */
   public static class UpdateCommand {
     public Long id;
     public String typeCode;
     public String content;
-    public String optionsJson;
-    public String answerJson;
+    public List<OptionItem> options;
+    public Object answer;
     public String analysis;
     public Integer difficulty;
     public String subject;
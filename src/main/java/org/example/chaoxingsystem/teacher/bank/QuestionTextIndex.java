@@ -0,0 +1,253 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.example.chaoxingsystem.config.FilterCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 题干关键字检索的常驻二元组（bigram）倒排索引：
+ * - 题干先做兼容分解、去附加符号并转小写，再切成相邻两字符的二元组；每个二元组对应按题目 ID 升序的倒排表，附该二元组在题干中的出现次数
+ * - 查询取关键字的全部二元组求交集，按各二元组出现次数的最小值（短语出现次数的上界）降序、ID 降序排名
+ * - 结果只是候选集：调用方按主键取回后仍以 LIKE 复核，因此修改/删除无需从倒排表摘除旧条目，过期条目由复核过滤，由定期全量重建清理
+ * - 关键字不足两个字符、含 LIKE 通配符或候选数超过 max-candidates 时返回 null，调用方回退到 LIKE 扫描
+ * - 启动时按主键分段全量构建；QuestionService 的创建/更新在提交后追加；其他进程的修改由后台每 refresh-seconds 秒全量重建收敛
+ * - 追加与重建后清空 QuestionService 的命中列表缓存（matchCache），避免缓存住变更前的复核结果
+ * - 其他进程新增的题目在下次重建前不在本进程索引中：indexedThroughId 为上次构建读到的最大主键，QuestionService 对其后的主键范围以 LIKE 补查；
+ *   其他进程对已有题干的修改在下次重建前对索引路径不可见
+ */
+@Component
+public class QuestionTextIndex implements InitializingBean, DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(QuestionTextIndex.class);
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final int LOAD_CHUNK = 5000;
+
+  private final QuestionMapper mapper;
+  private final long refreshSeconds;
+  private final int maxCandidates;
+  private final FilterCache<QuestionFilter, long[]> matchCache;
+  private final ScheduledExecutorService scheduler;
+
+  private final Object rebuildLock = new Object();
+  private volatile Postings current = new Postings();
+  private volatile long indexedThroughId;
+  /** 全量重建期间到达的增量，重建完成后回放到新索引 */
+  private List<Question> pending;
+
+  public QuestionTextIndex(QuestionMapper mapper,
+                           @Value("${question.search.refresh-seconds:600}") long refreshSeconds,
+                           @Value("${question.search.max-candidates:10000}") int maxCandidates,
+                           FilterCache<QuestionFilter, long[]> matchCache) {
+    this.mapper = mapper;
+    this.refreshSeconds = refreshSeconds;
+    this.maxCandidates = maxCandidates;
+    this.matchCache = matchCache;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "question-index-rebuild");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    rebuild();
+    if (refreshSeconds > 0) {
+      scheduler.scheduleWithFixedDelay(() -> {
+        try {
+          rebuild();
+        } catch (Exception ex) {
+          log.warn("题库检索索引重建失败", ex);
+        }
+      }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * 按主键分段读取全部题干，构建新索引后整体替换
+   * 回放重建期间的增量与替换在同一临界区内完成，期间到达的 index 调用要么进入回放、要么写入新索引；加载失败时保留旧索引
+   */
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      synchronized (this) {
+        pending = new ArrayList<>();
+      }
+      Postings fresh = new Postings();
+      long afterId = 0;
+      boolean loaded = false;
+      try {
+        List<Question> chunk;
+        do {
+          chunk = mapper.selectContentAfterId(afterId, LOAD_CHUNK);
+          for (Question q : chunk) fresh.add(q.getId(), q.getContent());
+          if (!chunk.isEmpty()) afterId = chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == LOAD_CHUNK);
+        loaded = true;
+      } finally {
+        synchronized (this) {
+          if (loaded) {
+            for (Question q : pending) fresh.add(q.getId(), q.getContent());
+            current = fresh;
+            indexedThroughId = afterId;
+          }
+          pending = null;
+        }
+      }
+      matchCache.invalidateAll();
+    }
+  }
+
+  /** 上次全量构建从数据库读到的最大题目 ID；其后的题目可能只在其他进程的索引中 */
+  public long indexedThroughId() {
+    return indexedThroughId;
+  }
+
+  /** 新增或更新题干（旧内容的条目保留，由调用方复核过滤） */
+  public synchronized void index(long id, String content) {
+    current.add(id, content);
+    if (pending != null) {
+      Question q = new Question();
+      q.setId(id);
+      q.setContent(content);
+      pending.add(q);
+    }
+    matchCache.invalidateAll();
+  }
+
+  /** 候选题目 ID，按相关度降序；无法使用索引时返回 null */
+  public long[] search(String keyword) {
+    // 含 LIKE 通配符时索引结果不再是 LIKE 结果的超集
+    if (keyword == null || keyword.indexOf('%') >= 0 || keyword.indexOf('_') >= 0 || keyword.indexOf('\\') >= 0) return null;
+    String folded = fold(keyword);
+    if (folded.length() < 2) return null;
+    return current.search(folded, maxCandidates);
+  }
+
+  /** 检索前的统一折叠：兼容分解（全角转半角等）、去附加符号、转小写 */
+  static String fold(String text) {
+    if (text == null) return "";
+    String s = text;
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) >= 0x80) {
+        s = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFKD)).replaceAll("");
+        break;
+      }
+    }
+    return s.toLowerCase(Locale.ROOT);
+  }
+
+  private static int bigram(String s, int i) {
+    return (s.charAt(i) << 16) | s.charAt(i + 1);
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  /** 一代索引：二元组 -> 倒排表 */
+  static final class Postings {
+    private final Map<Integer, Posting> byGram = new HashMap<>();
+
+    synchronized void add(long id, String content) {
+      if (id > Integer.MAX_VALUE) throw new IllegalStateException("题目 ID 超出索引范围: " + id);
+      String s = fold(content);
+      Map<Integer, Integer> tf = new HashMap<>();
+      for (int i = 0; i + 1 < s.length(); i++) tf.merge(bigram(s, i), 1, Integer::sum);
+      tf.forEach((gram, n) -> byGram.computeIfAbsent(gram, g -> new Posting()).append((int) id, n));
+    }
+
+    synchronized long[] search(String folded, int maxCandidates) {
+      Set<Integer> grams = new LinkedHashSet<>();
+      for (int i = 0; i + 1 < folded.length(); i++) grams.add(bigram(folded, i));
+      List<Posting> lists = new ArrayList<>(grams.size());
+      for (Integer g : grams) {
+        Posting p = byGram.get(g);
+        if (p == null) return new long[0];
+        p.compact();
+        lists.add(p);
+      }
+      lists.sort(Comparator.comparingInt(p -> p.size));
+      // 从最短的倒排表出发逐个求交集，同时记录各二元组出现次数的最小值
+      Posting first = lists.get(0);
+      int n = first.size;
+      int[] ids = Arrays.copyOf(first.ids, n);
+      int[] score = new int[n];
+      for (int i = 0; i < n; i++) score[i] = first.tfs[i] & 0xFF;
+      for (int k = 1; k < lists.size() && n > 0; k++) {
+        Posting p = lists.get(k);
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+          while (j < p.size && p.ids[j] < ids[i]) j++;
+          if (j == p.size) break;
+          if (p.ids[j] == ids[i]) {
+            ids[out] = ids[i];
+            score[out] = Math.min(score[i], p.tfs[j] & 0xFF);
+            out++;
+          }
+        }
+        n = out;
+      }
+      if (n > maxCandidates) return null;
+      Integer[] order = new Integer[n];
+      for (int i = 0; i < n; i++) order[i] = i;
+      int[] fs = score;
+      int[] fi = ids;
+      Arrays.sort(order, (a, b) -> fs[a] != fs[b] ? Integer.compare(fs[b], fs[a]) : Integer.compare(fi[b], fi[a]));
+      long[] ranked = new long[n];
+      for (int i = 0; i < n; i++) ranked[i] = ids[order[i]];
+      return ranked;
+    }
+  }
+
+  /** 倒排表：题目 ID 与出现次数（上限 255）；乱序追加时在查询前排序去重，同一 ID 保留较大的次数 */
+  static final class Posting {
+    int[] ids = new int[4];
+    byte[] tfs = new byte[4];
+    int size;
+    boolean sorted = true;
+
+    void append(int id, int tf) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        tfs = Arrays.copyOf(tfs, size * 2);
+      }
+      if (size > 0 && ids[size - 1] >= id) sorted = false;
+      ids[size] = id;
+      tfs[size] = (byte) Math.min(tf, 255);
+      size++;
+    }
+
+    void compact() {
+      if (sorted) return;
+      long[] packed = new long[size];
+      for (int i = 0; i < size; i++) packed[i] = ((long) ids[i] << 8) | (tfs[i] & 0xFF);
+      Arrays.sort(packed);
+      int out = 0;
+      for (int i = 0; i < size; i++) {
+        int id = (int) (packed[i] >>> 8);
+        int tf = (int) (packed[i] & 0xFF);
+        if (out > 0 && ids[out - 1] == id) {
+          tfs[out - 1] = (byte) Math.max(tfs[out - 1] & 0xFF, tf);
+        } else {
+          ids[out] = id;
+          tfs[out] = (byte) tf;
+          out++;
+        }
+      }
+      size = out;
+      sorted = true;
+    }
+  }
+}
@@ -1,12 +1,9 @@
 package org.example.chaoxingsystem.teacher.bank;
 
-import org.apache.ibatis.annotations.Param;
 import java.util.List;
 
-/** 题型字典查询 Mapper */
+/** 题型字典查询 Mapper（仅供 QuestionTypeRegistry 整表加载） */
 public interface QuestionTypeMapper {
-  QuestionType selectByCode(@Param("typeCode") String typeCode);
-  QuestionType selectById(@Param("typeId") Integer typeId);
-  List<QuestionType> selectActive();
+  List<QuestionType> selectAll();
 }
 
@@ -0,0 +1,145 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻题型字典：
+ * - 启动时一次加载全部题型（含未启用），构建不可变快照：按 typeId 下标的数组、按编码排序的数组（二分查找）
+ * - 编码不区分大小写：构建与查询时均按 Locale.ROOT 转为大写
+ * - 查询只读当前快照，不访问数据库；返回的 QuestionType 为共享实例，调用方不得修改
+ * - 管理员修改题型后调用 refresh 整体替换快照；其他进程的修改由后台每 refresh-seconds 秒重新加载收敛
+ * - 查询与试卷视图不再关联 biz_question_type 取 type_code，由 codeOf 在内存中补齐
+ */
+@Component
+public class QuestionTypeRegistry implements InitializingBean, DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(QuestionTypeRegistry.class);
+
+  private final QuestionTypeMapper mapper;
+  private final long refreshSeconds;
+  private final ScheduledExecutorService scheduler;
+  private volatile Snapshot current = Snapshot.of(List.of());
+
+  public QuestionTypeRegistry(QuestionTypeMapper mapper,
+                              @Value("${question.type-registry.refresh-seconds:300}") long refreshSeconds) {
+    this.mapper = mapper;
+    this.refreshSeconds = refreshSeconds;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "question-type-refresh");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    refresh();
+    if (refreshSeconds > 0) {
+      scheduler.scheduleWithFixedDelay(() -> {
+        try {
+          refresh();
+        } catch (Exception ex) {
+          log.warn("题型字典刷新失败", ex);
+        }
+      }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  /** 重新加载题型字典 */
+  public void refresh() {
+    current = Snapshot.of(mapper.selectAll());
+  }
+
+  /** 按编码查询，不存在时返回 null */
+  public QuestionType byCode(String typeCode) {
+    return typeCode == null ? null : current.byCode(typeCode.toUpperCase(Locale.ROOT));
+  }
+
+  /** 按 ID 查询，不存在时返回 null */
+  public QuestionType byId(Integer typeId) {
+    return typeId == null ? null : current.byId(typeId);
+  }
+
+  /** 按编码查询已启用的题型，不存在或未启用时返回 null */
+  public QuestionType activeByCode(String typeCode) {
+    QuestionType type = byCode(typeCode);
+    return isActive(type) ? type : null;
+  }
+
+  /** 题型编码，未知 ID 返回 null */
+  public String codeOf(Integer typeId) {
+    QuestionType type = byId(typeId);
+    return type == null ? null : type.getTypeCode();
+  }
+
+  /** 已启用的题型，按 ID 升序 */
+  public List<QuestionType> active() {
+    return current.active;
+  }
+
+  static boolean isActive(QuestionType type) {
+    return type != null && type.getIsActive() != null && type.getIsActive() != 0;
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  /** 一代字典快照，构建后不再修改 */
+  private static final class Snapshot {
+    private final QuestionType[] byId;
+    private final String[] codes;
+    private final QuestionType[] byCode;
+    private final List<QuestionType> active;
+
+    private Snapshot(QuestionType[] byId, String[] codes, QuestionType[] byCode, List<QuestionType> active) {
+      this.byId = byId;
+      this.codes = codes;
+      this.byCode = byCode;
+      this.active = active;
+    }
+
+    static Snapshot of(List<QuestionType> types) {
+      List<QuestionType> valid = new ArrayList<>();
+      int maxId = -1;
+      for (QuestionType t : types) {
+        if (t.getTypeId() == null || t.getTypeId() < 0 || t.getTypeCode() == null) continue;
+        valid.add(t);
+        maxId = Math.max(maxId, t.getTypeId());
+      }
+      // 题型 ID 为字典自增主键，数量很少，直接按 ID 下标存放
+      QuestionType[] byId = new QuestionType[maxId + 1];
+      for (QuestionType t : valid) byId[t.getTypeId()] = t;
+      valid.sort(Comparator.comparing(t -> t.getTypeCode().toUpperCase(Locale.ROOT)));
+      String[] codes = new String[valid.size()];
+      QuestionType[] byCode = new QuestionType[valid.size()];
+      for (int i = 0; i < valid.size(); i++) {
+        codes[i] = valid.get(i).getTypeCode().toUpperCase(Locale.ROOT);
+        byCode[i] = valid.get(i);
+      }
+      List<QuestionType> active = new ArrayList<>();
+      for (QuestionType t : byId) if (isActive(t)) active.add(t);
+      return new Snapshot(byId, codes, byCode, List.copyOf(active));
+    }
+
+    QuestionType byId(int id) {
+      return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /** code 须已转为大写 */
+    QuestionType byCode(String code) {
+      int i = Arrays.binarySearch(codes, code);
+      return i >= 0 ? byCode[i] : null;
+    }
+  }
+}
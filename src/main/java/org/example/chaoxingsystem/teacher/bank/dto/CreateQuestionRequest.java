@@ -1,7 +1,10 @@
 package org.example.chaoxingsystem.teacher.bank.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import java.util.List;
 
 /** 创建题目请求 */
@@ -14,10 +17,15 @@ public class CreateQuestionRequest {
   @NotNull
   private Object answer;
   @NotNull
+  @Min(1)
+  @Max(5)
   private Integer difficulty;
   @NotBlank
+  @Size(max = 50)
   private String subject;
+  @Size(max = 255)
   private String knowledgePoints;
+  @Size(max = 64)
   private String fileId;
   private Boolean useFile;
 
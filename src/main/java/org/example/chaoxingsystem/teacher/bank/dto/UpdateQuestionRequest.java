@@ -1,6 +1,9 @@
 package org.example.chaoxingsystem.teacher.bank.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import java.util.List;
 
 /** 更新题目请求 */
@@ -12,9 +15,14 @@ public class UpdateQuestionRequest {
   private List<OptionItem> options;
   private Object answer;
   private String analysis;
+  @Min(1)
+  @Max(5)
   private Integer difficulty;
+  @Size(max = 50)
   private String subject;
+  @Size(max = 255)
   private String knowledgePoints;
+  @Size(max = 64)
   private String fileId;
   private Integer status;
   private Boolean useFile;
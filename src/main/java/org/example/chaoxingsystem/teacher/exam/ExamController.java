@@ -2,11 +2,11 @@ package org.example.chaoxingsystem.teacher.exam;
 
 import jakarta.validation.Valid;
 import org.example.chaoxingsystem.config.ModuleCheck;
-import org.example.chaoxingsystem.user.UserService;
+import org.example.chaoxingsystem.config.RequirePerm;
+import org.example.chaoxingsystem.security.LoginUser;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -19,15 +19,14 @@ import java.util.Map;
 @ModuleCheck(moduleCode = "tch_exam")
 public class ExamController {
   private final ExamService service;
-  private final UserService userService;
 
-  public ExamController(ExamService service, UserService userService) {
+  public ExamController(ExamService service) {
     this.service = service;
-    this.userService = userService;
   }
 
   @GetMapping("/exams")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("exam:view")
   public ResponseEntity<ApiResponse<HashMap<String, Object>>> list(
     @RequestParam(value = "status", required = false) String status,
     @RequestParam(value = "page", defaultValue = "1") int page,
@@ -47,8 +46,8 @@ public class ExamController {
 
   @PostMapping("/exams")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
-  public ResponseEntity<ApiResponse<HashMap<String, Object>>> create(Authentication auth, @RequestBody Map<String, Object> body) {
-    var me = userService.getByUsername(auth.getName());
+  @RequirePerm("exam:view")
+  public ResponseEntity<ApiResponse<HashMap<String, Object>>> create(LoginUser me, @RequestBody Map<String, Object> body) {
     String name = (String) body.get("name");
     Long paperId = body.get("paperId") instanceof Number ? ((Number) body.get("paperId")).longValue() : null;
     String startTime = (String) body.get("startTime");
@@ -61,6 +60,7 @@ public class ExamController {
 
   @GetMapping("/monitor/{examId}")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("exam:view")
   public ResponseEntity<ApiResponse<Map<String, Object>>> monitor(@PathVariable("examId") Long examId) {
     // 简化：返回静态看板数据占位
     Map<String, Object> data = new HashMap<>();
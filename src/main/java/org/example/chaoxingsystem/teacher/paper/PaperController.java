@@ -2,13 +2,13 @@ package org.example.chaoxingsystem.teacher.paper;
 
 import jakarta.validation.Valid;
 import org.example.chaoxingsystem.config.ModuleCheck;
+import org.example.chaoxingsystem.config.RequirePerm;
+import org.example.chaoxingsystem.security.LoginUser;
 import org.example.chaoxingsystem.teacher.paper.dto.CreatePaperRequest;
 import org.example.chaoxingsystem.teacher.paper.dto.QuestionScore;
-import org.example.chaoxingsystem.user.UserService;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -21,15 +21,14 @@ import java.util.Map;
 @ModuleCheck(moduleCode = "tch_paper")
 public class PaperController {
   private final PaperService service;
-  private final UserService userService;
 
-  public PaperController(PaperService service, UserService userService) {
+  public PaperController(PaperService service) {
     this.service = service;
-    this.userService = userService;
   }
 
   @GetMapping("/papers")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("paper:view")
   public ResponseEntity<ApiResponse<HashMap<String, Object>>> list(
     @RequestParam(value = "page", defaultValue = "1") int page,
     @RequestParam(value = "size", defaultValue = "10") int size,
@@ -45,8 +44,8 @@ public class PaperController {
 
   @PostMapping("/papers")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
-  public ResponseEntity<ApiResponse<HashMap<String, Object>>> create(Authentication auth, @Valid @RequestBody CreatePaperRequest req) {
-    var me = userService.getByUsername(auth.getName());
+  @RequirePerm("paper:view")
+  public ResponseEntity<ApiResponse<HashMap<String, Object>>> create(LoginUser me, @Valid @RequestBody CreatePaperRequest req) {
     List<PaperService.QuestionItem> items = req.getQuestions().stream().map(q -> new PaperService.QuestionItem(q.getId(), q.getScore())).toList();
     Long id = service.create(me.getId(), req.getName(), req.getSubject(), items, req.getPassScore());
     HashMap<String, Object> data = new HashMap<>();
@@ -56,8 +55,8 @@ public class PaperController {
 
   @PostMapping("/papers/auto-generate")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
-  public ResponseEntity<ApiResponse<HashMap<String, Object>>> autoGenerate(Authentication auth, @RequestBody Map<String, Object> body) {
-    var me = userService.getByUsername(auth.getName());
+  @RequirePerm("paper:view")
+  public ResponseEntity<ApiResponse<HashMap<String, Object>>> autoGenerate(LoginUser me, @RequestBody Map<String, Object> body) {
     String subject = (String) body.get("subject");
     Integer difficulty = body.get("difficulty") instanceof Number ? ((Number) body.get("difficulty")).intValue() : null;
     Integer totalScore = body.get("totalScore") instanceof Number ? ((Number) body.get("totalScore")).intValue() : null;
@@ -2,6 +2,8 @@ package org.example.chaoxingsystem.teacher.paper;
 
 import org.example.chaoxingsystem.teacher.bank.Question;
 import org.example.chaoxingsystem.teacher.bank.QuestionMapper;
+import org.example.chaoxingsystem.teacher.bank.QuestionType;
+import org.example.chaoxingsystem.teacher.bank.QuestionTypeRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,10 +18,12 @@ import java.util.Map;
 public class PaperService {
   private final PaperMapper paperMapper;
   private final QuestionMapper questionMapper;
+  private final QuestionTypeRegistry typeRegistry;
 
-  public PaperService(PaperMapper paperMapper, QuestionMapper questionMapper) {
+  public PaperService(PaperMapper paperMapper, QuestionMapper questionMapper, QuestionTypeRegistry typeRegistry) {
     this.paperMapper = paperMapper;
     this.questionMapper = questionMapper;
+    this.typeRegistry = typeRegistry;
   }
 
   public long count(String subject) {
@@ -67,7 +71,13 @@ public class PaperService {
     for (Map.Entry<String, Integer> e : typeDistribution.entrySet()) {
       String typeCode = e.getKey();
       int countNeed = e.getValue();
-      List<Question> qs = questionMapper.selectByTypeSubjectDifficultyLimit(typeCode, subject, difficulty, countNeed);
+      Integer typeId = null;
+      if (typeCode != null && !typeCode.isEmpty()) {
+        QuestionType type = typeRegistry.byCode(typeCode);
+        if (type == null) continue;
+        typeId = type.getTypeId();
+      }
+      List<Question> qs = questionMapper.selectByTypeSubjectDifficultyLimit(typeId, subject, difficulty, countNeed);
       for (Question q : qs) {
         int scoreEach = Math.max(1, totalScore / Math.max(1, typeDistribution.values().stream().mapToInt(Integer::intValue).sum()));
         items.add(new QuestionItem(q.getId(), scoreEach));
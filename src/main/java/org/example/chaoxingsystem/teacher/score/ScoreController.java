@@ -1,6 +1,7 @@
 package org.example.chaoxingsystem.teacher.score;
 
 import org.example.chaoxingsystem.config.ModuleCheck;
+import org.example.chaoxingsystem.config.RequirePerm;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,6 +22,7 @@ public class ScoreController {
 
   @GetMapping("/scores")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("score:view")
   public ResponseEntity<ApiResponse<HashMap<String, Object>>> list(
     @RequestParam(value = "examId", required = false) Long examId,
     @RequestParam(value = "classId", required = false) Long classId,
@@ -38,6 +40,7 @@ public class ScoreController {
 
   @GetMapping("/scores/{examId}/student/{studentId}")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("score:view")
   public ResponseEntity<ApiResponse<Map<String, Object>>> detail(@PathVariable("examId") Long examId, @PathVariable("studentId") Long studentId) {
     Map<String, Object> data = service.detail(examId, studentId);
     return ResponseEntity.ok(ApiResponse.success("获取成功", data));
@@ -45,6 +48,7 @@ public class ScoreController {
 
   @PostMapping("/scores/{examId}/student/{studentId}")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("score:view")
   public ResponseEntity<ApiResponse<Void>> grade(@PathVariable("examId") Long examId, @PathVariable("studentId") Long studentId, @RequestBody Map<String, Object> body) {
     Integer totalScore = body.get("totalScore") instanceof Number ? ((Number) body.get("totalScore")).intValue() : null;
     List<Map<String, Object>> questions = (List<Map<String, Object>>) body.get("questions");
@@ -54,6 +58,7 @@ public class ScoreController {
 
   @GetMapping("/scores/stats")
   @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+  @RequirePerm("score:view")
   public ResponseEntity<ApiResponse<Map<String, Object>>> stats(@RequestParam("examId") Long examId) {
     Map<String, Object> data = service.stats(examId);
     return ResponseEntity.ok(ApiResponse.success("获取成功", data));
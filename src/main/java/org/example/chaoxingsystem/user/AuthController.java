@@ -4,18 +4,37 @@ import jakarta.validation.Valid;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.example.chaoxingsystem.user.dto.LoginData;
 import org.example.chaoxingsystem.user.dto.LoginRequest;
+import org.example.chaoxingsystem.user.dto.RefreshRequest;
 import org.example.chaoxingsystem.user.dto.RegisterRequest;
 import org.example.chaoxingsystem.user.dto.ResetPasswordRequest;
 import org.example.chaoxingsystem.user.dto.UserInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import org.example.chaoxingsystem.user.dto.UserResponse;
 
 /**
- * 鉴权接口：注册、登录、重置密码、获取当前用户信息、管理员用户列表
+ * 鉴权接口：注册、登录、刷新令牌、重置密码、获取当前用户信息、管理员用户列表（完整列表/键集分页/流式）
+ * 登录为异步接口：口令校验在 LoginHashExecutor 中执行，繁忙时返回 503 + Retry-After；校验之后的查询与签发在 MVC 异步执行器上继续
+ * 登录与刷新均返回访问令牌 + 刷新令牌；刷新令牌一次性使用，换取新令牌对后即被吊销
  */
 @RestController
 @RequestMapping("/api")
@@ -23,10 +42,20 @@ import org.example.chaoxingsystem.user.dto.UserResponse;
 public class AuthController {
   private final UserService userService;
   private final TokenService tokenService;
+  private final LoginHashExecutor loginHashExecutor;
+  private final TokenRevocationList tokenRevocationList;
+  private final ObjectMapper objectMapper;
+  private final Executor requestExecutor;
 
-  public AuthController(UserService userService, TokenService tokenService) {
+  public AuthController(UserService userService, TokenService tokenService, LoginHashExecutor loginHashExecutor,
+                        TokenRevocationList tokenRevocationList, ObjectMapper objectMapper,
+                        @Qualifier("applicationTaskExecutor") Executor requestExecutor) {
     this.userService = userService;
     this.tokenService = tokenService;
+    this.loginHashExecutor = loginHashExecutor;
+    this.tokenRevocationList = tokenRevocationList;
+    this.objectMapper = objectMapper;
+    this.requestExecutor = requestExecutor;
   }
 
   @PostMapping("/register")
@@ -41,23 +70,57 @@ public class AuthController {
   }
 
   @PostMapping("/login")
-  public ResponseEntity<ApiResponse<LoginData>> login(@Valid @RequestBody LoginRequest request) {
-    User user = userService.authenticate(request.getUsername(), request.getPassword());
-    if (user == null) {
-      return ResponseEntity.status(401).body(ApiResponse.error(401, "用户名或密码错误"));
+  public CompletableFuture<ResponseEntity<ApiResponse<LoginData>>> login(@Valid @RequestBody LoginRequest request) {
+    CompletableFuture<User> authenticated;
+    try {
+      authenticated = userService.authenticateAsync(request.getUsername(), request.getPassword(), requestExecutor);
+    } catch (RejectedExecutionException ex) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(503)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginHashExecutor.retryAfterSeconds()))
+        .body(ApiResponse.error(503, "登录请求繁忙，请稍后重试")));
     }
-    String token = tokenService.generateToken(user);
-    String resolvedType = userService.resolveUserType(user);
-    UserInfo info = new UserInfo(user.getId(), user.getUsername(), user.getRealName(), resolvedType, user.getAvatar());
-    LoginData data = new LoginData(token, info);
-    return ResponseEntity.ok(ApiResponse.success("登录成功", data));
+    // 口令校验线程只做 BCrypt；认证结果在 MVC 异步执行器上完成，令牌签发及其数据库/缓存访问随之在该执行器上进行
+    return authenticated.thenApplyAsync(user -> {
+      if (user == null) {
+        return ResponseEntity.status(401).body(ApiResponse.error(401, "用户名或密码错误"));
+      }
+      return ResponseEntity.ok(ApiResponse.success("登录成功", issueTokens(user)));
+    }, requestExecutor);
   }
 
   @PostMapping("/auth/login")
-  public ResponseEntity<ApiResponse<LoginData>> loginAlias(@Valid @RequestBody LoginRequest request) {
+  public CompletableFuture<ResponseEntity<ApiResponse<LoginData>>> loginAlias(@Valid @RequestBody LoginRequest request) {
     return login(request);
   }
 
+  @PostMapping("/refresh")
+  public ResponseEntity<ApiResponse<LoginData>> refresh(@Valid @RequestBody RefreshRequest request) {
+    TokenService.TokenData data = tokenService.parseRefreshToken(request.getRefreshToken());
+    // 已吊销（含被重放）的刷新令牌不可再次使用
+    if (data == null || tokenRevocationList.isRevoked(data) || !tokenRevocationList.revokeToken(data)) {
+      return ResponseEntity.status(401).body(ApiResponse.error(401, "刷新令牌无效或已过期"));
+    }
+    User user = userService.getById(data.getId());
+    if (user == null) {
+      return ResponseEntity.status(401).body(ApiResponse.error(401, "刷新令牌无效或已过期"));
+    }
+    return ResponseEntity.ok(ApiResponse.success("刷新成功", issueTokens(user)));
+  }
+
+  @PostMapping("/auth/refresh")
+  public ResponseEntity<ApiResponse<LoginData>> refreshAlias(@Valid @RequestBody RefreshRequest request) {
+    return refresh(request);
+  }
+
+  /** 按当前角色签发访问令牌与刷新令牌 */
+  private LoginData issueTokens(User user) {
+    String resolvedType = userService.resolveUserType(user);
+    String token = tokenService.generateToken(user, resolvedType);
+    String refreshToken = tokenService.generateRefreshToken(user, resolvedType);
+    UserInfo info = new UserInfo(user.getId(), user.getUsername(), user.getRealName(), resolvedType, user.getAvatar());
+    return new LoginData(token, refreshToken, tokenService.accessTtlSeconds(), info);
+  }
+
   @PostMapping("/reset-password")
   public ResponseEntity<ApiResponse<Void>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
     boolean ok = userService.resetPassword(request);
@@ -83,10 +146,50 @@ public class AuthController {
     return ResponseEntity.ok(ApiResponse.success("获取成功", info));
   }
 
+  /** 用户列表（完整列表，保持原有返回结构）：经数据库游标逐行转换，不再先加载全部实体；大数据量请使用 /admin/users/page 或 /admin/users/stream */
   @GetMapping("/admin/users")
   @PreAuthorize("hasRole('ADMIN')")
-  public ResponseEntity<ApiResponse<List<UserResponse>>> listUsers() {
-    List<UserResponse> users = userService.listAllUsers();
+  public ResponseEntity<ApiResponse<List<UserResponse>>> listUsers(@RequestParam(value = "userType", required = false) String userType,
+                                                                   @RequestParam(value = "keyword", required = false) String keyword) {
+    List<UserResponse> users = new ArrayList<>();
+    userService.forEachUser(userType, keyword, users::add);
     return ResponseEntity.ok(ApiResponse.success("获取成功", users));
   }
+
+  /** 用户列表（键集分页）：按 ID 升序返回 afterId 之后的 limit 条，nextAfterId 为下一页游标，无更多数据时为 null */
+  @GetMapping("/admin/users/page")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<Map<String, Object>>> pageUsers(@RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                                                                    @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                                    @RequestParam(value = "userType", required = false) String userType,
+                                                                    @RequestParam(value = "keyword", required = false) String keyword) {
+    List<UserResponse> users = userService.listUsersAfter(afterId, limit, userType, keyword);
+    boolean full = users.size() >= Math.min(Math.max(limit, 1), 1000);
+    Map<String, Object> data = new HashMap<>();
+    data.put("list", users);
+    data.put("nextAfterId", full ? users.get(users.size() - 1).getId() : null);
+    return ResponseEntity.ok(ApiResponse.success("获取成功", data));
+  }
+
+  /** 用户列表（流式）：经数据库游标逐行读取，直接向响应写出 JSON 数组，内存占用与用户数无关 */
+  @GetMapping("/admin/users/stream")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(value = "userType", required = false) String userType,
+                                                           @RequestParam(value = "keyword", required = false) String keyword) {
+    ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    StreamingResponseBody body = out -> {
+      try (JsonGenerator g = objectMapper.getFactory().createGenerator(out)) {
+        g.writeStartArray();
+        userService.forEachUser(userType, keyword, u -> {
+          try {
+            writer.writeValue(g, u);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        g.writeEndArray();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+  }
 }
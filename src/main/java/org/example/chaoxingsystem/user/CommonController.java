@@ -1,6 +1,7 @@
 package org.example.chaoxingsystem.user;
 
 import jakarta.validation.Valid;
+import org.example.chaoxingsystem.security.LoginUser;
 import org.example.chaoxingsystem.user.dto.ApiResponse;
 import org.example.chaoxingsystem.user.dto.ProfileResponse;
 import org.example.chaoxingsystem.user.dto.UpdatePasswordRequest;
@@ -21,14 +22,13 @@ public class CommonController {
 
   @GetMapping("/profile")
   @PreAuthorize("hasAnyRole('STUDENT','TEACHER','ADMIN')")
-  public ResponseEntity<ApiResponse<ProfileResponse>> profile(Authentication authentication) {
-    String username = authentication.getName();
-    var info = userService.getUserInfoByUsername(username);
-    if (info == null) {
+  public ResponseEntity<ApiResponse<ProfileResponse>> profile(LoginUser me) {
+    // 身份与角色取自令牌，仅查询一次资料字段
+    var user = userService.getById(me.getId());
+    if (user == null) {
       return ResponseEntity.status(404).body(ApiResponse.error(404, "用户不存在"));
     }
-    var user = userService.getByUsername(username);
-    ProfileResponse resp = new ProfileResponse(info.getUsername(), info.getRealName(), info.getUserType(), user != null ? user.getPhone() : null, user != null ? user.getEmail() : null, info.getAvatar());
+    ProfileResponse resp = new ProfileResponse(user.getUsername(), user.getRealName(), me.getUserType(), user.getPhone(), user.getEmail(), user.getAvatar());
     return ResponseEntity.ok(ApiResponse.success("获取成功", resp));
   }
 
@@ -0,0 +1,88 @@
+package org.example.chaoxingsystem.user;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 登录口令校验执行器：
+ * - BCrypt 校验在独立的定长线程池中执行，不占用 Tomcat 请求线程
+ * - 等待队列有界，队列满时立即拒绝（抛出 RejectedExecutionException），由调用方返回 503 + Retry-After
+ * - 线程数默认等于 CPU 核数（security.login.hash-threads 为 0 时）
+ * - 通过 Micrometer 暴露队列深度、活跃线程、校验耗时与拒绝次数
+ */
+@Component
+public class LoginHashExecutor implements MeterBinder, DisposableBean {
+  private final ThreadPoolExecutor executor;
+  private final int retryAfterSeconds;
+  private final LongAdder rejections = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  public LoginHashExecutor(@Value("${security.login.hash-threads:0}") int threads,
+                           @Value("${security.login.queue-capacity:512}") int queueCapacity,
+                           @Value("${security.login.retry-after-seconds:2}") int retryAfterSeconds) {
+    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger seq = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+      r -> {
+        Thread t = new Thread(r, "login-hash-" + seq.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      },
+      new ThreadPoolExecutor.AbortPolicy());
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /** 提交校验任务；队列已满时抛出 RejectedExecutionException */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        long start = System.nanoTime();
+        try {
+          return task.get();
+        } finally {
+          totalNanos.add(System.nanoTime() - start);
+          completed.increment();
+        }
+      }, executor);
+    } catch (RejectedExecutionException ex) {
+      rejections.increment();
+      throw ex;
+    }
+  }
+
+  public int retryAfterSeconds() { return retryAfterSeconds; }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("login.hash.queue.depth", executor, e -> e.getQueue().size())
+      .description("等待执行的口令校验任务数").register(registry);
+    Gauge.builder("login.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+      .description("正在执行口令校验的线程数").register(registry);
+    FunctionTimer.builder("login.hash.latency", this, x -> x.completed.sum(), x -> x.totalNanos.doubleValue(), TimeUnit.NANOSECONDS)
+      .description("口令校验耗时").register(registry);
+    FunctionCounter.builder("login.hash.rejections", rejections, LongAdder::doubleValue)
+      .description("因队列已满被拒绝的登录请求数").register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+}
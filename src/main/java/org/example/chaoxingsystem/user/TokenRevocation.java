@@ -0,0 +1,53 @@
+package org.example.chaoxingsystem.user;
+
+/** 令牌吊销记录（sys_token_revocation） */
+public class TokenRevocation {
+  private Long id;
+  private Long userId;
+  /** 非空时只吊销该令牌 */
+  private String tokenId;
+  /** 用户级吊销的截止签发时间，epoch 毫秒（早期按秒写入的记录由 TokenRevocationList 换算） */
+  private Long revokedBefore;
+  /** 记录可清理的时间，epoch 秒 */
+  private Long expiresAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public String getTokenId() {
+    return tokenId;
+  }
+
+  public void setTokenId(String tokenId) {
+    this.tokenId = tokenId;
+  }
+
+  public Long getRevokedBefore() {
+    return revokedBefore;
+  }
+
+  public void setRevokedBefore(Long revokedBefore) {
+    this.revokedBefore = revokedBefore;
+  }
+
+  public Long getExpiresAt() {
+    return expiresAt;
+  }
+
+  public void setExpiresAt(Long expiresAt) {
+    this.expiresAt = expiresAt;
+  }
+}
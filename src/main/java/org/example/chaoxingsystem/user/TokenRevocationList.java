@@ -0,0 +1,259 @@
+package org.example.chaoxingsystem.user;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.chaoxingsystem.user.TokenService.TokenData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 令牌吊销表（内存）：
+ * - 请求路径上只查内存：布隆过滤器判定“可能已吊销”后再查精确集合，绝大多数令牌只需几次位运算
+ * - 支持吊销单个令牌（按 jti，用于刷新令牌轮换）与吊销某用户在某时刻之前签发的全部令牌（改密/重置密码/角色变更）
+ * - 吊销先写入 sys_token_revocation 再更新内存；启动时从表中重建；数据库写入不持有本对象的锁
+ * - 单令牌吊销以 token_id 唯一键为准：插入发生唯一键冲突说明该令牌已被（任一应用进程）吊销，用于识别刷新令牌重放
+ * - 后台线程每 sync-seconds 秒重新拉取未过期记录（同步其他应用进程的吊销），清理已过期记录并重建过滤器
+ * - 用户级吊销按毫秒比较：吊销时刻及之前签发的令牌均失效
+ */
+@Component
+public class TokenRevocationList implements InitializingBean, DisposableBean, MeterBinder {
+  private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  private final TokenRevocationMapper mapper;
+  private final TokenService tokenService;
+  private final int expectedInsertions;
+  private final long syncSeconds;
+  // jti -> 过期时间（epoch 秒）
+  private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Long, Cutoff> userCutoffs = new ConcurrentHashMap<>();
+  private final LongAdder rejected = new LongAdder();
+  private final ScheduledExecutorService scheduler;
+  private volatile BloomFilter filter;
+
+  public TokenRevocationList(TokenRevocationMapper mapper, TokenService tokenService,
+                             @Value("${security.token.revocation.expected-insertions:10000}") int expectedInsertions,
+                             @Value("${security.token.revocation.sync-seconds:30}") long syncSeconds) {
+    this.mapper = mapper;
+    this.tokenService = tokenService;
+    this.expectedInsertions = Math.max(expectedInsertions, 64);
+    this.syncSeconds = syncSeconds;
+    this.filter = new BloomFilter(this.expectedInsertions, FALSE_POSITIVE_RATE);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "token-revocation-sync");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    sync();
+    if (syncSeconds > 0) {
+      scheduler.scheduleWithFixedDelay(() -> {
+        try {
+          sync();
+        } catch (Exception ex) {
+          log.warn("令牌吊销记录同步失败", ex);
+        }
+      }, syncSeconds, syncSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  /** 判断令牌是否已被吊销，仅访问内存 */
+  public boolean isRevoked(TokenData data) {
+    BloomFilter f = filter;
+    String jti = data.getTokenId();
+    if (jti != null && f.mightContain(tokenKey(jti)) && revokedTokens.containsKey(jti)) {
+      rejected.increment();
+      return true;
+    }
+    Long userId = data.getId();
+    if (userId != null && f.mightContain(userKey(userId))) {
+      Cutoff c = userCutoffs.get(userId);
+      Long iat = data.getIssuedAtMillis();
+      if (c != null && (iat == null || iat <= c.revokedBefore())) {
+        rejected.increment();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 吊销单个令牌；已吊销时返回 false（可用于识别刷新令牌重放）
+   * 以数据库唯一键为准：其他应用进程已吊销但尚未同步到本进程时，插入冲突同样返回 false
+   */
+  public boolean revokeToken(TokenData data) {
+    String jti = data.getTokenId();
+    if (jti == null || revokedTokens.containsKey(jti)) {
+      return false;
+    }
+    TokenRevocation r = new TokenRevocation();
+    r.setUserId(data.getId());
+    r.setTokenId(jti);
+    r.setExpiresAt(data.getExpiresAt());
+    boolean inserted;
+    try {
+      mapper.insert(r);
+      inserted = true;
+    } catch (DuplicateKeyException ex) {
+      inserted = false;
+    }
+    rememberToken(jti, data.getExpiresAt());
+    return inserted;
+  }
+
+  /** 吊销用户当前时刻及之前签发的全部令牌 */
+  public void revokeUser(Long userId) {
+    revokeUsers(List.of(userId));
+  }
+
+  /** 批量吊销一批用户当前时刻及之前签发的全部令牌（角色变更），一条 INSERT 写入 */
+  public void revokeUsers(Collection<Long> userIds) {
+    if (userIds.isEmpty()) return;
+    long now = System.currentTimeMillis();
+    long expiresAt = now / 1000 + Math.max(tokenService.accessTtlSeconds(), tokenService.refreshTtlSeconds());
+    mapper.insertUserCutoffs(userIds, now, expiresAt);
+    for (Long userId : userIds) rememberCutoff(userId, new Cutoff(now, expiresAt));
+  }
+
+  /** 内存更新与 sync 的过滤器重建互斥，避免新写入的键漏入重建后的过滤器 */
+  private synchronized void rememberToken(String jti, long expiresAt) {
+    filter.put(tokenKey(jti));
+    revokedTokens.put(jti, expiresAt);
+  }
+
+  private synchronized void rememberCutoff(Long userId, Cutoff cutoff) {
+    filter.put(userKey(userId));
+    userCutoffs.merge(userId, cutoff, Cutoff::max);
+  }
+
+  /** 拉取未过期记录并合并到内存，清理过期项后重建过滤器 */
+  void sync() {
+    long now = Instant.now().getEpochSecond();
+    List<TokenRevocation> rows = mapper.selectActive(now);
+    mapper.deleteExpired(now);
+    synchronized (this) {
+      for (TokenRevocation r : rows) {
+        if (r.getTokenId() != null) {
+          revokedTokens.put(r.getTokenId(), r.getExpiresAt());
+        } else if (r.getRevokedBefore() != null) {
+          userCutoffs.merge(r.getUserId(), new Cutoff(cutoffMillis(r.getRevokedBefore()), r.getExpiresAt()), Cutoff::max);
+        }
+      }
+      revokedTokens.values().removeIf(exp -> exp <= now);
+      userCutoffs.values().removeIf(c -> c.expiresAt() <= now);
+      int size = revokedTokens.size() + userCutoffs.size();
+      BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, size * 2), FALSE_POSITIVE_RATE);
+      for (String jti : revokedTokens.keySet()) rebuilt.put(tokenKey(jti));
+      for (Long userId : userCutoffs.keySet()) rebuilt.put(userKey(userId));
+      filter = rebuilt;
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("token.revocations", revokedTokens, Map::size)
+      .tag("kind", "token").description("内存中的单令牌吊销数").register(registry);
+    Gauge.builder("token.revocations", userCutoffs, Map::size)
+      .tag("kind", "user").description("内存中的用户级吊销数").register(registry);
+    FunctionCounter.builder("token.revocation.rejected", rejected, LongAdder::doubleValue)
+      .description("因吊销被拒绝的令牌次数").register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  /** revoked_before 为 epoch 毫秒；早期按秒写入的记录（小于 10^11）换算为毫秒 */
+  private static long cutoffMillis(long revokedBefore) {
+    return revokedBefore < 100_000_000_000L ? revokedBefore * 1000L : revokedBefore;
+  }
+
+  private static long tokenKey(String jti) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < jti.length(); i++) {
+      h ^= jti.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  private static long userKey(long userId) {
+    return mix(userId ^ 0x9e3779b97f4a7c15L);
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /** 用户级吊销：revokedBefore（epoch 毫秒）及之前签发的令牌无效，expiresAt（epoch 秒）后记录可清理 */
+  record Cutoff(long revokedBefore, long expiresAt) {
+    static Cutoff max(Cutoff a, Cutoff b) {
+      return new Cutoff(Math.max(a.revokedBefore, b.revokedBefore), Math.max(a.expiresAt, b.expiresAt));
+    }
+  }
+
+  /** 布隆过滤器：双重哈希定位 k 个位，写入在外部加锁，读取无锁 */
+  static final class BloomFilter {
+    private final AtomicLongArray bits;
+    private final int numBits;
+    private final int hashes;
+
+    BloomFilter(int expected, double fpp) {
+      long m = (long) Math.ceil(-expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+      int words = (int) Math.min(Math.max((m + 63) / 64, 1), Integer.MAX_VALUE / 64);
+      this.bits = new AtomicLongArray(words);
+      this.numBits = words * 64;
+      this.hashes = Math.max(1, (int) Math.round((double) numBits / expected * Math.log(2)));
+    }
+
+    void put(long h) {
+      int h1 = (int) h;
+      int h2 = (int) (h >>> 32);
+      for (int i = 1; i <= hashes; i++) {
+        int idx = index(h1 + i * h2);
+        bits.getAndAccumulate(idx >>> 6, 1L << idx, (a, b) -> a | b);
+      }
+    }
+
+    boolean mightContain(long h) {
+      int h1 = (int) h;
+      int h2 = (int) (h >>> 32);
+      for (int i = 1; i <= hashes; i++) {
+        int idx = index(h1 + i * h2);
+        if ((bits.get(idx >>> 6) & (1L << idx)) == 0) return false;
+      }
+      return true;
+    }
+
+    private int index(int combined) {
+      return (combined < 0 ? ~combined : combined) % numBits;
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package org.example.chaoxingsystem.user;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface TokenRevocationMapper {
+  int insert(TokenRevocation revocation);
+  /** 为一批用户写入用户级吊销记录；userIds 不能为空 */
+  int insertUserCutoffs(@Param("userIds") Collection<Long> userIds,
+                        @Param("revokedBefore") long revokedBefore,
+                        @Param("expiresAt") long expiresAt);
+  List<TokenRevocation> selectActive(@Param("now") long now);
+  int deleteExpired(@Param("now") long now);
+}
@@ -1,94 +1,343 @@
 package org.example.chaoxingsystem.user;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.Map;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 令牌服务：提供简化版 JWT 的生成与校验
- * 注意：当前实现未加入过期时间与刷新机制，生产环境需扩展 exp/refresh 等逻辑
+ * - 每个线程持有已初始化的 Mac 与编解码缓冲区，避免每次调用 Mac.getInstance/init
+ * - 校验时按下标定位两个分隔点，按字节恒定时间比对签名，不再构造期望的 Base64 字符串
+ * - 负载使用流式解析，仅读取 sub/username/userType/typ/jti/iat/iatMs/exp
+ * - iat/exp 为标准的 epoch 秒；iatMs 为毫秒签发时间，供用户级吊销精确比较
+ * - 访问令牌（typ=access）与刷新令牌（typ=refresh）分别设置有效期，过期或类型不符的令牌视为无效
+ * - jti 为随机令牌 ID，供 TokenRevocationList 吊销单个令牌
  */
 @Service
 public class TokenService {
-  private final String secret;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int SIGNATURE_BYTES = 32;
+  private static final int MAX_TOKEN_LENGTH = 4096;
+  public static final String TYPE_ACCESS = "access";
+  public static final String TYPE_REFRESH = "refresh";
+  // 头部固定为 HS256 算法
+  private static final byte[] HEADER_SEGMENT = Base64.getUrlEncoder().withoutPadding()
+    .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+    .getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] ENCODE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+    .getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] DECODE = new byte[128];
 
-  public TokenService(@Value("${security.token.secret:dev-secret}") String secret) {
-    this.secret = secret;
+  static {
+    Arrays.fill(DECODE, (byte) -1);
+    for (int i = 0; i < ENCODE.length; i++) DECODE[ENCODE[i]] = (byte) i;
   }
 
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final ThreadLocal<Codec> codecs;
+  private final long accessTtlSeconds;
+  private final long refreshTtlSeconds;
+
+  public TokenService(String secret) {
+    this(secret, 7200, 604800);
+  }
+
+  @Autowired
+  public TokenService(@Value("${security.token.secret:dev-secret}") String secret,
+                      @Value("${security.token.access-ttl-seconds:7200}") long accessTtlSeconds,
+                      @Value("${security.token.refresh-ttl-seconds:604800}") long refreshTtlSeconds) {
+    SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    this.codecs = ThreadLocal.withInitial(() -> new Codec(key));
+    this.accessTtlSeconds = accessTtlSeconds;
+    this.refreshTtlSeconds = refreshTtlSeconds;
+  }
+
+  public long accessTtlSeconds() { return accessTtlSeconds; }
+  public long refreshTtlSeconds() { return refreshTtlSeconds; }
+
   public String generateToken(User user) {
-    // 头部固定为 HS256 算法
-    String headerJson = "{\"alg\":\"HS256\",\"typ\":\"JWT\"}";
-    long iat = Instant.now().getEpochSecond();
-    // 负载包含用户标识、用户名、用户类型与签发时间
-    String payloadJson = "{\"sub\":" + quote(user.getId()) + 
-      ",\"username\":" + quote(user.getUsername()) +
-      ",\"userType\":" + quote(user.getUserType()) +
-      ",\"iat\":" + iat + "}";
-
-    String header = base64UrlEncode(headerJson.getBytes(StandardCharsets.UTF_8));
-    String payload = base64UrlEncode(payloadJson.getBytes(StandardCharsets.UTF_8));
-    String toSign = header + "." + payload;
-    String signature = hmacSha256(toSign, secret);
-    return toSign + "." + signature;
+    return generateToken(user, user.getUserType());
+  }
+
+  /** 生成访问令牌，userType 使用按角色解析后的用户类型 */
+  public String generateToken(User user, String userType) {
+    return issue(user, userType, TYPE_ACCESS, accessTtlSeconds);
+  }
+
+  /** 生成刷新令牌，仅可用于 /api/refresh 换取新的令牌对 */
+  public String generateRefreshToken(User user, String userType) {
+    return issue(user, userType, TYPE_REFRESH, refreshTtlSeconds);
   }
 
+  private String issue(User user, String userType, String tokenType, long ttlSeconds) {
+    Codec c = codecs.get();
+    long iatMillis = System.currentTimeMillis();
+    long iat = iatMillis / 1000;
+    try {
+      // 负载包含用户标识、用户名、用户类型、令牌类型、令牌 ID、签发与过期时间
+      ByteSink json = c.json;
+      json.reset();
+      try (JsonGenerator g = jsonFactory.createGenerator(json)) {
+        g.writeStartObject();
+        g.writeStringField("sub", String.valueOf(user.getId()));
+        g.writeStringField("username", user.getUsername());
+        g.writeStringField("userType", userType);
+        g.writeStringField("typ", tokenType);
+        g.writeStringField("jti", newTokenId(c));
+        g.writeNumberField("iat", iat);
+        g.writeNumberField("iatMs", iatMillis);
+        g.writeNumberField("exp", iat + ttlSeconds);
+        g.writeEndObject();
+      }
+      byte[] out = c.out(HEADER_SEGMENT.length + 1 + encodedLength(json.len) + 1 + encodedLength(SIGNATURE_BYTES));
+      int n = HEADER_SEGMENT.length;
+      System.arraycopy(HEADER_SEGMENT, 0, out, 0, n);
+      out[n++] = '.';
+      n = encode(json.buf, 0, json.len, out, n);
+      c.mac.update(out, 0, n);
+      c.mac.doFinal(c.digest, 0);
+      out[n++] = '.';
+      n = encode(c.digest, 0, SIGNATURE_BYTES, out, n);
+      return new String(out, 0, n, StandardCharsets.ISO_8859_1);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to generate token", e);
+    }
+  }
+
+  /** 校验访问令牌，签名错误、已过期或非访问令牌时返回 null */
   public TokenData parseAndValidate(String token) {
+    return parse(token, TYPE_ACCESS);
+  }
+
+  /** 校验刷新令牌，签名错误、已过期或非刷新令牌时返回 null */
+  public TokenData parseRefreshToken(String token) {
+    return parse(token, TYPE_REFRESH);
+  }
+
+  private TokenData parse(String token, String expectedType) {
+    if (token == null || token.length() > MAX_TOKEN_LENGTH) {
+      return null;
+    }
+    int len = token.length();
+    int dot1 = token.indexOf('.');
+    int dot2 = dot1 < 0 ? -1 : token.indexOf('.', dot1 + 1);
+    if (dot1 <= 0 || dot2 <= dot1 + 1 || dot2 == len - 1 || token.indexOf('.', dot2 + 1) >= 0) {
+      return null;
+    }
+    Codec c = codecs.get();
     try {
-      String[] parts = token.split("\\.");
-      if (parts.length != 3) {
+      byte[] in = c.in(len);
+      for (int i = 0; i < len; i++) {
+        char ch = token.charAt(i);
+        if (ch > 127) return null;
+        in[i] = (byte) ch;
+      }
+      // 校验签名是否匹配：按字节恒定时间比较
+      c.mac.update(in, 0, dot2);
+      c.mac.doFinal(c.digest, 0);
+      if (decode(in, dot2 + 1, len, c.signature, 0) != SIGNATURE_BYTES) {
         return null;
       }
-      String header = parts[0];
-      String payload = parts[1];
-      String signature = parts[2];
-      // 校验签名是否匹配
-      String expected = hmacSha256(header + "." + payload, secret);
-      if (!expected.equals(signature)) {
+      int diff = 0;
+      for (int i = 0; i < SIGNATURE_BYTES; i++) diff |= c.digest[i] ^ c.signature[i];
+      if (diff != 0) {
         return null;
       }
-      byte[] payloadBytes = Base64.getUrlDecoder().decode(payload);
-      @SuppressWarnings("unchecked") Map<String, Object> json = objectMapper.readValue(payloadBytes, Map.class);
-      Object sub = json.get("sub");
-      Object username = json.get("username");
-      Object userType = json.get("userType");
-      if (username == null || userType == null) {
+      byte[] payload = c.payload((dot2 - dot1) * 3 / 4 + 1);
+      int payloadLen = decode(in, dot1 + 1, dot2, payload, 0);
+      if (payloadLen < 0) {
         return null;
       }
-      Long id = null;
-      if (sub != null) {
-        try { id = Long.valueOf(String.valueOf(sub)); } catch (Exception ignored) {}
+      TokenData data = readPayload(payload, payloadLen);
+      if (data == null || !expectedType.equals(data.getTokenType())
+        || data.getExpiresAt() <= Instant.now().getEpochSecond()) {
+        return null;
       }
-      return new TokenData(id, String.valueOf(username), String.valueOf(userType));
+      return data;
     } catch (Exception e) {
       return null;
     }
   }
 
-  private String quote(Object obj) {
-    return "\"" + String.valueOf(obj) + "\"";
+  private TokenData readPayload(byte[] payload, int len) throws Exception {
+    Long id = null;
+    String username = null;
+    String userType = null;
+    String tokenType = null;
+    String tokenId = null;
+    Long iat = null;
+    Long iatMillis = null;
+    Long exp = null;
+    try (JsonParser p = jsonFactory.createParser(payload, 0, len)) {
+      if (p.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        String field = p.currentName();
+        JsonToken t = p.nextToken();
+        boolean scalar = t != null && t.isScalarValue() && t != JsonToken.VALUE_NULL;
+        switch (field) {
+          case "sub" -> {
+            if (t == JsonToken.VALUE_NUMBER_INT) {
+              id = p.getLongValue();
+            } else if (scalar) {
+              try { id = Long.valueOf(p.getText()); } catch (NumberFormatException ignored) {}
+            }
+          }
+          case "username" -> username = scalar ? p.getText() : null;
+          case "userType" -> userType = scalar ? p.getText() : null;
+          case "typ" -> tokenType = scalar ? p.getText() : null;
+          case "jti" -> tokenId = scalar ? p.getText() : null;
+          case "iat" -> iat = t == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : null;
+          case "iatMs" -> iatMillis = t == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : null;
+          case "exp" -> exp = t == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : null;
+          default -> { }
+        }
+        p.skipChildren();
+      }
+    }
+    // 未携带 exp/jti 的旧令牌一律视为无效
+    if (username == null || userType == null || tokenType == null || tokenId == null || iat == null || exp == null) {
+      return null;
+    }
+    // 未携带 iatMs 的令牌按所在秒的起点计，与用户级吊销比较时从严
+    return new TokenData(id, username, userType, iat, iatMillis != null ? iatMillis : iat * 1000L, tokenId, tokenType, exp);
   }
 
-  private String base64UrlEncode(byte[] data) {
-    return Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+  /** 128 位随机令牌 ID，Base64URL 编码为 22 个字符 */
+  private static String newTokenId(Codec c) {
+    ThreadLocalRandom r = ThreadLocalRandom.current();
+    byte[] raw = c.tokenId;
+    long hi = r.nextLong();
+    long lo = r.nextLong();
+    for (int i = 0; i < 8; i++) {
+      raw[i] = (byte) (hi >>> (56 - 8 * i));
+      raw[8 + i] = (byte) (lo >>> (56 - 8 * i));
+    }
+    byte[] out = new byte[22];
+    encode(raw, 0, raw.length, out, 0);
+    return new String(out, StandardCharsets.ISO_8859_1);
   }
 
-  private String hmacSha256(String data, String key) {
-    try {
-      Mac mac = Mac.getInstance("HmacSHA256");
-      mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-      byte[] result = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-      return base64UrlEncode(result);
-    } catch (Exception e) {
-      throw new IllegalStateException("Failed to generate token", e);
+  private static int encodedLength(int n) {
+    return (n / 3) * 4 + (n % 3 == 0 ? 0 : n % 3 + 1);
+  }
+
+  /** Base64URL（无填充）编码 src[from, to) 写入 dst[off...]，返回写入后的下标 */
+  private static int encode(byte[] src, int from, int to, byte[] dst, int off) {
+    int n = off;
+    int i = from;
+    for (; i + 2 < to; i += 3) {
+      int v = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+      dst[n++] = ENCODE[v >>> 18];
+      dst[n++] = ENCODE[(v >>> 12) & 63];
+      dst[n++] = ENCODE[(v >>> 6) & 63];
+      dst[n++] = ENCODE[v & 63];
+    }
+    int rem = to - i;
+    if (rem > 0) {
+      int v = (src[i] & 0xff) << 16 | (rem == 2 ? (src[i + 1] & 0xff) << 8 : 0);
+      dst[n++] = ENCODE[v >>> 18];
+      dst[n++] = ENCODE[(v >>> 12) & 63];
+      if (rem == 2) dst[n++] = ENCODE[(v >>> 6) & 63];
+    }
+    return n;
+  }
+
+  /** Base64URL（无填充）解码 src[from, to) 写入 dst[off...]，返回字节数；非规范编码或容量不足返回 -1 */
+  private static int decode(byte[] src, int from, int to, byte[] dst, int off) {
+    int acc = 0;
+    int bits = 0;
+    int n = off;
+    for (int i = from; i < to; i++) {
+      int b = src[i];
+      int v = b >= 0 ? DECODE[b] : -1;
+      if (v < 0) return -1;
+      acc = (acc << 6) | v;
+      bits += 6;
+      if (bits >= 8) {
+        bits -= 8;
+        if (n >= dst.length) return -1;
+        dst[n++] = (byte) (acc >>> bits);
+        acc &= (1 << bits) - 1;
+      }
+    }
+    if (bits >= 6 || acc != 0) return -1;
+    return n - off;
+  }
+
+  /** 线程私有的编解码状态：已初始化的 Mac 与可复用缓冲区 */
+  private static final class Codec {
+    final Mac mac;
+    final byte[] digest = new byte[SIGNATURE_BYTES];
+    final byte[] signature = new byte[SIGNATURE_BYTES];
+    final byte[] tokenId = new byte[16];
+    final ByteSink json = new ByteSink();
+    private byte[] in = new byte[512];
+    private byte[] out = new byte[512];
+    private byte[] payload = new byte[384];
+
+    Codec(SecretKeySpec key) {
+      try {
+        mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("Failed to init token mac", e);
+      }
+    }
+
+    byte[] in(int size) {
+      if (in.length < size) in = new byte[size];
+      return in;
+    }
+
+    byte[] out(int size) {
+      if (out.length < size) out = new byte[size];
+      return out;
+    }
+
+    byte[] payload(int size) {
+      if (payload.length < size) payload = new byte[size];
+      return payload;
+    }
+  }
+
+  /** 可复用的字节输出流，供 JsonGenerator 写入负载 */
+  private static final class ByteSink extends OutputStream {
+    byte[] buf = new byte[256];
+    int len;
+
+    void reset() { len = 0; }
+
+    private void ensure(int extra) {
+      if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+    }
+
+    @Override
+    public void write(int b) {
+      ensure(1);
+      buf[len++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int l) {
+      ensure(l);
+      System.arraycopy(b, off, buf, len, l);
+      len += l;
     }
   }
 
@@ -96,15 +345,45 @@ public class TokenService {
     private final Long id;
     private final String username;
     private final String userType;
+    private final Long issuedAt;
+    private final Long issuedAtMillis;
+    private final String tokenId;
+    private final String tokenType;
+    private final long expiresAt;
 
     public TokenData(Long id, String username, String userType) {
+      this(id, username, userType, null);
+    }
+
+    public TokenData(Long id, String username, String userType, Long issuedAt) {
+      this(id, username, userType, issuedAt, null, TYPE_ACCESS, Long.MAX_VALUE);
+    }
+
+    public TokenData(Long id, String username, String userType, Long issuedAt, String tokenId, String tokenType, long expiresAt) {
+      this(id, username, userType, issuedAt, issuedAt != null ? issuedAt * 1000L : null, tokenId, tokenType, expiresAt);
+    }
+
+    public TokenData(Long id, String username, String userType, Long issuedAt, Long issuedAtMillis, String tokenId, String tokenType, long expiresAt) {
       this.id = id;
       this.username = username;
       this.userType = userType;
+      this.issuedAt = issuedAt;
+      this.issuedAtMillis = issuedAtMillis;
+      this.tokenId = tokenId;
+      this.tokenType = tokenType;
+      this.expiresAt = expiresAt;
     }
 
     public Long getId() { return id; }
     public String getUsername() { return username; }
     public String getUserType() { return userType; }
+    /** 签发时间（epoch 秒），旧令牌可能缺失 */
+    public Long getIssuedAt() { return issuedAt; }
+    /** 签发时间（epoch 毫秒），旧令牌可能缺失 */
+    public Long getIssuedAtMillis() { return issuedAtMillis; }
+    public String getTokenId() { return tokenId; }
+    public String getTokenType() { return tokenType; }
+    /** 过期时间（epoch 秒） */
+    public long getExpiresAt() { return expiresAt; }
   }
 }
@@ -0,0 +1,144 @@
+package org.example.chaoxingsystem.user;
+
+import org.example.chaoxingsystem.config.AfterCommit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户身份缓存：
+ * - 按用户 ID 缓存用户记录与按角色解析后的用户类型，另维护用户名到 ID 的索引
+ * - 容量与存活时间有界（security.user.cache.*），max-size 为 0 时关闭缓存
+ * - 写操作调用 invalidate 精确失效；处于事务中时在提交后再失效一次，避免提交前被旧数据回填
+ * - 加载前先取 stamp()，期间发生过失效则放弃回填
+ * - 各应用进程各自持有缓存，跨进程的修改依赖 TTL 收敛
+ * - 命中/未命中/淘汰计数通过 Micrometer 暴露（cache=userIdentity）
+ * 注意：缓存中的 User 对象为共享实例，调用方不得修改
+ */
+@Component
+public class UserIdentityCache implements MeterBinder {
+  private final ConcurrentHashMap<Long, Identity> byId = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Long> idByUsername = new ConcurrentHashMap<>();
+  private final int maxSize;
+  private final long ttlMillis;
+  private final AtomicLong generation = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  public UserIdentityCache(@Value("${security.user.cache.max-size:10000}") int maxSize,
+                           @Value("${security.user.cache.ttl-seconds:300}") long ttlSeconds) {
+    this.maxSize = maxSize;
+    this.ttlMillis = ttlSeconds * 1000L;
+  }
+
+  public Identity getById(Long id) {
+    if (id == null || maxSize <= 0) return null;
+    Identity e = byId.get(id);
+    if (e == null) {
+      misses.increment();
+      return null;
+    }
+    if (e.expiresAt() <= System.currentTimeMillis()) {
+      if (byId.remove(id, e)) {
+        idByUsername.remove(e.user().getUsername(), id);
+        evictions.increment();
+      }
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return e;
+  }
+
+  public Identity getByUsername(String username) {
+    if (username == null || maxSize <= 0) return null;
+    Long id = idByUsername.get(username);
+    if (id == null) {
+      misses.increment();
+      return null;
+    }
+    return getById(id);
+  }
+
+  /** 加载前调用，回填时传回；期间发生失效则回填被丢弃 */
+  public long stamp() {
+    return generation.get();
+  }
+
+  /** 回填缓存并返回身份；stamp 已过期时仅返回不缓存 */
+  public Identity put(User user, String userType, long stamp) {
+    Identity e = new Identity(user, userType, System.currentTimeMillis() + ttlMillis);
+    if (maxSize <= 0 || user.getId() == null || generation.get() != stamp) return e;
+    if (byId.size() >= maxSize) sweep();
+    byId.put(user.getId(), e);
+    idByUsername.put(user.getUsername(), user.getId());
+    // 写入与失效并发时撤销本次回填
+    if (generation.get() != stamp && byId.remove(user.getId(), e)) {
+      idByUsername.remove(user.getUsername(), user.getId());
+    }
+    return e;
+  }
+
+  /** 使指定用户的缓存失效；在事务中调用时提交后再次失效 */
+  public void invalidate(Long id) {
+    if (id == null) return;
+    evict(id);
+    AfterCommit.runAgain(() -> evict(id));
+  }
+
+  public long hitCount() { return hits.sum(); }
+  public long missCount() { return misses.sum(); }
+  public int size() { return byId.size(); }
+
+  private void evict(Long id) {
+    generation.incrementAndGet();
+    Identity e = byId.remove(id);
+    if (e != null) idByUsername.remove(e.user().getUsername(), id);
+  }
+
+  /** 清理过期项；仍超出容量时按迭代顺序淘汰至 90% 容量，同一时刻仅允许一个线程清理 */
+  private void sweep() {
+    if (!sweeping.compareAndSet(false, true)) return;
+    try {
+      long now = System.currentTimeMillis();
+      int target = maxSize - Math.max(1, maxSize / 10);
+      Iterator<Map.Entry<Long, Identity>> it = byId.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Long, Identity> next = it.next();
+        if (next.getValue().expiresAt() > now && byId.size() <= target) continue;
+        it.remove();
+        idByUsername.remove(next.getValue().user().getUsername(), next.getKey());
+        evictions.increment();
+      }
+    } finally {
+      sweeping.set(false);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue)
+      .tag("cache", "userIdentity").tag("result", "hit").register(registry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue)
+      .tag("cache", "userIdentity").tag("result", "miss").register(registry);
+    FunctionCounter.builder("cache.evictions", evictions, LongAdder::doubleValue)
+      .tag("cache", "userIdentity").register(registry);
+    Gauge.builder("cache.size", byId, Map::size)
+      .tag("cache", "userIdentity").register(registry);
+  }
+
+  /** 缓存项：用户记录、解析后的用户类型与过期时间（毫秒） */
+  public record Identity(User user, String userType, long expiresAt) {}
+}
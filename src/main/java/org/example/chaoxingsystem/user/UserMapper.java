@@ -2,6 +2,8 @@ package org.example.chaoxingsystem.user;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -12,9 +14,23 @@ public interface UserMapper {
   Long countByUsername(@Param("username") String username);
   Long countByEmail(@Param("email") String email);
   int insert(User user);
+  /** 多行插入，回填自增 ID */
+  int insertBatch(@Param("users") List<User> users);
+  List<String> selectExistingUsernames(@Param("usernames") Collection<String> usernames);
+  List<String> selectExistingEmails(@Param("emails") Collection<String> emails);
+  /** 按用户名批量查询（不含口令哈希） */
+  List<User> selectByUsernames(@Param("usernames") Collection<String> usernames);
   int updatePasswordById(@Param("id") Long id, @Param("passwordHash") String passwordHash);
   int updateProfileById(@Param("id") Long id, @Param("email") String email, @Param("phone") String phone);
   List<User> selectAll();
+  /** 键集分页：返回 id 大于 afterId 的前 limit 条 */
+  List<User> selectPageAfterId(@Param("afterId") long afterId,
+                               @Param("limit") int limit,
+                               @Param("userType") String userType,
+                               @Param("keyword") String keyword);
+  /** 流式读取（MySQL 逐行拉取），须在事务内消费 */
+  Cursor<User> cursorByFilter(@Param("userType") String userType,
+                              @Param("keyword") String keyword);
   List<User> searchByUserType(@Param("userType") String userType,
                               @Param("keyword") String keyword,
                               @Param("offset") int offset,
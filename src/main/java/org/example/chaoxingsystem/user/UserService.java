@@ -8,7 +8,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.apache.ibatis.cursor.Cursor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.example.chaoxingsystem.user.dto.UserInfo;
 import org.example.chaoxingsystem.user.dto.UserResponse;
@@ -16,16 +22,25 @@ import java.time.ZoneId;
 
 /**
  * 用户领域服务：注册、认证、资料维护、密码修改、用户列表等
+ * 按用户名/ID 的读取与角色解析经 UserIdentityCache 缓存，资料与密码修改后精确失效
+ * 修改或重置密码后吊销该用户此前签发的全部令牌
  */
 @Service
 public class UserService {
   private final UserMapper userMapper;
   private final org.example.chaoxingsystem.admin.perm.UserRoleMapper userRoleMapper;
+  private final LoginHashExecutor loginHashExecutor;
+  private final UserIdentityCache identityCache;
+  private final TokenRevocationList tokenRevocationList;
   private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
-  public UserService(UserMapper userMapper, org.example.chaoxingsystem.admin.perm.UserRoleMapper userRoleMapper) {
+  public UserService(UserMapper userMapper, org.example.chaoxingsystem.admin.perm.UserRoleMapper userRoleMapper, LoginHashExecutor loginHashExecutor,
+                     UserIdentityCache identityCache, TokenRevocationList tokenRevocationList) {
     this.userMapper = userMapper;
     this.userRoleMapper = userRoleMapper;
+    this.loginHashExecutor = loginHashExecutor;
+    this.identityCache = identityCache;
+    this.tokenRevocationList = tokenRevocationList;
   }
 
   @Transactional
@@ -61,6 +76,28 @@ public class UserService {
     return null;
   }
 
+  /**
+   * 异步认证：用户查询在调用线程完成，LoginHashExecutor 中只做 BCrypt 校验
+   * 校验通过后的角色查询与身份缓存回填在 continuation 上执行，不占用口令校验线程；后续阶段同样在 continuation 上继续
+   * 执行器队列已满时抛出 RejectedExecutionException
+   * 口令哈希总是从数据库读取；回填的身份缓存供随后的角色解析与 /api/me 使用
+   */
+  public CompletableFuture<User> authenticateAsync(String username, String rawPassword, Executor continuation) {
+    long stamp = identityCache.stamp();
+    User u = userMapper.selectByUsername(username);
+    if (u == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return loginHashExecutor.submit(() -> passwordEncoder.matches(rawPassword, u.getPasswordHash()))
+      .thenApplyAsync(matched -> {
+        if (!matched) {
+          return null;
+        }
+        identityCache.put(u, loadUserType(u), stamp);
+        return u;
+      }, continuation);
+  }
+
   @Transactional
   public boolean resetPassword(ResetPasswordRequest request) {
     // 基于用户名+邮箱双重匹配后重置密码
@@ -76,27 +113,76 @@ public class UserService {
     }
     String hash = passwordEncoder.encode(request.getNewPassword());
     int updated = userMapper.updatePasswordById(u.getId(), hash);
+    identityCache.invalidate(u.getId());
+    tokenRevocationList.revokeUser(u.getId());
     return updated > 0;
   }
 
   public UserInfo getUserInfoByUsername(String username) {
-    User u = userMapper.selectByUsername(username);
-    if (u == null) { return null; }
-    String resolvedType = resolveUserType(u);
-    return new UserInfo(u.getId(), u.getUsername(), u.getRealName(), resolvedType, u.getAvatar());
+    UserIdentityCache.Identity identity = identityByUsername(username);
+    if (identity == null) { return null; }
+    User u = identity.user();
+    return new UserInfo(u.getId(), u.getUsername(), u.getRealName(), identity.userType(), u.getAvatar());
   }
 
+  /** 返回的 User 可能为缓存中的共享实例，调用方不得修改 */
   public User getByUsername(String username) {
-    return userMapper.selectByUsername(username);
+    UserIdentityCache.Identity identity = identityByUsername(username);
+    return identity != null ? identity.user() : null;
+  }
+
+  /** 返回的 User 可能为缓存中的共享实例，调用方不得修改 */
+  public User getById(Long id) {
+    UserIdentityCache.Identity identity = identityCache.getById(id);
+    if (identity == null) {
+      long stamp = identityCache.stamp();
+      User u = userMapper.selectById(id);
+      if (u == null) { return null; }
+      identity = identityCache.put(u, loadUserType(u), stamp);
+    }
+    return identity.user();
+  }
+
+  private UserIdentityCache.Identity identityByUsername(String username) {
+    UserIdentityCache.Identity identity = identityCache.getByUsername(username);
+    if (identity == null) {
+      long stamp = identityCache.stamp();
+      User u = userMapper.selectByUsername(username);
+      if (u == null) { return null; }
+      identity = identityCache.put(u, loadUserType(u), stamp);
+    }
+    return identity;
   }
 
-  public List<UserResponse> listAllUsers() {
-    return userMapper.selectAll().stream()
-      .map(u -> new UserResponse(u.getId(), u.getUsername(), u.getEmail(),
-        u.getCreatedAt() != null ? u.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant() : null))
+  /** 键集分页列出用户，limit 取值 1-1000 */
+  public List<UserResponse> listUsersAfter(long afterId, int limit, String userType, String keyword) {
+    int size = Math.min(Math.max(limit, 1), 1000);
+    return userMapper.selectPageAfterId(Math.max(afterId, 0L), size, normalize(userType), keyword).stream()
+      .map(UserService::toResponse)
       .collect(Collectors.toList());
   }
 
+  /** 按 ID 顺序流式遍历用户，游标在事务结束时关闭 */
+  @Transactional(readOnly = true)
+  public void forEachUser(String userType, String keyword, Consumer<UserResponse> action) {
+    try (Cursor<User> cursor = userMapper.cursorByFilter(normalize(userType), keyword)) {
+      for (User u : cursor) {
+        action.accept(toResponse(u));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String normalize(String userType) {
+    return StringUtils.hasText(userType) ? userType.trim().toLowerCase() : null;
+  }
+
+  private static UserResponse toResponse(User u) {
+    return new UserResponse(u.getId(), u.getUsername(), u.getEmail(),
+      u.getCreatedAt() != null ? u.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant() : null);
+  }
+
   @Transactional
   public boolean updateProfile(String username, String email, String phone) {
     User u = userMapper.selectByUsername(username);
@@ -105,6 +191,7 @@ public class UserService {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "邮箱已存在");
     }
     int updated = userMapper.updateProfileById(u.getId(), email.trim().toLowerCase(), phone != null ? phone.trim() : null);
+    identityCache.invalidate(u.getId());
     return updated > 0;
   }
 
@@ -117,9 +204,21 @@ public class UserService {
     }
     String hash = passwordEncoder.encode(newPassword);
     int updated = userMapper.updatePasswordById(u.getId(), hash);
+    identityCache.invalidate(u.getId());
+    tokenRevocationList.revokeUser(u.getId());
     return updated > 0;
   }
+
+  /** 按角色解析用户类型，优先取身份缓存 */
   public String resolveUserType(User u) {
+    UserIdentityCache.Identity identity = identityCache.getById(u.getId());
+    if (identity != null) {
+      return identity.userType();
+    }
+    return loadUserType(u);
+  }
+
+  private String loadUserType(User u) {
     try {
       var keys = userRoleMapper.selectRoleKeysByUserId(u.getId());
       if (keys != null && !keys.isEmpty()) {
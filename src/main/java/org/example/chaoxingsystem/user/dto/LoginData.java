@@ -2,10 +2,14 @@ package org.example.chaoxingsystem.user.dto;
 
 public class LoginData {
   private String token;
+  private String refreshToken;
+  private long expiresIn;
   private UserInfo userInfo;
 
-  public LoginData(String token, UserInfo userInfo) {
+  public LoginData(String token, String refreshToken, long expiresIn, UserInfo userInfo) {
     this.token = token;
+    this.refreshToken = refreshToken;
+    this.expiresIn = expiresIn;
     this.userInfo = userInfo;
   }
 
@@ -13,7 +17,16 @@ public class LoginData {
     return token;
   }
 
+  public String getRefreshToken() {
+    return refreshToken;
+  }
+
+  /** 访问令牌有效期（秒） */
+  public long getExpiresIn() {
+    return expiresIn;
+  }
+
   public UserInfo getUserInfo() {
     return userInfo;
   }
-}
\ No newline at end of file
+}
@@ -7,7 +7,21 @@ CREATE TABLE IF NOT EXISTS users (
   user_type VARCHAR(20) NOT NULL,
   real_name VARCHAR(50) NOT NULL,
   avatar VARCHAR(255),
-  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  KEY idx_users_type_id (user_type, id)
+) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
+
+-- 令牌吊销记录：token_id 非空时吊销单个令牌（唯一，插入冲突即重放），否则吊销该用户在 revoked_before 及之前签发的全部令牌
+-- revoked_before 为 epoch 毫秒；expires_at（epoch 秒）之后被吊销的令牌已自然过期，记录可删除
+CREATE TABLE IF NOT EXISTS sys_token_revocation (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  user_id BIGINT NOT NULL,
+  token_id VARCHAR(64) NULL,
+  revoked_before BIGINT NULL,
+  expires_at BIGINT NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY uk_token_revocation_token (token_id),
+  KEY idx_token_revocation_expires (expires_at)
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
 -- 题型字典
@@ -49,9 +63,29 @@ CREATE TABLE IF NOT EXISTS sys_organization (
   status TINYINT NOT NULL DEFAULT 1,
   leader VARCHAR(50) NULL,
   phone VARCHAR(50) NULL,
-  description VARCHAR(255) NULL
+  description VARCHAR(255) NULL,
+  KEY idx_org_parent (parent_id, sort_order),
+  KEY idx_org_path (path)
+) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
+
+-- 组织机构闭包表：每对（祖先, 后代）一行，含自身（depth=0），由 OrgService 的保存/移动/删除维护
+CREATE TABLE IF NOT EXISTS sys_organization_closure (
+  ancestor BIGINT NOT NULL,
+  descendant BIGINT NOT NULL,
+  depth INT NOT NULL,
+  PRIMARY KEY (ancestor, descendant),
+  KEY idx_org_closure_descendant (descendant, depth)
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
+-- 闭包表回填：按 parent_id 递归补齐缺失的行，幂等（已有行被忽略），深度上限 64 防止脏数据成环
+INSERT IGNORE INTO sys_organization_closure (ancestor, descendant, depth)
+WITH RECURSIVE t (ancestor, descendant, depth) AS (
+  SELECT id, id, 0 FROM sys_organization
+  UNION ALL
+  SELECT t.ancestor, o.id, t.depth + 1 FROM t JOIN sys_organization o ON o.parent_id = t.descendant WHERE t.depth < 64
+)
+SELECT ancestor, descendant, depth FROM t;
+
 -- 学生档案
 CREATE TABLE IF NOT EXISTS biz_student (
   user_id BIGINT PRIMARY KEY,
@@ -61,7 +95,9 @@ CREATE TABLE IF NOT EXISTS biz_student (
   class_id BIGINT NOT NULL,
   major_code VARCHAR(50) NOT NULL,
   enrollment_year INT NOT NULL,
-  politics_status VARCHAR(20) NULL
+  politics_status VARCHAR(20) NULL,
+  KEY idx_student_class (class_id, user_id),
+  KEY idx_student_no (student_no)
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
 -- 教师档案
@@ -71,7 +107,9 @@ CREATE TABLE IF NOT EXISTS biz_teacher (
   real_name VARCHAR(50) NOT NULL,
   dept_id BIGINT NOT NULL,
   title VARCHAR(50) NULL,
-  entry_date DATE NULL
+  entry_date DATE NULL,
+  KEY idx_teacher_dept (dept_id, user_id),
+  KEY idx_teacher_no (teacher_no)
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
 -- RBAC 角色
@@ -96,14 +134,16 @@ CREATE TABLE IF NOT EXISTS sys_menu (
   component VARCHAR(200) NULL,
   icon VARCHAR(100) NULL,
   sort_order INT NOT NULL DEFAULT 1,
-  visible TINYINT NOT NULL DEFAULT 1
+  visible TINYINT NOT NULL DEFAULT 1,
+  KEY idx_menu_parent (parent_id, sort_order)
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
 -- 用户-角色关联
 CREATE TABLE IF NOT EXISTS sys_user_role (
   user_id BIGINT NOT NULL,
   role_id BIGINT NOT NULL,
-  PRIMARY KEY (user_id, role_id)
+  PRIMARY KEY (user_id, role_id),
+  KEY idx_user_role_role (role_id, user_id)
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
 -- 角色-菜单关联
@@ -162,7 +202,9 @@ CREATE TABLE IF NOT EXISTS sys_oper_log (
     file_id VARCHAR(64) NULL,
     creator_id BIGINT NOT NULL,
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    status TINYINT NOT NULL DEFAULT 1
+    status TINYINT NOT NULL DEFAULT 1,
+    KEY idx_question_filter (subject, type_id, difficulty, create_time),
+    KEY idx_question_time (create_time)
   ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
   -- 试卷主表
@@ -0,0 +1,66 @@
+package org.example.chaoxingsystem.admin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** 稀疏同级排序：有空隙时取中值只写拖拽节点，无空隙或越界时整组按 GAP 重排 */
+public class SiblingOrderTest {
+  private static final int GAP = SiblingOrder.GAP;
+
+  private record Item(long id, int order) {}
+
+  private static SiblingOrder.Placement place(List<Item> siblings, int pos) {
+    return SiblingOrder.place(siblings, pos, 99L, Item::id, Item::order);
+  }
+
+  @Test
+  void placeBetweenNeighboursTakesMidpoint() {
+    SiblingOrder.Placement p = place(List.of(new Item(1, GAP), new Item(2, 2 * GAP)), 1);
+    assertEquals(GAP + GAP / 2, p.order());
+    assertTrue(p.respaced().isEmpty());
+    assertFalse(p.tight());
+  }
+
+  @Test
+  void placeAtEndsLeavesGap() {
+    List<Item> siblings = List.of(new Item(1, GAP), new Item(2, 2 * GAP));
+    assertEquals(GAP / 2, place(siblings, 0).order());
+    assertEquals(3 * GAP, place(siblings, 2).order());
+    assertEquals(GAP, place(List.of(), 0).order());
+  }
+
+  @Test
+  void narrowGapIsMarkedTight() {
+    SiblingOrder.Placement p = place(List.of(new Item(1, 1000), new Item(2, 1005)), 1);
+    assertEquals(1002, p.order());
+    assertTrue(p.respaced().isEmpty());
+    assertTrue(p.tight());
+  }
+
+  @Test
+  void noGapRespacesWholeGroup() {
+    SiblingOrder.Placement p = place(List.of(new Item(1, GAP), new Item(2, GAP + 1), new Item(3, 3 * GAP)), 1);
+    assertEquals(2 * GAP, p.order());
+    // 第一个节点已在目标序值上，不写
+    assertEquals(Map.of(2L, 3 * GAP, 3L, 4 * GAP), p.respaced());
+    assertFalse(p.tight());
+  }
+
+  @Test
+  void overflowAtEndRespaces() {
+    SiblingOrder.Placement p = place(List.of(new Item(1, Integer.MAX_VALUE - 1)), 1);
+    assertEquals(2 * GAP, p.order());
+    assertEquals(Map.of(1L, GAP), p.respaced());
+  }
+
+  @Test
+  void respaceReturnsOnlyChangedItems() {
+    Map<Long, Integer> changed = SiblingOrder.respace(List.of(new Item(1, 5), new Item(2, 2 * GAP), new Item(3, 7)), Item::id, Item::order);
+    assertEquals(Map.of(1L, GAP, 3L, 3 * GAP), changed);
+    assertTrue(SiblingOrder.respace(List.of(new Item(1, GAP), new Item(2, 2 * GAP)), Item::id, Item::order).isEmpty());
+  }
+}
@@ -0,0 +1,73 @@
+package org.example.chaoxingsystem.admin.org;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** 闭包表在移动与改父节点时断开原祖先、挂到新祖先链下：祖先链按距离排序，子树内部的行保留 */
+@SpringBootTest
+public class OrgClosureTest {
+  @Autowired
+  private OrgService orgService;
+
+  @Test
+  void moveDetachesFromOldAncestorsAndAttachesToNew() {
+    String tag = Long.toString(System.nanoTime(), 36);
+    Organization a = create("ca-" + tag, null);
+    Organization b = create("cb-" + tag, a.getId());
+    Organization c = create("cc-" + tag, b.getId());
+    Organization d = create("cd-" + tag, null);
+    assertEquals(List.of(c.getId(), b.getId(), a.getId()), ancestorIds(c.getId()));
+
+    orgService.move(b.getId(), d.getId(), "inner");
+
+    assertEquals(List.of(b.getId(), d.getId()), ancestorIds(b.getId()));
+    assertEquals(List.of(c.getId(), b.getId(), d.getId()), ancestorIds(c.getId()));
+    assertEquals(0L, descendants(a.getId()));
+    assertEquals(2L, descendants(d.getId()));
+    assertEquals(1L, descendants(b.getId()));
+  }
+
+  @Test
+  void saveWithNewParentReattachesSubtree() {
+    String tag = Long.toString(System.nanoTime(), 36);
+    Organization a = create("ra-" + tag, null);
+    Organization b = create("rb-" + tag, a.getId());
+    Organization c = create("rc-" + tag, b.getId());
+    Organization e = create("re-" + tag, null);
+
+    b.setParentId(e.getId());
+    orgService.save(b, true);
+    assertEquals(List.of(c.getId(), b.getId(), e.getId()), ancestorIds(c.getId()));
+    assertEquals(0L, descendants(a.getId()));
+
+    // 改为顶层节点：只剩子树内部的行
+    b.setParentId(null);
+    orgService.save(b, true);
+    assertEquals(List.of(c.getId(), b.getId()), ancestorIds(c.getId()));
+    assertEquals(0L, descendants(e.getId()));
+  }
+
+  private List<Long> ancestorIds(Long id) {
+    return orgService.ancestors(id).stream().map(Organization::getId).toList();
+  }
+
+  private long descendants(Long id) {
+    return ((Number) orgService.countSubtreeMembers(id).get("descendants")).longValue();
+  }
+
+  private Organization create(String code, Long parentId) {
+    Organization o = new Organization();
+    o.setParentId(parentId);
+    o.setName(code);
+    o.setCode(code);
+    o.setType("dept");
+    o.setStatus(1);
+    orgService.save(o, false);
+    return o;
+  }
+}
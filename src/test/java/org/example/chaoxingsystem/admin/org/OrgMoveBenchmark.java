@@ -0,0 +1,103 @@
+package org.example.chaoxingsystem.admin.org;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.admin.SiblingOrder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 机构移动基准：nodeCount 个节点的树，将带有全部后代的学院节点移动到另一节点下
+ * - perNode：原实现的逐后代“查询父节点 + 整行更新”
+ * - setBased：OrgService.move 的单条前缀替换 UPDATE
+ * 映射器以动态代理替代，每条语句休眠 dbLatencyMicros 模拟一次数据库往返（不含数据库端执行代价）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class OrgMoveBenchmark {
+  @Param({"50000"})
+  public int nodeCount;
+
+  @Param({"50"})
+  public long dbLatencyMicros;
+
+  private final Map<Long, Organization> nodes = new HashMap<>();
+  private final List<Organization> subtree = new ArrayList<>();
+  private OrganizationMapper mapper;
+  private OrgService service;
+
+  @Setup
+  public void setup() {
+    // 1：学校；2：待移动学院（其下为全部其余节点，每个系 100 个班级）；3：目标学院
+    put(1L, null, "/1/");
+    put(2L, 1L, "/1/2/");
+    put(3L, 1L, "/1/3/");
+    long deptId = 0;
+    for (long id = 4; id <= nodeCount; id++) {
+      if ((id - 4) % 101 == 0) {
+        deptId = id;
+        subtree.add(put(id, 2L, "/1/2/" + id + "/"));
+      } else {
+        subtree.add(put(id, deptId, "/1/2/" + deptId + "/" + id + "/"));
+      }
+    }
+    mapper = stub();
+    service = new OrgService(mapper, new OrgTreeIndex(mapper, new ObjectMapper(), 0), new SiblingOrder(), null);
+  }
+
+  private Organization put(Long id, Long parentId, String path) {
+    Organization o = new Organization();
+    o.setId(id);
+    o.setParentId(parentId);
+    o.setPath(path);
+    o.setSortOrder(1);
+    nodes.put(id, o);
+    return o;
+  }
+
+  @Benchmark
+  public int perNode() {
+    int statements = 0;
+    for (Organization child : mapper.selectSubtree("/1/2/")) {
+      Organization parent = mapper.selectById(child.getParentId());
+      child.setPath(parent.getPath() + child.getId() + "/");
+      mapper.updateById(child);
+      statements += 2;
+    }
+    return statements;
+  }
+
+  @Benchmark
+  public void setBased() {
+    service.move(2L, 3L, "inner");
+  }
+
+  private OrganizationMapper stub() {
+    return (OrganizationMapper) Proxy.newProxyInstance(OrganizationMapper.class.getClassLoader(), new Class<?>[]{OrganizationMapper.class}, (proxy, method, args) -> {
+      if (method.getDeclaringClass() == Object.class) return method.invoke(this, args);
+      LockSupport.parkNanos(dbLatencyMicros * 1000L);
+      return switch (method.getName()) {
+        case "selectById" -> nodes.get((Long) args[0]);
+        case "selectSubtree" -> subtree;
+        case "selectChildren", "selectChildrenForUpdate" -> List.of();
+        default -> method.getReturnType() == int.class ? 1 : null;
+      };
+    });
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(OrgMoveBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,68 @@
+package org.example.chaoxingsystem.admin.org;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 移动与改父节点后，子树路径按前缀整体改写：后代保留原相对路径，不再存在以旧路径开头的节点 */
+@SpringBootTest
+public class OrgPathRewriteTest {
+  @Autowired
+  private OrgService orgService;
+
+  @Autowired
+  private OrganizationMapper mapper;
+
+  @Test
+  void moveRewritesSubtreePrefix() {
+    String tag = Long.toString(System.nanoTime(), 36);
+    Organization a = create("pa-" + tag, null);
+    Organization b = create("pb-" + tag, a.getId());
+    Organization c = create("pc-" + tag, b.getId());
+    Organization d = create("pd-" + tag, null);
+    String oldB = mapper.selectById(b.getId()).getPath();
+    String suffix = mapper.selectById(c.getId()).getPath().substring(oldB.length());
+
+    orgService.move(b.getId(), d.getId(), "inner");
+
+    String newB = mapper.selectById(b.getId()).getPath();
+    assertTrue(newB.contains("/" + d.getId() + "/"), newB);
+    assertTrue(newB.endsWith("/" + b.getId() + "/"), newB);
+    assertEquals(newB + suffix, mapper.selectById(c.getId()).getPath());
+    assertTrue(mapper.selectSubtree(oldB).isEmpty());
+  }
+
+  @Test
+  void saveWithNewParentRewritesSubtreePrefix() {
+    String tag = Long.toString(System.nanoTime(), 36);
+    Organization a = create("sa-" + tag, null);
+    Organization b = create("sb-" + tag, a.getId());
+    Organization c = create("sc-" + tag, b.getId());
+    String oldB = mapper.selectById(b.getId()).getPath();
+    String suffix = mapper.selectById(c.getId()).getPath().substring(oldB.length());
+
+    Organization update = mapper.selectById(b.getId());
+    update.setParentId(null);
+    orgService.save(update, true);
+
+    String newB = mapper.selectById(b.getId()).getPath();
+    assertFalse(newB.contains("/" + a.getId() + "/"), newB);
+    assertEquals(newB + suffix, mapper.selectById(c.getId()).getPath());
+    assertTrue(mapper.selectSubtree(oldB).isEmpty());
+  }
+
+  private Organization create(String code, Long parentId) {
+    Organization o = new Organization();
+    o.setParentId(parentId);
+    o.setName(code);
+    o.setCode(code);
+    o.setType("dept");
+    o.setStatus(1);
+    orgService.save(o, false);
+    return o;
+  }
+}
@@ -0,0 +1,159 @@
+package org.example.chaoxingsystem.admin.org;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OrgTreeIndex 的原地增量更新：映射器以动态代理替代，只允许全量加载时访问
+ * 初始树：1（1024）下有 3（1024）、4（2048）；2（2048）为空
+ * 直属人数：3 有 10 名学生，4 有 2 名教师，2 有 5 名学生
+ */
+public class OrgTreeIndexTest {
+  private final List<Organization> rows = new ArrayList<>();
+  private final List<Map<String, Object>> counts = new ArrayList<>();
+  private OrgTreeIndex index;
+
+  @BeforeEach
+  void setUp() {
+    rows.add(org(1L, null, 1024));
+    rows.add(org(2L, null, 2048));
+    rows.add(org(3L, 1L, 1024));
+    rows.add(org(4L, 1L, 2048));
+    counts.add(Map.of("orgId", 3L, "students", 10, "teachers", 0));
+    counts.add(Map.of("orgId", 4L, "students", 0, "teachers", 2));
+    counts.add(Map.of("orgId", 2L, "students", 5, "teachers", 0));
+    index = new OrgTreeIndex(stubMapper(), new ObjectMapper(), 0);
+    index.afterPropertiesSet();
+  }
+
+  @Test
+  void upsertInsertsNewNodeBySortOrder() {
+    long version = index.version();
+    index.upsert(org(5L, 1L, 1536));
+    assertEquals(List.of(3L, 5L, 4L), ids(index.childrenOf(1L)));
+    assertEquals(version + 1, index.version());
+    assertEquals(true, index.childrenOf(null).get(0).get("hasChildren"));
+    assertEquals(false, index.childrenOf(null).get(1).get("hasChildren"));
+  }
+
+  @Test
+  void upsertWithNewParentMovesNode() {
+    index.upsert(org(3L, 2L, 1024));
+    assertEquals(List.of(4L), ids(index.childrenOf(1L)));
+    assertEquals(List.of(3L), ids(index.childrenOf(2L)));
+    assertEquals(2L, index.childrenOf(2L).get(0).get("parentId"));
+  }
+
+  @Test
+  void setSortOrdersResortsSiblings() {
+    index.setSortOrders(Map.of(3L, 4096));
+    assertEquals(List.of(4L, 3L), ids(index.childrenOf(1L)));
+  }
+
+  @Test
+  void removeDetachesNode() {
+    index.remove(4L);
+    assertEquals(List.of(3L), ids(index.childrenOf(1L)));
+    assertNull(index.childrenOf(4L));
+    // 槽位复用后新节点仍挂在正确位置
+    index.upsert(org(6L, 2L, 1024));
+    assertEquals(List.of(6L), ids(index.childrenOf(2L)));
+  }
+
+  @Test
+  void treeBytesCachedPerVersion() {
+    byte[] first = index.treeBytes();
+    assertSame(first, index.treeBytes());
+    index.upsert(org(5L, 2L, 1024));
+    byte[] second = index.treeBytes();
+    assertNotSame(first, second);
+    assertTrue(new String(second, StandardCharsets.UTF_8).contains("\"id\":5"));
+  }
+
+  @Test
+  void loadRollsUpSubtreeCounts() {
+    Map<String, Object> n1 = node(null, 1L);
+    assertEquals(0, n1.get("studentCount"));
+    assertEquals(10, n1.get("subtreeStudentCount"));
+    assertEquals(2, n1.get("subtreeTeacherCount"));
+    assertEquals(5, node(null, 2L).get("subtreeStudentCount"));
+  }
+
+  @Test
+  void adjustMembersAddsAlongAncestors() {
+    long version = index.version();
+    index.adjustMembers(3L, 3, 1);
+    assertEquals(13, node(1L, 3L).get("studentCount"));
+    assertEquals(1, node(1L, 3L).get("teacherCount"));
+    assertEquals(13, node(null, 1L).get("subtreeStudentCount"));
+    assertEquals(3, node(null, 1L).get("subtreeTeacherCount"));
+    assertEquals(5, node(null, 2L).get("subtreeStudentCount"));
+    assertEquals(version + 1, index.version());
+    // 未知机构与零增量忽略
+    index.adjustMembers(42L, 1, 1);
+    index.adjustMembers(3L, 0, 0);
+    assertEquals(version + 1, index.version());
+  }
+
+  @Test
+  void moveShiftsSubtreeCountsBetweenAncestors() {
+    index.upsert(org(5L, 3L, 1024));
+    index.adjustMembers(5L, 4, 0);
+    assertEquals(14, node(null, 1L).get("subtreeStudentCount"));
+
+    // 3（含子节点 5）移到 2 下：1 减去 14，2 加上 14
+    index.upsert(org(3L, 2L, 1024));
+    assertEquals(0, node(null, 1L).get("subtreeStudentCount"));
+    assertEquals(2, node(null, 1L).get("subtreeTeacherCount"));
+    assertEquals(19, node(null, 2L).get("subtreeStudentCount"));
+    assertEquals(14, node(2L, 3L).get("subtreeStudentCount"));
+  }
+
+  @Test
+  void removeSubtractsFromAncestors() {
+    index.remove(4L);
+    assertEquals(0, node(null, 1L).get("subtreeTeacherCount"));
+    assertEquals(10, node(null, 1L).get("subtreeStudentCount"));
+    // 复用的槽位不带旧人数
+    index.upsert(org(6L, 1L, 4096));
+    assertEquals(0, node(1L, 6L).get("subtreeTeacherCount"));
+    assertEquals(0, node(null, 1L).get("subtreeTeacherCount"));
+  }
+
+  private Map<String, Object> node(Long parentId, long id) {
+    return index.childrenOf(parentId).stream().filter(n -> n.get("id").equals(id)).findFirst().orElseThrow();
+  }
+
+  private static Organization org(Long id, Long parentId, int sortOrder) {
+    Organization o = new Organization();
+    o.setId(id);
+    o.setParentId(parentId);
+    o.setName("机构" + id);
+    o.setCode("ORG-" + id);
+    o.setType("dept");
+    o.setSortOrder(sortOrder);
+    return o;
+  }
+
+  private static List<Long> ids(List<Map<String, Object>> nodes) {
+    return nodes.stream().map(n -> (Long) n.get("id")).toList();
+  }
+
+  private OrganizationMapper stubMapper() {
+    return (OrganizationMapper) Proxy.newProxyInstance(OrganizationMapper.class.getClassLoader(),
+      new Class<?>[]{OrganizationMapper.class}, (proxy, method, args) -> switch (method.getName()) {
+        case "selectAll" -> new ArrayList<>(rows);
+        case "countDirectMembers" -> new ArrayList<>(counts);
+        default -> throw new UnsupportedOperationException(method.getName());
+      });
+  }
+}
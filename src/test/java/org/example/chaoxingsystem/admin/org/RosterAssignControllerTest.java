@@ -0,0 +1,113 @@
+package org.example.chaoxingsystem.admin.org;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** 名册批量分配：档案按班级写入（已有档案只改班级），逐行错误，常驻树的直属/子树人数按增量调整 */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RosterAssignControllerTest {
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private OrgService orgService;
+
+  @Autowired
+  private OrgTreeIndex treeIndex;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void rosterUpsertsProfilesAndAdjustsCounts() throws Exception {
+    register("roster_admin", "admin");
+    register("roster_s1", "student");
+    register("roster_s2", "student");
+    String bearer = login("roster_admin");
+
+    // 每次运行新建机构，学生从上次运行的班级移入本次的班级
+    String tag = Long.toString(System.nanoTime(), 36);
+    Organization dept = create("rd-" + tag, "dept", null);
+    Organization c1 = create("r1-" + tag, "class", dept.getId());
+    Organization c2 = create("r2-" + tag, "class", dept.getId());
+
+    String csv = "orgCode,username\n"
+      + c1.getCode() + ",roster_s1\n"
+      + c1.getCode() + ",roster_s2\n"
+      + "NO-SUCH-ORG,roster_s1\n"
+      + c1.getCode() + ",roster_admin\n";
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/org/members/roster")
+        .header("Authorization", bearer)
+        .contentType("text/csv")
+        .content(csv))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.total").value(4))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.succeeded").value(2))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.failed").value(2))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.errors[0].line").value(3))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.errors[0].message").value("机构不存在"))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.errors[1].message").value("仅能为班级分配学生"));
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/org/" + c1.getId() + "/members").header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(2));
+    assertEquals(2, node(dept.getId(), c1.getId()).get("studentCount"));
+    assertEquals(2, node(null, dept.getId()).get("subtreeStudentCount"));
+
+    // 已有档案只改班级：c1 减一、c2 加一，部门子树人数不变
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/org/members/roster")
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .content("{\"orgCode\":\"" + c2.getCode() + "\",\"username\":\"roster_s1\"}\n"))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.succeeded").value(1));
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/org/" + c2.getId() + "/members").header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(1));
+    assertEquals(1, node(dept.getId(), c1.getId()).get("studentCount"));
+    assertEquals(1, node(dept.getId(), c2.getId()).get("studentCount"));
+    assertEquals(2, node(null, dept.getId()).get("subtreeStudentCount"));
+  }
+
+  private Map<String, Object> node(Long parentId, Long id) {
+    return treeIndex.childrenOf(parentId).stream().filter(n -> n.get("id").equals(id)).findFirst().orElseThrow();
+  }
+
+  private Organization create(String code, String type, Long parentId) {
+    Organization o = new Organization();
+    o.setParentId(parentId);
+    o.setName(code);
+    o.setCode(code);
+    o.setType(type);
+    o.setStatus(1);
+    orgService.save(o, false);
+    return o;
+  }
+
+  private void register(String username, String userType) throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/register")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"username\":\"" + username + "\",\"password\":\"password123\",\"userType\":\"" + userType
+        + "\",\"email\":\"" + username + "@example.com\"}"));
+  }
+
+  private String login(String username) throws Exception {
+    MvcResult login = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"" + username + "\",\"password\":\"password123\"}"))
+      .andExpect(MockMvcResultMatchers.request().asyncStarted())
+      .andReturn();
+    String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login))
+      .andReturn().getResponse().getContentAsString();
+    return "Bearer " + objectMapper.readTree(body).path("data").path("token").asText();
+  }
+}
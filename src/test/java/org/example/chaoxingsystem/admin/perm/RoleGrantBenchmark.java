@@ -0,0 +1,91 @@
+package org.example.chaoxingsystem.admin.perm;
+
+import org.example.chaoxingsystem.config.FilterCache;
+import org.example.chaoxingsystem.config.PermissionRegistry;
+import org.example.chaoxingsystem.user.TokenRevocationList;
+import org.example.chaoxingsystem.user.TokenRevocationMapper;
+import org.example.chaoxingsystem.user.TokenService;
+import org.example.chaoxingsystem.user.UserIdentityCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 批量授权基准：为 userCount 个用户授予同一角色
+ * - perUser：原实现的逐用户“查询现有角色 + 删除 + 逐个插入”
+ * - setBased：RoleGrantService 按 chunk 的单条 INSERT IGNORE ... SELECT（含查询已持有者与批量吊销令牌各一条）
+ * 映射器以动态代理替代，每条语句休眠 dbLatencyMicros 模拟一次数据库往返
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RoleGrantBenchmark {
+  @Param({"10000"})
+  public int userCount;
+
+  @Param({"200"})
+  public long dbLatencyMicros;
+
+  private UserRoleMapper userRoleMapper;
+  private RoleGrantService service;
+  private List<Long> userIds;
+
+  @Setup
+  public void setup() {
+    userRoleMapper = stub(UserRoleMapper.class);
+    MenuRouteCache routeCache = new MenuRouteCache(null, null, userRoleMapper, null, 10000, 300);
+    service = new RoleGrantService(userRoleMapper, stub(MenuMapper.class),
+      new UserIdentityCache(10000, 300), routeCache,
+      new PermissionRegistry(stub(MenuMapper.class), stub(RoleMapper.class), userRoleMapper, 0),
+      new TokenRevocationList(stub(TokenRevocationMapper.class), new TokenService("bench-secret"), 10000, 0),
+      new FilterCache<>("unallocatedCounts", 1000, 60), 1000);
+    userIds = new ArrayList<>(userCount);
+    for (long i = 1; i <= userCount; i++) userIds.add(i);
+  }
+
+  @Benchmark
+  public int perUser() {
+    int statements = 0;
+    for (Long uid : userIds) {
+      Set<Long> merged = new HashSet<>(userRoleMapper.selectRoleIdsByUserId(uid));
+      merged.add(3L);
+      userRoleMapper.deleteUserRoles(uid, new ArrayList<>(merged));
+      statements += 2;
+      for (Long rid : merged) {
+        userRoleMapper.insertUserRoles(uid, List.of(rid));
+        statements++;
+      }
+    }
+    return statements;
+  }
+
+  @Benchmark
+  public int setBased() {
+    return service.grantUsers(3L, userIds);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T stub(Class<T> type) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+      if (method.getDeclaringClass() == Object.class) return method.invoke(this, args);
+      LockSupport.parkNanos(dbLatencyMicros * 1000L);
+      if (method.getReturnType() == List.class) return "selectRoleIdsByUserId".equals(method.getName()) ? List.of(1L) : List.of();
+      return method.getReturnType() == int.class ? 1 : null;
+    });
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(RoleGrantBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,73 @@
+package org.example.chaoxingsystem.admin.perm;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 未分配用户查询的执行计划回归：反连接走主键等值查找，users 按主键范围扫描，不出现相关子查询 */
+@SpringBootTest
+public class UnallocatedUsersExplainTest {
+  private static final String STATEMENT = "org.example.chaoxingsystem.admin.perm.UserRoleMapper.selectUnallocatedUsersByRole";
+
+  @Autowired
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Test
+  void keysetPageUsesAntiJoinAndPrimaryKeyRange() throws Exception {
+    Map<String, Object> params = new HashMap<>();
+    params.put("roleId", 1L);
+    params.put("username", null);
+    params.put("realName", null);
+    params.put("orgId", null);
+    params.put("afterId", 100L);
+    params.put("offset", 0);
+    params.put("limit", 20);
+    List<Map<String, String>> plan = explain(params);
+
+    assertFalse(plan.stream().anyMatch(r -> "DEPENDENT SUBQUERY".equals(r.get("select_type"))), plan.toString());
+    assertTrue(plan.stream().filter(r -> "ur".equals(r.get("table")))
+      .allMatch(r -> "eq_ref".equals(r.get("type")) || "ref".equals(r.get("type"))), plan.toString());
+    assertTrue(plan.stream().filter(r -> "u".equals(r.get("table")))
+      .allMatch(r -> "PRIMARY".equals(r.get("key"))), plan.toString());
+  }
+
+  private List<Map<String, String>> explain(Map<String, Object> params) throws Exception {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(STATEMENT);
+    BoundSql bound = ms.getBoundSql(params);
+    List<Map<String, String>> rows = new ArrayList<>();
+    try (Connection c = dataSource.getConnection();
+         PreparedStatement ps = c.prepareStatement("EXPLAIN " + bound.getSql())) {
+      new DefaultParameterHandler(ms, params, bound).setParameters(ps);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          Map<String, String> row = new HashMap<>();
+          row.put("select_type", rs.getString("select_type"));
+          row.put("table", rs.getString("table"));
+          row.put("type", rs.getString("type"));
+          row.put("key", rs.getString("key"));
+          rows.add(row);
+        }
+      }
+    }
+    return rows;
+  }
+}
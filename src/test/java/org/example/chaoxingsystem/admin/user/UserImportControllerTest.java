@@ -0,0 +1,64 @@
+package org.example.chaoxingsystem.admin.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+/** 批量导入：逐行错误与成功计数 */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class UserImportControllerTest {
+  @Autowired
+  private MockMvc mockMvc;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void importCsvReportsRowErrors() throws Exception {
+    String registerJson = "{\"username\":\"import_admin\",\"password\":\"password123\",\"userType\":\"admin\",\"email\":\"import_admin@example.com\"}";
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/register")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(registerJson));
+    MvcResult login = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"import_admin\",\"password\":\"password123\"}"))
+      .andExpect(MockMvcResultMatchers.request().asyncStarted())
+      .andReturn();
+    String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login))
+      .andReturn().getResponse().getContentAsString();
+    String bearer = "Bearer " + objectMapper.readTree(body).path("data").path("token").asText();
+
+    String csv = "username,email,password,userType,realName\n"
+      + "import_s1,import_s1@example.com,password123,student,导入学生一\n"
+      + "import_s2,import_s2@example.com,password123,student,导入学生二\n"
+      + "IMPORT_S1,import_s3@example.com,password123,student,重复用户名\n"
+      + "import_s4,not-an-email,password123,student,邮箱错误\n"
+      + "import_admin,import_s5@example.com,password123,student,库中已存在\n";
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/users/import")
+        .header("Authorization", bearer)
+        .param("batchSize", "2")
+        .contentType("text/csv")
+        .content(csv))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.total").value(5))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.succeeded").value(2))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.failed").value(3))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.errors[0].line").value(3))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.errors[0].message").value("文件内用户名重复"));
+
+    MvcResult s1 = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"import_s1\",\"password\":\"password123\"}"))
+      .andReturn();
+    mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(s1))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.userInfo.userType").value("student"));
+  }
+}
@@ -0,0 +1,59 @@
+package org.example.chaoxingsystem.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** 按筛选条件的结果缓存：命中、过期、容量清空、加载期间失效不回填 */
+public class FilterCacheTest {
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void hitsUntilInvalidated() {
+    FilterCache<Key, Long> cache = new FilterCache<>("test", 10, 60);
+    assertEquals(1L, cache.get(new Key("a", 1), this::load));
+    assertEquals(1L, cache.get(new Key("a", 1), this::load));
+    assertEquals(2L, cache.get(new Key("a", 2), this::load));
+    cache.invalidateAll();
+    assertEquals(3L, cache.get(new Key("a", 1), this::load));
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void zeroTtlAlwaysReloads() {
+    FilterCache<Key, Long> cache = new FilterCache<>("test", 10, 0);
+    cache.get(new Key("a", 1), this::load);
+    cache.get(new Key("a", 1), this::load);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void clearsWhenFull() {
+    FilterCache<Key, Long> cache = new FilterCache<>("test", 2, 60);
+    cache.get(new Key("a", 1), this::load);
+    cache.get(new Key("a", 2), this::load);
+    cache.get(new Key("a", 3), this::load);
+    cache.get(new Key("a", 3), this::load);
+    assertEquals(3, loads.get());
+    cache.get(new Key("a", 1), this::load);
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void invalidationDuringLoadSkipsBackfill() {
+    FilterCache<Key, Long> cache = new FilterCache<>("test", 10, 60);
+    assertEquals(1L, cache.get(new Key("a", 1), () -> {
+      cache.invalidateAll();
+      return load();
+    }));
+    assertEquals(2L, cache.get(new Key("a", 1), this::load));
+  }
+
+  private Long load() {
+    return (long) loads.incrementAndGet();
+  }
+
+  private record Key(String name, int n) {}
+}
@@ -0,0 +1,78 @@
+package org.example.chaoxingsystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.admin.perm.Role;
+import org.example.chaoxingsystem.admin.perm.RoleGrantService;
+import org.example.chaoxingsystem.admin.perm.RoleMapper;
+import org.example.chaoxingsystem.user.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+/** 验证 @RequirePerm：角色持有 paper:view 时放行，角色变更为不含该权限的角色后返回 403 */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RequirePermTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private UserMapper userMapper;
+
+  @Autowired
+  private RoleMapper roleMapper;
+
+  @Autowired
+  private RoleGrantService roleGrantService;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void paperListRequiresPaperViewPerm() throws Exception {
+    String registerJson = "{\"username\":\"perm_teacher\",\"password\":\"password123\",\"userType\":\"teacher\",\"email\":\"perm_teacher@example.com\"}";
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/register")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(registerJson));
+
+    Long userId = userMapper.selectByUsername("perm_teacher").getId();
+
+    // 教师角色经 sys_role_menu 持有 paper:view
+    roleGrantService.replaceUserRoles(userId, List.of(roleId("TEACHER")));
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/papers").header("Authorization", login()))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(200));
+
+    // 改为监考角色（未分配菜单）：角色变更吊销旧令牌，重新登录后被拦截
+    roleGrantService.replaceUserRoles(userId, List.of(roleId("MONITOR")));
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/papers").header("Authorization", login()))
+      .andExpect(MockMvcResultMatchers.status().isForbidden())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(403))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("没有操作权限"));
+  }
+
+  private Long roleId(String roleKey) {
+    return roleMapper.selectAll().stream()
+      .filter(r -> roleKey.equals(r.getRoleKey())).map(Role::getId).findFirst().orElseThrow();
+  }
+
+  private String login() throws Exception {
+    MvcResult login = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"perm_teacher\",\"password\":\"password123\"}"))
+      .andExpect(MockMvcResultMatchers.request().asyncStarted())
+      .andReturn();
+    String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    return "Bearer " + objectMapper.readTree(body).path("data").path("token").asText();
+  }
+}
@@ -0,0 +1,131 @@
+package org.example.chaoxingsystem.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** 验证控制器从令牌主体获取身份后，不再按用户名回查 users 表 */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LoginUserQueryCountTest {
+  private static final String SELECT_BY_USERNAME = "org.example.chaoxingsystem.user.UserMapper.selectByUsername";
+  private static final String SELECT_BY_ID = "org.example.chaoxingsystem.user.UserMapper.selectById";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private QueryCounter queryCounter;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void controllersResolveIdentityWithoutUserQueries() throws Exception {
+    String registerJson = "{\"username\":\"qc_teacher\",\"password\":\"password123\",\"userType\":\"teacher\",\"email\":\"qc_teacher@example.com\"}";
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/register")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(registerJson));
+    String loginJson = "{\"username\":\"qc_teacher\",\"password\":\"password123\"}";
+    MvcResult login = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(loginJson))
+      .andExpect(MockMvcResultMatchers.request().asyncStarted())
+      .andReturn();
+    String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    JsonNode root = objectMapper.readTree(body);
+    String bearer = "Bearer " + root.path("data").path("token").asText();
+
+    queryCounter.reset();
+    String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/system/menu/routes").header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andReturn().getResponse().getHeader("ETag");
+    assertEquals(0, queryCounter.count(SELECT_BY_USERNAME));
+    assertEquals(0, queryCounter.count(SELECT_BY_ID));
+
+    // 路由树按角色集合缓存：再次请求不访问数据库，ETag 未变时返回 304
+    queryCounter.reset();
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/system/menu/routes").header("Authorization", bearer)
+        .header("If-None-Match", etag))
+      .andExpect(MockMvcResultMatchers.status().isNotModified());
+    assertEquals(0, queryCounter.total());
+    // 代理改写出的弱标签与标签列表同样命中
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/system/menu/routes").header("Authorization", bearer)
+        .header("If-None-Match", "\"stale\", W/" + etag))
+      .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+    queryCounter.reset();
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/common/profile").header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.username").value("qc_teacher"))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.role").value("teacher"));
+    // 登录成功时已回填身份缓存，资料查询不再访问 users 表
+    assertEquals(0, queryCounter.count(SELECT_BY_USERNAME));
+    assertEquals(0, queryCounter.count(SELECT_BY_ID));
+  }
+
+  @TestConfiguration
+  static class QueryCounterConfig {
+    @Bean
+    QueryCounter queryCounter() {
+      return new QueryCounter();
+    }
+  }
+
+  /** MyBatis 插件：按 MappedStatement ID 统计执行次数 */
+  @Intercepts({
+    @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+  })
+  static class QueryCounter implements Interceptor {
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+      counts.computeIfAbsent(ms.getId(), k -> new AtomicInteger()).incrementAndGet();
+      return invocation.proceed();
+    }
+
+    int count(String statementId) {
+      AtomicInteger c = counts.get(statementId);
+      return c == null ? 0 : c.get();
+    }
+
+    int total() {
+      return counts.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    void reset() {
+      counts.clear();
+    }
+  }
+}
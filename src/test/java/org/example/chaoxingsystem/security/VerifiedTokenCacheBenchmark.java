@@ -0,0 +1,64 @@
+package org.example.chaoxingsystem.security;
+
+import org.example.chaoxingsystem.user.TokenService;
+import org.example.chaoxingsystem.user.TokenService.TokenData;
+import org.example.chaoxingsystem.user.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌认证基准：对比每次完整验签解析与命中已验签缓存两条路径的吞吐
+ * 运行：mvn test-compile 后在 IDE 中执行 main，或
+ * java -cp target/test-classes:target/classes:<依赖> org.openjdk.jmh.Main VerifiedTokenCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifiedTokenCacheBenchmark {
+  private TokenService tokenService;
+  private VerifiedTokenCache cache;
+  private String token;
+
+  @Setup
+  public void setup() {
+    tokenService = new TokenService("bench-secret");
+    cache = new VerifiedTokenCache(10000, 43200);
+    User user = new User();
+    user.setId(1001L);
+    user.setUsername("student1");
+    user.setUserType("student");
+    token = tokenService.generateToken(user);
+    TokenData data = tokenService.parseAndValidate(token);
+    cache.put(token, data, toAuthentication(data));
+  }
+
+  @Benchmark
+  public Authentication uncached() {
+    return toAuthentication(tokenService.parseAndValidate(token));
+  }
+
+  @Benchmark
+  public Authentication cached() {
+    VerifiedTokenCache.Entry e = cache.get(token);
+    return e != null ? e.authentication() : toAuthentication(tokenService.parseAndValidate(token));
+  }
+
+  private static Authentication toAuthentication(TokenData data) {
+    String role = "ROLE_" + data.getUserType().toUpperCase();
+    return new UsernamePasswordAuthenticationToken(data.getUsername(), null, List.of(new SimpleGrantedAuthority(role)));
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(VerifiedTokenCacheBenchmark.class.getSimpleName()).build()).run();
+  }
+}
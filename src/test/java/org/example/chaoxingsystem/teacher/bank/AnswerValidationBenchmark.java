@@ -0,0 +1,93 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 答案校验基准：每次调用校验 batch 条随机答案（对应一批导入或批量编辑）
+ * - serializeAndReadTree：原路径——控制器把绑定对象序列化成字符串，服务端再 readTree 构建整棵 JsonNode 树
+ * - streamingJson：预编译校验器流式校验 JSON 文本（导入路径）
+ * - boundObject：预编译校验器直接校验请求绑定对象（创建/更新路径）
+ * 后两者还校验了选项键、数量与重复，原路径只检查 JSON 是否可解析
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AnswerValidationBenchmark {
+  private static final String[] KEYS = {"A", "B", "C", "D", "E", "F"};
+
+  @Param({"SINGLE", "MULTI", "FILL"})
+  public String typeCode;
+
+  @Param({"1000"})
+  public int batch;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final List<Object> answers = new ArrayList<>();
+  private final List<String> answerJson = new ArrayList<>();
+  private final Set<String> optionKeys = Set.of(KEYS);
+  private QuestionAnswerValidators.Validator validator;
+
+  @Setup
+  public void setup() throws Exception {
+    Random random = new Random(42);
+    for (int i = 0; i < batch; i++) {
+      Object answer = switch (typeCode) {
+        case "SINGLE" -> List.of(KEYS[random.nextInt(KEYS.length)]);
+        case "MULTI" -> {
+          List<String> keys = new ArrayList<>(List.of(KEYS));
+          Collections.shuffle(keys, random);
+          yield new ArrayList<>(keys.subList(0, 2 + random.nextInt(3)));
+        }
+        default -> {
+          List<String> blanks = new ArrayList<>();
+          int n = 1 + random.nextInt(4);
+          for (int b = 0; b < n; b++) blanks.add("答案" + random.nextInt(1000));
+          yield blanks;
+        }
+      };
+      answers.add(answer);
+      answerJson.add(objectMapper.writeValueAsString(answer));
+    }
+    QuestionType type = new QuestionType();
+    type.setTypeId(1);
+    type.setTypeCode(typeCode);
+    type.setConfigJson("{\"max_option\":6,\"requires_file_id\":false}");
+    validator = new QuestionAnswerValidators().forType(type);
+  }
+
+  @Benchmark
+  public int serializeAndReadTree() throws Exception {
+    int ok = 0;
+    for (Object answer : answers) {
+      if (objectMapper.readTree(objectMapper.writeValueAsString(answer)) != null) ok++;
+    }
+    return ok;
+  }
+
+  @Benchmark
+  public int streamingJson() {
+    int ok = 0;
+    for (String json : answerJson) if (validator.checkJson(json, optionKeys, null) == null) ok++;
+    return ok;
+  }
+
+  @Benchmark
+  public int boundObject() {
+    int ok = 0;
+    for (Object answer : answers) if (validator.check(answer, optionKeys, null) == null) ok++;
+    return ok;
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(AnswerValidationBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,155 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 测试与基准用的内存题库：按 QuestionMapper.xml 的筛选语义过滤
+ * - LIKE 按 QuestionTextIndex.fold 折叠后做子串匹配（近似 utf8mb4_unicode_ci），每行每次查询都重新折叠，与数据库逐行按排序规则比较相当
+ * - 每次调用休眠 latencyMicros 模拟一次数据库往返；calls 记录各方法的调用次数
+ * - rows 按 ID 升序追加，create_time 随 ID 递增
+ */
+class InMemoryQuestionMapper implements QuestionMapper {
+  final List<Question> rows = new ArrayList<>();
+  final Map<String, AtomicInteger> calls = new HashMap<>();
+  long latencyMicros;
+
+  Question add(long id, String content, Integer typeId, Integer difficulty, String subject) {
+    Question q = new Question();
+    q.setId(id);
+    q.setContent(content);
+    q.setTypeId(typeId);
+    q.setDifficulty(difficulty);
+    q.setSubject(subject);
+    q.setCreateTime(Instant.ofEpochSecond(1_700_000_000L + id));
+    rows.add(q);
+    return q;
+  }
+
+  int calls(String method) {
+    AtomicInteger n = calls.get(method);
+    return n == null ? 0 : n.get();
+  }
+
+  private void roundTrip(String method) {
+    calls.computeIfAbsent(method, m -> new AtomicInteger()).incrementAndGet();
+    if (latencyMicros > 0) LockSupport.parkNanos(latencyMicros * 1000L);
+  }
+
+  private static boolean matches(Question q, Integer typeId, String keyword, Integer difficulty, String subject) {
+    if (typeId != null && !typeId.equals(q.getTypeId())) return false;
+    if (difficulty != null && !difficulty.equals(q.getDifficulty())) return false;
+    if (subject != null && !subject.isEmpty() && !subject.equals(q.getSubject())) return false;
+    return keyword == null || keyword.isEmpty() || QuestionTextIndex.fold(q.getContent()).contains(QuestionTextIndex.fold(keyword));
+  }
+
+  @Override
+  public long count(Integer typeId, String keyword, Integer difficulty, String subject) {
+    roundTrip("count");
+    long n = 0;
+    for (Question q : rows) if (matches(q, typeId, keyword, difficulty, subject)) n++;
+    return n;
+  }
+
+  @Override
+  public List<Question> selectPage(Integer typeId, String keyword, Integer difficulty, String subject, Instant afterTime, Long afterId, int offset, int limit) {
+    roundTrip("selectPage");
+    boolean seek = afterTime != null && afterId != null;
+    List<Question> out = new ArrayList<>();
+    int skipped = 0;
+    for (int i = rows.size() - 1; i >= 0 && out.size() < limit; i--) {
+      Question q = rows.get(i);
+      if (seek && q.getId() >= afterId) continue;
+      if (!matches(q, typeId, keyword, difficulty, subject)) continue;
+      if (!seek && skipped++ < offset) continue;
+      out.add(q);
+    }
+    return out;
+  }
+
+  @Override
+  public List<Question> selectByIds(Collection<Long> ids) {
+    roundTrip("selectByIds");
+    List<Question> out = new ArrayList<>();
+    for (Long id : ids) {
+      Question q = find(id);
+      if (q != null) out.add(q);
+    }
+    return out;
+  }
+
+  @Override
+  public List<Long> selectMatchingIds(Collection<Long> ids, Integer typeId, String keyword, Integer difficulty, String subject) {
+    roundTrip("selectMatchingIds");
+    List<Long> out = new ArrayList<>();
+    for (Long id : ids) {
+      Question q = find(id);
+      if (q != null && matches(q, typeId, keyword, difficulty, subject)) out.add(id);
+    }
+    return out;
+  }
+
+  @Override
+  public List<Long> selectMatchingIdsAfter(long afterId, Integer typeId, String keyword, Integer difficulty, String subject) {
+    roundTrip("selectMatchingIdsAfter");
+    List<Long> out = new ArrayList<>();
+    for (int i = rows.size() - 1; i >= 0 && rows.get(i).getId() > afterId; i--) {
+      if (matches(rows.get(i), typeId, keyword, difficulty, subject)) out.add(rows.get(i).getId());
+    }
+    return out;
+  }
+
+  @Override
+  public List<Question> selectContentAfterId(long afterId, int limit) {
+    roundTrip("selectContentAfterId");
+    return rows.stream().filter(q -> q.getId() > afterId).limit(limit).toList();
+  }
+
+  @Override
+  public Question selectById(Long id) {
+    roundTrip("selectById");
+    return find(id);
+  }
+
+  @Override
+  public int deleteById(Long id) {
+    roundTrip("deleteById");
+    return rows.removeIf(q -> q.getId().equals(id)) ? 1 : 0;
+  }
+
+  /** 行按 ID 升序，二分查找 */
+  private Question find(long id) {
+    int lo = 0;
+    int hi = rows.size() - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long midId = rows.get(mid).getId();
+      if (midId == id) return rows.get(mid);
+      if (midId < id) lo = mid + 1;
+      else hi = mid - 1;
+    }
+    return null;
+  }
+
+  @Override
+  public int insert(Question q) {
+    throw new UnsupportedOperationException("insert");
+  }
+
+  @Override
+  public int insertBatch(List<Question> questions) {
+    throw new UnsupportedOperationException("insertBatch");
+  }
+
+  @Override
+  public int updateById(Question q) {
+    throw new UnsupportedOperationException("updateById");
+  }
+
+  @Override
+  public List<Question> selectByTypeSubjectDifficultyLimit(Integer typeId, String subject, Integer difficulty, int limit) {
+    throw new UnsupportedOperationException("selectByTypeSubjectDifficultyLimit");
+  }
+}
@@ -0,0 +1,149 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** 按题型的答案校验：每条规则分别经绑定对象（check）与 JSON 文本（checkJson）两条路径验证 */
+public class QuestionAnswerValidatorsTest {
+  private static final Set<String> ABCD = Set.of("A", "B", "C", "D");
+
+  private final QuestionAnswerValidators validators = new QuestionAnswerValidators();
+
+  @Test
+  void singleChoice() {
+    QuestionAnswerValidators.Validator v = validator(1, "SINGLE", "{\"max_option\":4}");
+    assertNull(v.check(List.of("B"), ABCD, null));
+    assertNull(v.checkJson("[\"B\"]", ABCD, null));
+    assertNull(v.check("B", ABCD, null));
+    assertNull(v.checkJson("\"B\"", ABCD, null));
+    assertEquals("答案选项不存在：E", v.check(List.of("E"), ABCD, null));
+    assertEquals("答案选项不存在：E", v.checkJson("[\"E\"]", ABCD, null));
+    assertEquals("单选题只能有一个答案", v.check(List.of("A", "B"), ABCD, null));
+    assertEquals("单选题只能有一个答案", v.checkJson("[\"A\",\"B\"]", ABCD, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.check(List.of(), ABCD, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.checkJson("[]", ABCD, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.check(true, ABCD, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("true", ABCD, null));
+  }
+
+  @Test
+  void multiChoice() {
+    QuestionAnswerValidators.Validator v = validator(2, "MULTI", "{\"max_option\":6}");
+    assertNull(v.check(List.of("A", "C"), ABCD, null));
+    assertNull(v.checkJson("[\"A\",\"C\"]", ABCD, null));
+    assertEquals("答案选项重复", v.check(List.of("A", "A"), ABCD, null));
+    assertEquals("答案选项重复", v.checkJson("[\"A\",\"A\"]", ABCD, null));
+    // 绑定对象先比较数量，流式逐个读取时先遇到重复；两条路径都拒绝
+    Set<String> ab = Set.of("A", "B");
+    assertEquals("答案数量超过选项数", v.check(List.of("A", "B", "A"), ab, null));
+    assertEquals("答案选项重复", v.checkJson("[\"A\",\"B\",\"A\"]", ab, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.check("A", ABCD, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("\"A\"", ABCD, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.check(List.of(1), ABCD, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("[1]", ABCD, null));
+  }
+
+  @Test
+  void choiceWithoutOptionsUsesMaxOption() {
+    QuestionAnswerValidators.Validator v = validator(3, "SINGLE", "{\"max_option\":3}");
+    assertNull(v.check(List.of("C"), null, null));
+    assertNull(v.checkJson("[\"C\"]", null, null));
+    assertEquals("答案选项不存在：D", v.check(List.of("D"), null, null));
+    assertEquals("答案选项不存在：D", v.checkJson("[\"D\"]", null, null));
+  }
+
+  @Test
+  void trueFalse() {
+    QuestionAnswerValidators.Validator v = validator(4, "TRUE_FALSE", null);
+    assertNull(v.check(Boolean.TRUE, null, null));
+    assertNull(v.checkJson("false", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.check("true", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("\"true\"", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.check(List.of("B"), null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("[\"B\"]", null, null));
+  }
+
+  @Test
+  void fill() {
+    QuestionAnswerValidators.Validator v = validator(5, "FILL", null);
+    assertNull(v.check(List.of("空1", "空2"), null, null));
+    assertNull(v.checkJson("[\"空1\",\"空2\"]", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.check("空1", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("\"空1\"", null, null));
+    assertEquals("填空答案不能为空", v.check(List.of("空1", " "), null, null));
+    assertEquals("填空答案不能为空", v.checkJson("[\"空1\",\" \"]", null, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.check(List.of(), null, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.checkJson("[]", null, null));
+  }
+
+  @Test
+  void shortAnswer() {
+    QuestionAnswerValidators.Validator v = validator(6, "SHORT", null);
+    assertNull(v.check("参考答案", null, null));
+    assertNull(v.checkJson("\"参考答案\"", null, null));
+    assertNull(v.check(Map.of("language", "java", "code", "x"), null, null));
+    assertNull(v.checkJson("{\"language\":\"java\",\"code\":{\"a\":[1]}}", null, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.check(" ", null, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.checkJson("\" \"", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.check(List.of("a"), null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("[\"a\"]", null, null));
+  }
+
+  @Test
+  void unknownTypeOnlyRequiresJson() {
+    QuestionAnswerValidators.Validator v = validator(7, "MATCHING", null);
+    assertNull(v.check(List.of(1, 2), null, null));
+    assertNull(v.checkJson("{\"a\":[1,2]}", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("{\"a\":", null, null));
+    assertEquals(QuestionAnswerValidators.MALFORMED, v.checkJson("1 2", null, null));
+  }
+
+  @Test
+  void emptyAnswer() {
+    QuestionAnswerValidators.Validator v = validator(8, "SHORT", null);
+    assertEquals(QuestionAnswerValidators.EMPTY, v.check(null, null, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.checkJson(null, null, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.checkJson(" ", null, null));
+    assertEquals(QuestionAnswerValidators.EMPTY, v.checkJson("null", null, null));
+  }
+
+  @Test
+  void requiresFile() {
+    QuestionAnswerValidators.Validator v = validator(9, "PROGRAM", "{\"requires_file_id\":true}");
+    assertEquals("该题型需要上传附件", v.check("代码", null, null));
+    assertEquals("该题型需要上传附件", v.checkJson("\"代码\"", null, " "));
+    assertNull(v.check("代码", null, "f1"));
+    assertNull(v.checkJson("\"代码\"", null, "f1"));
+  }
+
+  @Test
+  void recompilesWhenConfigChanges() {
+    QuestionAnswerValidators.Validator first = validator(10, "SINGLE", "{\"max_option\":2}");
+    assertSame(first, validator(10, "SINGLE", "{\"max_option\":2}"));
+    QuestionAnswerValidators.Validator second = validator(10, "SINGLE", "{\"max_option\":4}");
+    assertNotSame(first, second);
+    assertNull(second.check(List.of("D"), null, null));
+  }
+
+  @Test
+  void optionKeys() throws Exception {
+    assertEquals(Set.of("A", "B"), validators.optionKeys("[{\"key\":\"A\",\"value\":\"1\"},{\"value\":\"2\",\"key\":\"B\"}]"));
+    assertNull(validators.optionKeys((String) null));
+    assertNull(validators.optionKeys("null"));
+    assertThrows(java.io.IOException.class, () -> validators.optionKeys("{\"key\":\"A\"}"));
+    assertThrows(java.io.IOException.class, () -> validators.optionKeys("[\"A\"]"));
+  }
+
+  private QuestionAnswerValidators.Validator validator(int typeId, String code, String config) {
+    QuestionType type = new QuestionType();
+    type.setTypeId(typeId);
+    type.setTypeCode(code);
+    type.setConfigJson(config);
+    return validators.forType(type);
+  }
+}
@@ -0,0 +1,122 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.admin.perm.Role;
+import org.example.chaoxingsystem.admin.perm.RoleGrantService;
+import org.example.chaoxingsystem.admin.perm.RoleMapper;
+import org.example.chaoxingsystem.user.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+/** 创建/更新题目时按题型校验答案：不合法的答案返回 400，改题型未重交答案时校验已存答案 */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QuestionBankControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private UserMapper userMapper;
+
+  @Autowired
+  private RoleMapper roleMapper;
+
+  @Autowired
+  private RoleGrantService roleGrantService;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void createAndUpdateRejectInvalidAnswers() throws Exception {
+    String bearer = teacher("bank_teacher");
+    String options = "[{\"key\":\"A\",\"value\":\"1\"},{\"key\":\"B\",\"value\":\"2\"}]";
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/questions")
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"typeCode\":\"SINGLE\",\"content\":\"1+1=?\",\"options\":" + options + ",\"answer\":[\"C\"],\"difficulty\":1,\"subject\":\"数学\"}"))
+      .andExpect(MockMvcResultMatchers.status().isBadRequest())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(400))
+      .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("答案选项不存在：C"));
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/questions")
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"typeCode\":\"FILL\",\"content\":\"填空\",\"answer\":\"空1\",\"difficulty\":1,\"subject\":\"数学\"}"))
+      .andExpect(MockMvcResultMatchers.status().isBadRequest())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("答案结构不合法"));
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/questions")
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"typeCode\":\"SINGLE\",\"content\":\"1+1=?\",\"options\":" + options + ",\"answer\":[\"B\"],\"difficulty\":6,\"subject\":\"数学\"}"))
+      .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+    String created = mockMvc.perform(MockMvcRequestBuilders.post("/api/questions")
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"typeCode\":\"single\",\"content\":\"1+1=?\",\"options\":" + options + ",\"answer\":[\"B\"],\"difficulty\":1,\"subject\":\"数学\"}"))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    long id = objectMapper.readTree(created).path("data").path("id").asLong();
+
+    mockMvc.perform(MockMvcRequestBuilders.put("/api/questions/" + id)
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"answer\":[\"A\",\"B\"]}"))
+      .andExpect(MockMvcResultMatchers.status().isBadRequest())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("单选题只能有一个答案"));
+
+    // 改为判断题而未重交答案：已存的 ["B"] 不再合法
+    mockMvc.perform(MockMvcRequestBuilders.put("/api/questions/" + id)
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"typeCode\":\"TRUE_FALSE\"}"))
+      .andExpect(MockMvcResultMatchers.status().isBadRequest())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(400));
+
+    // 替换选项后已存答案的键不存在
+    mockMvc.perform(MockMvcRequestBuilders.put("/api/questions/" + id)
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"options\":[{\"key\":\"A\",\"value\":\"2\"}]}"))
+      .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+    mockMvc.perform(MockMvcRequestBuilders.put("/api/questions/" + id)
+        .header("Authorization", bearer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"typeCode\":\"TRUE_FALSE\",\"answer\":true}"))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(200));
+  }
+
+  /** 注册教师并授予 TEACHER 角色（持有 bank:view），返回 Authorization 头 */
+  private String teacher(String username) throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/register")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"username\":\"" + username + "\",\"password\":\"password123\",\"userType\":\"teacher\",\"email\":\"" + username + "@example.com\"}"));
+    Long userId = userMapper.selectByUsername(username).getId();
+    Long roleId = roleMapper.selectAll().stream()
+      .filter(r -> "TEACHER".equals(r.getRoleKey())).map(Role::getId).findFirst().orElseThrow();
+    roleGrantService.replaceUserRoles(userId, List.of(roleId));
+    MvcResult login = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"" + username + "\",\"password\":\"password123\"}"))
+      .andExpect(MockMvcResultMatchers.request().asyncStarted())
+      .andReturn();
+    String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    return "Bearer " + objectMapper.readTree(body).path("data").path("token").asText();
+  }
+}
@@ -0,0 +1,43 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** 分页游标的编码与解析 */
+public class QuestionCursorTest {
+
+  @Test
+  void seekRoundTrip() {
+    Instant t = Instant.ofEpochMilli(1_700_000_000_123L);
+    String s = QuestionService.Cursor.seek(t, 42L);
+    assertEquals("t1700000000123_42", s);
+    QuestionService.Cursor c = QuestionService.Cursor.parse(s);
+    assertEquals(t, c.time());
+    assertEquals(42L, c.id());
+    assertNull(c.rank());
+  }
+
+  @Test
+  void rankRoundTrip() {
+    QuestionService.Cursor c = QuestionService.Cursor.parse(QuestionService.Cursor.rank(20));
+    assertEquals(20, c.rank());
+    assertNull(c.time());
+    assertNull(c.id());
+    assertEquals(0, QuestionService.Cursor.parse("r-5").rank());
+  }
+
+  @Test
+  void malformedCursorIsIgnored() {
+    assertNull(QuestionService.Cursor.parse(null));
+    assertNull(QuestionService.Cursor.parse(""));
+    assertNull(QuestionService.Cursor.parse("t"));
+    assertNull(QuestionService.Cursor.parse("t123"));
+    assertNull(QuestionService.Cursor.parse("tabc_1"));
+    assertNull(QuestionService.Cursor.parse("t123_x"));
+    assertNull(QuestionService.Cursor.parse("rx"));
+    assertNull(QuestionService.Cursor.parse("x123_1"));
+  }
+}
@@ -0,0 +1,148 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.admin.perm.Role;
+import org.example.chaoxingsystem.admin.perm.RoleGrantService;
+import org.example.chaoxingsystem.admin.perm.RoleMapper;
+import org.example.chaoxingsystem.user.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** 题目批量导入：提交后轮询进度，逐行错误与成功计数；其他用户查询任务返回 404 */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QuestionImportControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private UserMapper userMapper;
+
+  @Autowired
+  private RoleMapper roleMapper;
+
+  @Autowired
+  private RoleGrantService roleGrantService;
+
+  @Autowired
+  private QuestionMapper questionMapper;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void importCsvReportsRowErrors() throws Exception {
+    String bearer = teacher("qimport_teacher");
+    String subject = "导入CSV" + System.nanoTime() % 100000;
+    String csv = "typeCode,content,answer,difficulty,subject,options\n"
+      + "SINGLE,1+1=?,\"[\"\"B\"\"]\",1," + subject + ",\"[{\"\"key\"\":\"\"A\"\",\"\"value\"\":\"\"1\"\"},{\"\"key\"\":\"\"B\"\",\"\"value\"\":\"\"2\"\"}]\"\n"
+      + "SHORT,简述事务的特性,原子性与持久性,2," + subject + "\n"
+      + "SINGLE,选项外的答案,\"[\"\"C\"\"]\",1," + subject + ",\"[{\"\"key\"\":\"\"A\"\",\"\"value\"\":\"\"1\"\"}]\"\n"
+      + "NOPE,未知题型,x,1," + subject + "\n";
+    String jobId = submit(bearer, new MockMultipartFile("file", "questions.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)));
+
+    JsonNode job = await(bearer, jobId);
+    assertEquals("done", job.path("status").asText());
+    assertEquals(4, job.path("total").asInt());
+    assertEquals(2, job.path("succeeded").asInt());
+    assertEquals(2, job.path("failed").asInt());
+    assertEquals(3, job.path("errors").path(0).path("line").asInt());
+    assertEquals("答案选项不存在：C", job.path("errors").path(0).path("message").asText());
+    assertEquals("题型无效或未启用", job.path("errors").path(1).path("message").asText());
+
+    List<Question> rows = questionMapper.selectPage(null, null, null, subject, null, null, 0, 10);
+    assertEquals(2, rows.size());
+    // 不是合法 JSON 的答案按字符串入库
+    assertTrue(rows.stream().anyMatch(q -> "\"原子性与持久性\"".equals(q.getAnswer())));
+
+    // 任务只对提交者可见
+    String other = teacher("qimport_other");
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/questions/import/" + jobId)
+        .header("Authorization", other))
+      .andExpect(MockMvcResultMatchers.status().isNotFound())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("导入任务不存在"));
+  }
+
+  @Test
+  void importNdjsonByExtension() throws Exception {
+    String bearer = teacher("qimport_ndjson");
+    String subject = "导入NDJSON" + System.nanoTime() % 100000;
+    String ndjson = "{\"typeCode\":\"TRUE_FALSE\",\"content\":\"地球是圆的\",\"answer\":true,\"difficulty\":1,\"subject\":\"" + subject + "\"}\n"
+      + "not json\n"
+      + "{\"typeCode\":\"SHORT\",\"content\":\"简述\",\"answer\":\"纯文本答案\",\"difficulty\":1,\"subject\":\"" + subject + "\"}\n";
+    String jobId = submit(bearer, new MockMultipartFile("file", "questions.jsonl", "application/x-ndjson", ndjson.getBytes(StandardCharsets.UTF_8)));
+
+    JsonNode job = await(bearer, jobId);
+    assertEquals(3, job.path("total").asInt());
+    assertEquals(2, job.path("succeeded").asInt());
+    assertEquals(2, job.path("errors").path(0).path("line").asInt());
+    assertEquals("JSON 格式不正确", job.path("errors").path(0).path("message").asText());
+    List<Question> rows = questionMapper.selectPage(null, null, null, subject, null, null, 0, 10);
+    assertTrue(rows.stream().anyMatch(q -> "true".equals(q.getAnswer())));
+    assertTrue(rows.stream().anyMatch(q -> "\"纯文本答案\"".equals(q.getAnswer())));
+
+    mockMvc.perform(MockMvcRequestBuilders.multipart("/api/questions/import")
+        .file(new MockMultipartFile("file", "questions.xlsx", "application/octet-stream", new byte[]{1}))
+        .param("format", "xlsx")
+        .header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.status().isBadRequest());
+  }
+
+  private String submit(String bearer, MockMultipartFile file) throws Exception {
+    String body = mockMvc.perform(MockMvcRequestBuilders.multipart("/api/questions/import")
+        .file(file)
+        .header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.filename").value(file.getOriginalFilename()))
+      .andReturn().getResponse().getContentAsString();
+    return objectMapper.readTree(body).path("data").path("jobId").asText();
+  }
+
+  /** 轮询至任务结束，返回任务进度 */
+  private JsonNode await(String bearer, String jobId) throws Exception {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (true) {
+      String body = mockMvc.perform(MockMvcRequestBuilders.get("/api/questions/import/" + jobId)
+          .header("Authorization", bearer))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andReturn().getResponse().getContentAsString();
+      JsonNode job = objectMapper.readTree(body).path("data");
+      if (!"running".equals(job.path("status").asText()) || System.currentTimeMillis() > deadline) return job;
+      Thread.sleep(50);
+    }
+  }
+
+  /** 注册教师并授予 TEACHER 角色（持有 bank:view），返回 Authorization 头 */
+  private String teacher(String username) throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/register")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"username\":\"" + username + "\",\"password\":\"password123\",\"userType\":\"teacher\",\"email\":\"" + username + "@example.com\"}"));
+    Long userId = userMapper.selectByUsername(username).getId();
+    Long roleId = roleMapper.selectAll().stream()
+      .filter(r -> "TEACHER".equals(r.getRoleKey())).map(Role::getId).findFirst().orElseThrow();
+    roleGrantService.replaceUserRoles(userId, List.of(roleId));
+    MvcResult login = mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"" + username + "\",\"password\":\"password123\"}"))
+      .andExpect(MockMvcResultMatchers.request().asyncStarted())
+      .andReturn();
+    String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    return "Bearer " + objectMapper.readTree(body).path("data").path("token").asText();
+  }
+}
@@ -0,0 +1,212 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.chaoxingsystem.config.FilterCache;
+import org.example.chaoxingsystem.security.LoginUser;
+import org.example.chaoxingsystem.user.dto.ApiResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 题目导入任务：CSV/NDJSON 解析与逐行校验、整批写入失败、队列满时的 503
+ * 映射器以动态代理替代并记录 insertBatch 的行；事务模板直接执行回调，可在写入前阻塞以占满工作线程
+ * 题型：1 SINGLE、3 TRUE_FALSE、5 SHORT
+ */
+public class QuestionImportServiceTest {
+  private final List<Question> inserted = new ArrayList<>();
+  private final FilterCache<QuestionFilter, long[]> matchCache = new FilterCache<>("questionMatches", 200, 60);
+  private final QuestionTextIndex textIndex = new QuestionTextIndex(stubMapper(), 0, 10000, matchCache);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private int failOnInsert;
+  private boolean blockWrites;
+  private QuestionImportService service;
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    if (service != null) service.destroy();
+  }
+
+  @Test
+  void csvRowsAreValidatedAndInsertedInBatches() throws Exception {
+    service = service(2, 2, 16);
+    String csv = "typeCode,content,answer,difficulty,subject,options\n"
+      + "SINGLE,1+1=?,\"[\"\"B\"\"]\",1,数学,\"[{\"\"key\"\":\"\"A\"\",\"\"value\"\":\"\"1\"\"},{\"\"key\"\":\"\"B\"\",\"\"value\"\":\"\"2\"\"}]\"\n"
+      + "short,简述事务的特性,原子性与持久性,2,数据库\n"
+      + "SINGLE,选项外的答案,\"[\"\"C\"\"]\",1,数学,\"[{\"\"key\"\":\"\"A\"\",\"\"value\"\":\"\"1\"\"}]\"\n"
+      + "SINGLE,难度越界,\"[\"\"A\"\"]\",9,数学\n"
+      + "NOPE,未知题型,x,1,数学\n"
+      + "SHORT,,答案,1,数学\n";
+    QuestionImportJob job = await(service.submit(7L, file("q.csv", csv), "csv"));
+
+    assertEquals(QuestionImportJob.DONE, job.getStatus());
+    assertEquals(6, job.getTotal());
+    assertEquals(2, job.getSucceeded());
+    assertEquals(4, job.getFailed());
+    assertEquals(List.of(
+      new QuestionImportJob.RowError(3, "答案选项不存在：C"),
+      new QuestionImportJob.RowError(4, "难度须为 1-5"),
+      new QuestionImportJob.RowError(5, "题型无效或未启用"),
+      new QuestionImportJob.RowError(6, "题干不能为空")), job.getErrors());
+    assertEquals("[\"B\"]", inserted.get(0).getAnswer());
+    assertEquals(1, inserted.get(0).getTypeId());
+    // 不是合法 JSON 的答案按字符串入库
+    assertEquals("\"原子性与持久性\"", inserted.get(1).getAnswer());
+    assertEquals(5, inserted.get(1).getTypeId());
+    assertEquals(7L, inserted.get(1).getCreatorId());
+    // 提交后写入检索索引
+    assertEquals(1, textIndex.search("事务的特性").length);
+  }
+
+  @Test
+  void ndjsonKeepsJsonValuesAndWrapsPlainText() throws Exception {
+    service = service(500, 1, 16);
+    String ndjson = "{\"typeCode\":\"TRUE_FALSE\",\"content\":\"地球是圆的\",\"answer\":true,\"difficulty\":1,\"subject\":\"地理\"}\n"
+      + "{\"typeCode\":\"SHORT\",\"content\":\"简述\",\"answer\":\"纯文本答案\",\"difficulty\":1,\"subject\":\"语文\"}\n"
+      + "\n"
+      + "not json\n"
+      + "{\"typeCode\":\"SINGLE\",\"content\":\"选择\",\"answer\":[\"A\"],\"options\":[{\"key\":\"A\",\"value\":\"甲\"}],\"difficulty\":1,\"subject\":\"语文\"}\n"
+      + "{\"typeCode\":\"TRUE_FALSE\",\"content\":\"判断\",\"answer\":\"对\",\"difficulty\":1,\"subject\":\"语文\"}\n";
+    QuestionImportJob job = await(service.submit(7L, file("q.ndjson", ndjson), "ndjson"));
+
+    assertEquals(5, job.getTotal());
+    assertEquals(3, job.getSucceeded());
+    assertEquals(2, job.getFailed());
+    // 行号按文件物理行计，空行跳过但占行号
+    assertEquals(new QuestionImportJob.RowError(4, "JSON 格式不正确"), job.getErrors().get(0));
+    assertEquals(6, job.getErrors().get(1).line());
+    assertEquals("true", inserted.get(0).getAnswer());
+    assertEquals("\"纯文本答案\"", inserted.get(1).getAnswer());
+    assertEquals("[\"A\"]", inserted.get(2).getAnswer());
+    assertEquals("[{\"key\":\"A\",\"value\":\"甲\"}]", inserted.get(2).getOptions());
+  }
+
+  @Test
+  void failedBatchInsertFailsEveryRowOfTheBatch() throws Exception {
+    service = service(2, 1, 16);
+    failOnInsert = 2;
+    String csv = "typeCode,content,answer,difficulty,subject\n"
+      + "SHORT,第一题,甲,1,语文\n"
+      + "SHORT,第二题,乙,1,语文\n"
+      + "SHORT,第三题,丙,1,语文\n"
+      + "SHORT,第四题,丁,1,语文\n"
+      + "SHORT,第五题,戊,0,语文\n"
+      + "SHORT,第六题,己,1,语文\n";
+    QuestionImportJob job = await(service.submit(7L, file("q.csv", csv), "csv"));
+
+    assertEquals(QuestionImportJob.DONE, job.getStatus());
+    assertEquals(6, job.getTotal());
+    assertEquals(3, job.getSucceeded());
+    assertEquals(3, job.getFailed());
+    assertEquals(List.of(
+      new QuestionImportJob.RowError(3, "批量写入失败：Duplicate entry"),
+      new QuestionImportJob.RowError(4, "批量写入失败：Duplicate entry"),
+      new QuestionImportJob.RowError(5, "难度须为 1-5")), job.getErrors());
+    assertEquals(List.of("第一题", "第二题", "第六题"), inserted.stream().map(Question::getContent).toList());
+    assertEquals(0, textIndex.search("第三题").length);
+  }
+
+  @Test
+  void fullQueueIsRejectedWith503AndJobsAreVisibleOnlyToCreator() throws Exception {
+    service = service(500, 1, 1);
+    blockWrites = true;
+    QuestionBankController controller = new QuestionBankController(null, service, null);
+    LoginUser me = new LoginUser(7L, "import_teacher", "teacher");
+    String csv = "typeCode,content,answer,difficulty,subject\nSHORT,题干,答案,1,语文\n";
+
+    // 第一个任务占住唯一的工作线程，第二个进入等待队列，第三个被拒绝
+    ResponseEntity<ApiResponse<HashMap<String, Object>>> running = controller.importFile(me, file("a.csv", csv), null);
+    ResponseEntity<ApiResponse<HashMap<String, Object>>> queued = controller.importFile(me, file("b.csv", csv), null);
+    ResponseEntity<ApiResponse<HashMap<String, Object>>> rejected = controller.importFile(me, file("c.csv", csv), null);
+    assertEquals(200, running.getStatusCode().value());
+    assertEquals(200, queued.getStatusCode().value());
+    assertEquals(503, rejected.getStatusCode().value());
+    assertEquals("7", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    assertEquals(503, rejected.getBody().getCode());
+
+    String jobId = (String) running.getBody().getData().get("jobId");
+    assertEquals(404, controller.importProgress(new LoginUser(8L, "other_teacher", "teacher"), jobId).getStatusCode().value());
+    assertEquals(404, controller.importProgress(me, "no-such-job").getStatusCode().value());
+    assertEquals(QuestionImportJob.RUNNING, controller.importProgress(me, jobId).getBody().getData().getStatus());
+
+    release.countDown();
+    assertEquals(1, await(service.get(jobId, 7L)).getSucceeded());
+    assertEquals(1, await(service.get((String) queued.getBody().getData().get("jobId"), 7L)).getSucceeded());
+    assertEquals(400, controller.importFile(me, file("d.xlsx", csv), "xlsx").getStatusCode().value());
+  }
+
+  private QuestionImportService service(int batchSize, int threads, int queueCapacity) {
+    List<QuestionType> types = List.of(type(1, "SINGLE"), type(3, "TRUE_FALSE"), type(5, "SHORT"));
+    QuestionTypeRegistry registry = new QuestionTypeRegistry(() -> types, 0);
+    registry.afterPropertiesSet();
+    return new QuestionImportService(stubMapper(), registry, textIndex, new FilterCache<>("questionCounts", 200, 60), matchCache,
+      new QuestionAnswerValidators(), new DirectTransactionTemplate(), new ObjectMapper(), batchSize, threads, queueCapacity, 7, 60);
+  }
+
+  private QuestionMapper stubMapper() {
+    return (QuestionMapper) Proxy.newProxyInstance(QuestionMapper.class.getClassLoader(), new Class<?>[]{QuestionMapper.class}, (proxy, method, args) -> {
+      if (!"insertBatch".equals(method.getName())) throw new UnsupportedOperationException(method.getName());
+      @SuppressWarnings("unchecked")
+      List<Question> rows = (List<Question>) args[0];
+      synchronized (inserted) {
+        if (--failOnInsert == 0) throw new IllegalStateException("写入失败", new SQLException("Duplicate entry"));
+        for (Question q : rows) {
+          q.setId((long) inserted.size() + 1);
+          inserted.add(q);
+        }
+      }
+      return rows.size();
+    });
+  }
+
+  /** 不连接事务管理器，直接执行回调；blockWrites 时等待 release 再写入 */
+  private class DirectTransactionTemplate extends TransactionTemplate {
+    @Override
+    public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+      if (blockWrites) {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return action.doInTransaction(new SimpleTransactionStatus());
+    }
+  }
+
+  private static QuestionImportJob await(QuestionImportJob job) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (QuestionImportJob.RUNNING.equals(job.getStatus()) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+    return job;
+  }
+
+  private static MockMultipartFile file(String name, String content) {
+    return new MockMultipartFile("file", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static QuestionType type(int id, String code) {
+    QuestionType t = new QuestionType();
+    t.setTypeId(id);
+    t.setTypeCode(code);
+    t.setIsActive(1);
+    return t;
+  }
+}
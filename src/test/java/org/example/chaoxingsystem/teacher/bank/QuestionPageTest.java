@@ -0,0 +1,80 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** 无关键字的分页：键集游标 (create_time, id) < 与 OFFSET 两条分支结果一致；同一条多行插入的题目 create_time 相同，靠 id 区分 */
+@SpringBootTest
+public class QuestionPageTest {
+
+  @Autowired
+  private QuestionMapper questionMapper;
+
+  @Autowired
+  private QuestionService questionService;
+
+  @Test
+  void keysetAndOffsetPagesAgree() {
+    String subject = "分页" + System.nanoTime();
+    List<Question> rows = new ArrayList<>();
+    for (int i = 0; i < 5; i++) rows.add(question(subject, "分页题" + i));
+    questionMapper.insertBatch(rows);
+    List<Long> expected = rows.stream().map(Question::getId).sorted(Comparator.reverseOrder()).toList();
+
+    List<Long> byOffset = new ArrayList<>();
+    for (int offset = 0; offset < 6; offset += 2) {
+      for (Question q : questionMapper.selectPage(null, null, null, subject, null, null, offset, 2)) byOffset.add(q.getId());
+    }
+    assertEquals(expected, byOffset);
+
+    List<Long> byKeyset = new ArrayList<>();
+    List<Question> page = questionMapper.selectPage(null, null, null, subject, null, null, 0, 2);
+    while (!page.isEmpty()) {
+      for (Question q : page) byKeyset.add(q.getId());
+      Question last = page.get(page.size() - 1);
+      // offset 非零也应被忽略
+      page = questionMapper.selectPage(null, null, null, subject, last.getCreateTime(), last.getId(), 100, 2);
+    }
+    assertEquals(expected, byKeyset);
+  }
+
+  @Test
+  void searchFollowsNextCursor() {
+    String subject = "游标" + System.nanoTime();
+    List<Question> rows = new ArrayList<>();
+    for (int i = 0; i < 5; i++) rows.add(question(subject, "游标题" + i));
+    questionMapper.insertBatch(rows);
+    List<Long> expected = rows.stream().map(Question::getId).sorted(Comparator.reverseOrder()).toList();
+
+    List<Long> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      QuestionService.Page p = questionService.search(null, null, null, subject, 1, 2, cursor);
+      assertEquals(5, p.total());
+      for (Question q : p.list()) seen.add(q.getId());
+      cursor = p.nextCursor();
+      pages++;
+    } while (cursor != null);
+    assertEquals(3, pages);
+    assertEquals(expected, seen);
+  }
+
+  private static Question question(String subject, String content) {
+    Question q = new Question();
+    q.setTypeId(5);
+    q.setContent(content);
+    q.setAnswer("\"文本\"");
+    q.setDifficulty(1);
+    q.setSubject(subject);
+    q.setCreatorId(1L);
+    return q;
+  }
+}
@@ -0,0 +1,95 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.example.chaoxingsystem.config.FilterCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 题库关键字检索基准：questionCount 道由常见词组随机拼成的中文题干，经 QuestionService.search 取第一页（10 条）
+ * - likeScan：索引不可用（max-candidates 为 0），走 count + selectPage 的 LIKE 全表扫描
+ * - bigramIndex：索引求候选，selectMatchingIds 复核，补查 indexedThroughId 之后的新题，再按主键取回当前页；命中列表缓存关闭，每次都复核
+ * - bigramIndexCached：命中列表缓存开启，对应同一条件的翻页与重复查询
+ * 映射器为 InMemoryQuestionMapper：LIKE 逐行折叠后子串匹配，每次调用休眠 dbLatencyMicros 模拟一次数据库往返；不含磁盘读取，LIKE 路径的实际代价只会更高
+ * 关键字均由 WORDS 中的词组拼成，50 万题时分别命中约 6600、6500 与 120 道（均在 max-candidates 以内）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class QuestionSearchBenchmark {
+  private static final String[] WORDS = {
+    "函数", "极限", "导数", "积分", "矩阵", "向量", "概率", "统计", "方程", "不等式",
+    "数列", "集合", "映射", "线程", "进程", "内存", "指针", "数组", "链表", "递归",
+    "排序", "查找", "算法", "复杂度", "网络", "协议", "数据库", "索引", "事务", "并发",
+    "下列", "关于", "说法", "正确", "错误", "的是", "已知", "求解", "计算", "证明",
+    "以下", "选项", "描述", "属于", "不属于", "满足", "条件", "结果", "过程", "定义"
+  };
+
+  @Param({"500000"})
+  public int questionCount;
+
+  @Param({"数据库事务", "链表查找", "递归排序算法"})
+  public String keyword;
+
+  @Param({"200"})
+  public long dbLatencyMicros;
+
+  private QuestionService likeService;
+  private QuestionService indexService;
+  private QuestionService cachedService;
+
+  @Setup
+  public void setup() {
+    InMemoryQuestionMapper mapper = new InMemoryQuestionMapper();
+    Random random = new Random(42);
+    for (int i = 1; i <= questionCount; i++) {
+      StringBuilder sb = new StringBuilder();
+      int words = 20 + random.nextInt(30);
+      for (int w = 0; w < words; w++) sb.append(WORDS[random.nextInt(WORDS.length)]);
+      mapper.add(i, sb.toString(), 1, 1, "综合");
+    }
+    QuestionTypeRegistry registry = new QuestionTypeRegistry(List::of, 0);
+    registry.afterPropertiesSet();
+    likeService = service(mapper, registry, 0, 0);
+    indexService = service(mapper, registry, 10000, 0);
+    cachedService = service(mapper, registry, 10000, 200);
+    // 建索引后再打开往返延迟
+    mapper.latencyMicros = dbLatencyMicros;
+    if (indexService.search(null, keyword, null, null, 1, 10, null).total() != likeService.search(null, keyword, null, null, 1, 10, null).total()) {
+      throw new IllegalStateException("索引路径与 LIKE 路径的总数不一致: " + keyword);
+    }
+  }
+
+  private static QuestionService service(InMemoryQuestionMapper mapper, QuestionTypeRegistry registry, int maxCandidates, int matchCacheEntries) {
+    FilterCache<QuestionFilter, long[]> matchCache = new FilterCache<>("questionMatches", matchCacheEntries, 60);
+    QuestionTextIndex index = new QuestionTextIndex(mapper, 0, maxCandidates, matchCache);
+    index.rebuild();
+    return new QuestionService(mapper, registry, index, new FilterCache<>("questionCounts", 0, 60), matchCache, new QuestionAnswerValidators());
+  }
+
+  @Benchmark
+  public QuestionService.Page likeScan() {
+    return likeService.search(null, keyword, null, null, 1, 10, null);
+  }
+
+  @Benchmark
+  public QuestionService.Page bigramIndex() {
+    return indexService.search(null, keyword, null, null, 1, 10, null);
+  }
+
+  @Benchmark
+  public QuestionService.Page bigramIndexCached() {
+    return cachedService.search(null, keyword, null, null, 1, 10, null);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(QuestionSearchBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,120 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.example.chaoxingsystem.config.FilterCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键字分页的索引路径：候选复核、索引未覆盖的新题补查、r{n} 游标翻页与命中列表缓存
+ * 映射器为 InMemoryQuestionMapper，不启动 Spring，事务外的缓存失效立即生效
+ */
+public class QuestionSearchTest {
+  private final InMemoryQuestionMapper mapper = new InMemoryQuestionMapper();
+  private final FilterCache<QuestionFilter, long[]> matchCache = new FilterCache<>("questionMatches", 200, 60);
+  private QuestionTextIndex index;
+  private QuestionService service;
+
+  @BeforeEach
+  void setUp() {
+    mapper.add(1, "数据库事务的隔离级别", 1, 1, "数据库");
+    mapper.add(2, "数据库索引与数据库事务", 1, 2, "数据库");
+    mapper.add(3, "数据库范式", 2, 1, "数据库");
+    mapper.add(4, "操作系统进程调度", 1, 1, "操作系统");
+    mapper.add(5, "数据库 锁", 1, 1, "操作系统");
+    mapper.add(6, "分布式数据库", 1, 3, "数据库");
+    index = new QuestionTextIndex(mapper, 0, 10000, matchCache);
+    index.afterPropertiesSet();
+    QuestionType single = new QuestionType();
+    single.setTypeId(1);
+    single.setTypeCode("SINGLE");
+    single.setIsActive(1);
+    QuestionTypeRegistry registry = new QuestionTypeRegistry(() -> List.of(single), 0);
+    registry.afterPropertiesSet();
+    service = new QuestionService(mapper, registry, index, new FilterCache<>("questionCounts", 200, 60), matchCache, new QuestionAnswerValidators());
+  }
+
+  @Test
+  void candidatesAreRecheckedAgainstFilters() {
+    // 题干 2 含两次“数据库”排第一，其余按 ID 倒序
+    assertEquals(List.of(2L, 6L, 5L, 3L, 1L), ids(service.search(null, "数据库", null, null, 1, 10, null)));
+    // 题型、学科在复核时过滤；"数据库 锁" 的学科为操作系统
+    QuestionService.Page page = service.search("single", "数据库", null, "数据库", 1, 10, null);
+    assertEquals(List.of(2L, 6L, 1L), ids(page));
+    assertEquals(3, page.total());
+    assertNull(page.nextCursor());
+  }
+
+  @Test
+  void rankCursorPagesThroughMatches() {
+    QuestionService.Page first = service.search(null, "数据库", null, null, 1, 2, null);
+    assertEquals(List.of(2L, 6L), ids(first));
+    assertEquals(5, first.total());
+    assertEquals("r2", first.nextCursor());
+    QuestionService.Page second = service.search(null, "数据库", null, null, 1, 2, first.nextCursor());
+    assertEquals(List.of(5L, 3L), ids(second));
+    assertEquals("r4", second.nextCursor());
+    QuestionService.Page last = service.search(null, "数据库", null, null, 1, 2, second.nextCursor());
+    assertEquals(List.of(1L), ids(last));
+    assertNull(last.nextCursor());
+    // 未传游标时 page 换算为同一位置
+    assertEquals(ids(second), ids(service.search(null, "数据库", null, null, 2, 2, null)));
+    assertEquals(List.of(), ids(service.search(null, "数据库", null, null, 1, 2, "r9")));
+    // 翻页复用缓存的命中列表，只按主键取回当前页
+    assertEquals(1, mapper.calls("selectMatchingIds"));
+    assertEquals(0, mapper.calls("count"));
+    assertEquals(0, mapper.calls("selectPage"));
+  }
+
+  @Test
+  void rowsNewerThanIndexAreScannedByLike() {
+    assertEquals(6, index.indexedThroughId());
+    // 其他进程新增的题目：写入了数据库但未进入本进程索引
+    mapper.add(7, "数据库连接池", 1, 1, "数据库");
+    mapper.add(8, "网络协议", 1, 1, "网络");
+    mapper.add(9, "数据库备份", 1, 1, "数据库");
+    QuestionService.Page page = service.search(null, "数据库", null, null, 1, 10, null);
+    assertEquals(List.of(2L, 6L, 5L, 3L, 1L, 9L, 7L), ids(page));
+    assertEquals(7, page.total());
+    // 已被本进程追加进索引的新题不重复
+    index.index(9, "数据库备份");
+    assertEquals(List.of(2L, 9L, 6L, 5L, 3L, 1L, 7L), ids(service.search(null, "数据库", null, null, 1, 10, null)));
+  }
+
+  @Test
+  void deletedRowsAreDroppedByRecheck() {
+    service.search(null, "数据库", null, null, 1, 10, null);
+    service.delete(6L);
+    // 索引仍返回已删除的 ID，复核将其过滤；删除清空了命中列表缓存
+    assertTrue(contains(index.search("数据库"), 6L));
+    QuestionService.Page page = service.search(null, "数据库", null, null, 1, 10, null);
+    assertEquals(List.of(2L, 5L, 3L, 1L), ids(page));
+    assertEquals(4, page.total());
+    assertEquals(2, mapper.calls("selectMatchingIds"));
+  }
+
+  @Test
+  void wildcardKeywordFallsBackToLike() {
+    mapper.add(7, "命中率 100%", 1, 1, "数据库");
+    QuestionService.Page page = service.search(null, "0%", null, null, 1, 10, null);
+    assertEquals(List.of(7L), ids(page));
+    assertEquals(1, mapper.calls("count"));
+    assertEquals(1, mapper.calls("selectPage"));
+    assertEquals(0, mapper.calls("selectMatchingIds"));
+  }
+
+  private static List<Long> ids(QuestionService.Page page) {
+    List<Long> out = new ArrayList<>();
+    for (Question q : page.list()) out.add(q.getId());
+    return out;
+  }
+
+  private static boolean contains(long[] ids, long id) {
+    for (long v : ids) if (v == id) return true;
+    return false;
+  }
+}
@@ -0,0 +1,168 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.example.chaoxingsystem.config.FilterCache;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.text.Collator;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 题干二元组索引：映射器以动态代理替代，只提供分段加载
+ * LIKE 的参照实现按 utf8mb4_unicode_ci 的主强度比较（忽略大小写、重音与全角/半角），索引候选须是其超集
+ */
+public class QuestionTextIndexTest {
+  private static final String[] CONTENTS = {
+    "Java 中的数据库事务隔离级别",
+    "ＪＡＶＡ 虚拟机的内存模型",
+    "Café 与 Résumé 的拼写",
+    "CAFE RESUME 大写形式",
+    "数据 库 之间有空格",
+    "关于数据库索引的说法正确的是",
+    "求函数 f(x) = x² 的导数",
+    "ｓｅｌｅｃｔ 语句的执行顺序",
+  };
+  private static final String[] KEYWORDS = {
+    "java", "Ｊava", "JAVA 虚", "cafe", "CAFÉ", "résumé", "数据库", "据库事", "数据库索引", "select", "SELECT 语句", "x²", "x2"
+  };
+
+  private final List<Question> rows = new ArrayList<>();
+  private final FilterCache<QuestionFilter, long[]> matchCache = new FilterCache<>("test", 100, 60);
+  private Runnable duringLoad;
+  private boolean failLoad;
+
+  @Test
+  void candidatesCoverEveryLikeMatch() {
+    for (int i = 0; i < CONTENTS.length; i++) rows.add(row(i + 1, CONTENTS[i]));
+    QuestionTextIndex index = build(10000);
+    Collator primary = Collator.getInstance(Locale.ROOT);
+    primary.setStrength(Collator.PRIMARY);
+    for (String keyword : KEYWORDS) {
+      long[] candidates = index.search(keyword);
+      assertNotNull(candidates, keyword);
+      Set<Long> got = new HashSet<>();
+      for (long id : candidates) got.add(id);
+      for (Question q : rows) {
+        if (likeMatches(primary, q.getContent(), keyword)) {
+          assertTrue(got.contains(q.getId()), keyword + " 未覆盖 " + q.getContent());
+        }
+      }
+    }
+    assertEquals(Set.of(1L, 2L), ids(index.search("java")));
+    assertEquals(Set.of(3L, 4L), ids(index.search("CAFÉ")));
+  }
+
+  @Test
+  void wildcardsAndShortKeywordsFallBack() {
+    rows.add(row(1, "百分之10%的题目"));
+    QuestionTextIndex index = build(10000);
+    assertNull(index.search("10%"));
+    assertNull(index.search("a_b"));
+    assertNull(index.search("a\\b"));
+    assertNull(index.search("题"));
+    assertNull(index.search("é"));
+    assertNull(index.search(null));
+    assertEquals(0, index.search("不存在").length);
+  }
+
+  @Test
+  void tooManyCandidatesFallBack() {
+    for (int i = 1; i <= 5; i++) rows.add(row(i, "数据库第" + i + "题"));
+    assertNull(build(4).search("数据库"));
+    assertEquals(5, build(5).search("数据库").length);
+  }
+
+  @Test
+  void ranksByOccurrencesThenNewest() {
+    rows.add(row(1, "索引"));
+    rows.add(row(2, "索引与索引"));
+    rows.add(row(3, "索引"));
+    assertArrayEquals(new long[]{2, 3, 1}, build(10000).search("索引"));
+  }
+
+  @Test
+  void indexDuringRebuildIsReplayed() {
+    rows.add(row(1, "已有题目"));
+    QuestionTextIndex index = build(10000);
+    rows.add(row(2, "重建读到的题目"));
+    // 重建加载期间另一个请求提交了新题，它不在本次读到的数据里，须经 pending 回放进入新索引
+    duringLoad = () -> index.index(50, "加载期间提交");
+    index.rebuild();
+    duringLoad = null;
+    assertEquals(Set.of(50L), ids(index.search("加载期间")));
+    assertEquals(Set.of(2L), ids(index.search("重建读到")));
+    assertEquals(2L, index.indexedThroughId());
+  }
+
+  @Test
+  void failedRebuildKeepsOldIndex() {
+    rows.add(row(1, "已有题目"));
+    QuestionTextIndex index = build(10000);
+    rows.add(row(2, "新题目"));
+    failLoad = true;
+    assertThrows(IllegalStateException.class, index::rebuild);
+    failLoad = false;
+    assertEquals(Set.of(1L), ids(index.search("已有")));
+    assertEquals(1L, index.indexedThroughId());
+    index.index(3, "失败后追加");
+    assertEquals(Set.of(3L), ids(index.search("失败后")));
+  }
+
+  @Test
+  void indexAndRebuildClearMatchCache() {
+    rows.add(row(1, "已有题目"));
+    QuestionTextIndex index = build(10000);
+    AtomicInteger loads = new AtomicInteger();
+    QuestionFilter filter = new QuestionFilter(null, "已有", null, null);
+    matchCache.get(filter, () -> new long[loads.incrementAndGet()]);
+    matchCache.get(filter, () -> new long[loads.incrementAndGet()]);
+    assertEquals(1, loads.get());
+    index.index(2, "已有题目二");
+    matchCache.get(filter, () -> new long[loads.incrementAndGet()]);
+    assertEquals(2, loads.get());
+    index.rebuild();
+    matchCache.get(filter, () -> new long[loads.incrementAndGet()]);
+    assertEquals(3, loads.get());
+  }
+
+  private QuestionTextIndex build(int maxCandidates) {
+    QuestionTextIndex index = new QuestionTextIndex(stubMapper(), 0, maxCandidates, matchCache);
+    index.afterPropertiesSet();
+    return index;
+  }
+
+  private QuestionMapper stubMapper() {
+    return (QuestionMapper) Proxy.newProxyInstance(QuestionMapper.class.getClassLoader(), new Class<?>[]{QuestionMapper.class}, (proxy, method, args) -> {
+      if (!"selectContentAfterId".equals(method.getName())) throw new UnsupportedOperationException(method.getName());
+      if (failLoad) throw new IllegalStateException("加载失败");
+      if (duringLoad != null) duringLoad.run();
+      long afterId = (long) args[0];
+      int limit = (int) args[1];
+      return rows.stream().filter(q -> q.getId() > afterId).sorted(Comparator.comparing(Question::getId)).limit(limit).toList();
+    });
+  }
+
+  /** LIKE '%keyword%' 的参照：存在与关键字等长的子串在主强度下相等 */
+  private static boolean likeMatches(Collator collator, String content, String keyword) {
+    for (int i = 0; i + keyword.length() <= content.length(); i++) {
+      if (collator.compare(content.substring(i, i + keyword.length()), keyword) == 0) return true;
+    }
+    return false;
+  }
+
+  private static Set<Long> ids(long[] ids) {
+    Set<Long> out = new HashSet<>();
+    for (long id : ids) out.add(id);
+    return out;
+  }
+
+  private static Question row(long id, String content) {
+    Question q = new Question();
+    q.setId(id);
+    q.setContent(content);
+    return q;
+  }
+}
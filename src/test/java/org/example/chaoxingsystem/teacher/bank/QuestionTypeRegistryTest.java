@@ -0,0 +1,79 @@
+package org.example.chaoxingsystem.teacher.bank;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 常驻题型字典：映射器以 lambda 替代，refresh-seconds 为 0 不启动后台刷新
+ * 初始字典：1 SINGLE、2 Multi（编码大小写混写）、3 TRUE_FALSE 未启用
+ */
+public class QuestionTypeRegistryTest {
+  private final List<QuestionType> rows = new ArrayList<>();
+  private QuestionTypeRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    rows.add(type(1, "SINGLE", 1));
+    rows.add(type(2, "Multi", 1));
+    rows.add(type(3, "TRUE_FALSE", 0));
+    registry = new QuestionTypeRegistry(() -> new ArrayList<>(rows), 0);
+    registry.afterPropertiesSet();
+  }
+
+  @Test
+  void byCodeIgnoresCase() {
+    assertEquals(1, registry.byCode("single").getTypeId());
+    assertEquals(1, registry.byCode("Single").getTypeId());
+    assertEquals(2, registry.byCode("MULTI").getTypeId());
+    assertEquals(2, registry.byCode("multi").getTypeId());
+    assertNull(registry.byCode("FILL"));
+    assertNull(registry.byCode(null));
+  }
+
+  @Test
+  void unknownIdsReturnNull() {
+    assertEquals("SINGLE", registry.codeOf(1));
+    assertNull(registry.byId(0));
+    assertNull(registry.byId(4));
+    assertNull(registry.byId(-1));
+    assertNull(registry.byId(null));
+    assertNull(registry.codeOf(99));
+    assertNull(registry.codeOf(null));
+  }
+
+  @Test
+  void activeByCodeRejectsInactiveTypes() {
+    assertNotNull(registry.byCode("true_false"));
+    assertNull(registry.activeByCode("true_false"));
+    assertEquals(1, registry.activeByCode("single").getTypeId());
+    assertEquals(List.of(1, 2), registry.active().stream().map(QuestionType::getTypeId).toList());
+  }
+
+  @Test
+  void refreshSwapsSnapshot() {
+    QuestionType single = registry.byId(1);
+    rows.clear();
+    rows.add(type(1, "SINGLE", 0));
+    rows.add(type(5, "FILL", 1));
+    assertSame(single, registry.byId(1));
+    registry.refresh();
+    assertNull(registry.activeByCode("SINGLE"));
+    assertNull(registry.byCode("MULTI"));
+    assertEquals(5, registry.activeByCode("fill").getTypeId());
+    assertEquals("FILL", registry.codeOf(5));
+    assertEquals(List.of(5), registry.active().stream().map(QuestionType::getTypeId).toList());
+  }
+
+  private static QuestionType type(int id, String code, int active) {
+    QuestionType t = new QuestionType();
+    t.setTypeId(id);
+    t.setTypeCode(code);
+    t.setIsActive(active);
+    return t;
+  }
+}
@@ -1,10 +1,13 @@
 package org.example.chaoxingsystem.user;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -16,6 +19,8 @@ public class AuthControllerTest {
   @Autowired
   private MockMvc mockMvc;
 
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
   @Test
   void registerLoginResetFlow() throws Exception {
     String registerJson = "{\"username\":\"student1\",\"password\":\"password123\",\"userType\":\"student\",\"email\":\"student1@example.com\"}";
@@ -34,12 +39,11 @@ public class AuthControllerTest {
       .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(400));
 
     String loginJson = "{\"username\":\"student1\",\"password\":\"password123\"}";
-    mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
-        .contentType(MediaType.APPLICATION_JSON)
-        .content(loginJson))
+    mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login(loginJson)))
       .andExpect(MockMvcResultMatchers.status().isOk())
       .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(200))
       .andExpect(MockMvcResultMatchers.jsonPath("$.data.token").exists())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.refreshToken").exists())
       .andExpect(MockMvcResultMatchers.jsonPath("$.data.userInfo.username").value("student1"))
       .andExpect(MockMvcResultMatchers.jsonPath("$.data.userInfo.userType").value("student"));
 
@@ -52,17 +56,71 @@ public class AuthControllerTest {
       .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("密码重置成功"));
 
     String loginNewJson = "{\"username\":\"student1\",\"password\":\"newpass123\"}";
-    mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
-        .contentType(MediaType.APPLICATION_JSON)
-        .content(loginNewJson))
+    mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login(loginNewJson)))
       .andExpect(MockMvcResultMatchers.status().isOk())
       .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(200));
 
     String badLoginJson = "{\"username\":\"student1\",\"password\":\"badbad\"}";
-    mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
-        .contentType(MediaType.APPLICATION_JSON)
-        .content(badLoginJson))
+    mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login(badLoginJson)))
       .andExpect(MockMvcResultMatchers.status().isUnauthorized())
       .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(401));
   }
-}
\ No newline at end of file
+
+  @Test
+  void refreshRotationAndRevocationOnReset() throws Exception {
+    String registerJson = "{\"username\":\"refresh1\",\"password\":\"password123\",\"userType\":\"student\",\"email\":\"refresh1@example.com\"}";
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/register")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(registerJson));
+    String loginJson = "{\"username\":\"refresh1\",\"password\":\"password123\"}";
+    JsonNode data = objectMapper.readTree(mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(login(loginJson)))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andReturn().getResponse().getContentAsString()).path("data");
+    String refreshJson = "{\"refreshToken\":\"" + data.path("refreshToken").asText() + "\"}";
+
+    // 刷新令牌不能当作访问令牌使用
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/me").header("Authorization", "Bearer " + data.path("refreshToken").asText()))
+      .andExpect(MockMvcResultMatchers.status().isForbidden());
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/refresh")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(refreshJson))
+      .andExpect(MockMvcResultMatchers.status().isOk())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.token").exists())
+      .andExpect(MockMvcResultMatchers.jsonPath("$.data.refreshToken").exists());
+    // 同一刷新令牌重放被拒绝
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/refresh")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(refreshJson))
+      .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+
+    String bearer = "Bearer " + data.path("token").asText();
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/me").header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.status().isOk());
+    // 紧接着重置密码：同一秒内签发的令牌同样被吊销
+    String resetJson = "{\"username\":\"refresh1\",\"newPassword\":\"newpass123\",\"email\":\"refresh1@example.com\"}";
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/reset-password")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(resetJson))
+      .andExpect(MockMvcResultMatchers.status().isOk());
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/me").header("Authorization", bearer))
+      .andExpect(MockMvcResultMatchers.status().isForbidden());
+  }
+
+  @Test
+  void actuatorHealthIsPublicMetricsRequireAdmin() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.get("/actuator/health"))
+      .andExpect(MockMvcResultMatchers.status().isOk());
+    mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics"))
+      .andExpect(MockMvcResultMatchers.status().isForbidden());
+  }
+
+  /** 登录为异步接口，先发起请求再由 asyncDispatch 取回结果 */
+  private MvcResult login(String json) throws Exception {
+    return mockMvc.perform(MockMvcRequestBuilders.post("/api/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(json))
+      .andExpect(MockMvcResultMatchers.request().asyncStarted())
+      .andReturn();
+  }
+}
@@ -0,0 +1,69 @@
+package org.example.chaoxingsystem.user;
+
+import org.example.chaoxingsystem.admin.perm.UserRoleMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * /api/me 处理吞吐基准：对比身份缓存开启（max-size=10000）与关闭（max-size=0）
+ * 映射器以动态代理替代，每次调用休眠 dbLatencyMicros 模拟一次数据库往返
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class MeEndpointBenchmark {
+  @Param({"0", "10000"})
+  public int cacheSize;
+
+  @Param({"200"})
+  public long dbLatencyMicros;
+
+  private AuthController controller;
+  private Authentication authentication;
+
+  @Setup
+  public void setup() {
+    User user = new User();
+    user.setId(1001L);
+    user.setUsername("student1");
+    user.setRealName("student1");
+    user.setUserType("student");
+    UserMapper userMapper = stub(UserMapper.class, user);
+    UserRoleMapper userRoleMapper = stub(UserRoleMapper.class, List.of("STUDENT"));
+    UserService userService = new UserService(userMapper, userRoleMapper,
+      new LoginHashExecutor(1, 1, 2), new UserIdentityCache(cacheSize, 300), null);
+    controller = new AuthController(userService, new TokenService("bench-secret"), null, null, null, null);
+    authentication = new UsernamePasswordAuthenticationToken("student1", null, List.of(new SimpleGrantedAuthority("ROLE_STUDENT")));
+  }
+
+  @Benchmark
+  public Object me() {
+    return controller.me(authentication);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T stub(Class<T> type, Object result) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+      if (method.getDeclaringClass() == Object.class) return method.invoke(this, args);
+      LockSupport.parkNanos(dbLatencyMicros * 1000L);
+      return result;
+    });
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(MeEndpointBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,119 @@
+package org.example.chaoxingsystem.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌编解码基准：对比改造前（字符串拼接 + split + 每次新建 Mac + Map 绑定）与当前实现的
+ * 生成/校验吞吐，并通过 GC profiler 输出每次操作分配字节数（gc.alloc.rate.norm）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+  private static final String SECRET = "bench-secret";
+  private TokenService tokenService;
+  private LegacyCodec legacy;
+  private User user;
+  private String token;
+
+  @Setup
+  public void setup() {
+    tokenService = new TokenService(SECRET);
+    legacy = new LegacyCodec(SECRET);
+    user = new User();
+    user.setId(1001L);
+    user.setUsername("student1");
+    user.setUserType("student");
+    token = tokenService.generateToken(user);
+  }
+
+  @Benchmark
+  public String generateLegacy() {
+    return legacy.generateToken(user);
+  }
+
+  @Benchmark
+  public String generate() {
+    return tokenService.generateToken(user);
+  }
+
+  @Benchmark
+  public Object validateLegacy() {
+    return legacy.parseAndValidate(token);
+  }
+
+  @Benchmark
+  public Object validate() {
+    return tokenService.parseAndValidate(token);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(TokenServiceBenchmark.class.getSimpleName())
+      .addProfiler(GCProfiler.class)
+      .build()).run();
+  }
+
+  /** 改造前的实现，仅用于基准对比 */
+  static final class LegacyCodec {
+    private final String secret;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    LegacyCodec(String secret) { this.secret = secret; }
+
+    String generateToken(User user) {
+      String headerJson = "{\"alg\":\"HS256\",\"typ\":\"JWT\"}";
+      long iat = Instant.now().getEpochSecond();
+      String payloadJson = "{\"sub\":\"" + user.getId() + "\",\"username\":\"" + user.getUsername()
+        + "\",\"userType\":\"" + user.getUserType() + "\",\"iat\":" + iat + "}";
+      String header = base64UrlEncode(headerJson.getBytes(StandardCharsets.UTF_8));
+      String payload = base64UrlEncode(payloadJson.getBytes(StandardCharsets.UTF_8));
+      String toSign = header + "." + payload;
+      return toSign + "." + hmacSha256(toSign);
+    }
+
+    TokenService.TokenData parseAndValidate(String token) {
+      try {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) return null;
+        String expected = hmacSha256(parts[0] + "." + parts[1]);
+        if (!expected.equals(parts[2])) return null;
+        @SuppressWarnings("unchecked") Map<String, Object> json = objectMapper.readValue(Base64.getUrlDecoder().decode(parts[1]), Map.class);
+        Object sub = json.get("sub");
+        return new TokenService.TokenData(sub != null ? Long.valueOf(String.valueOf(sub)) : null,
+          String.valueOf(json.get("username")), String.valueOf(json.get("userType")));
+      } catch (Exception e) {
+        return null;
+      }
+    }
+
+    private String base64UrlEncode(byte[] data) {
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+    }
+
+    private String hmacSha256(String data) {
+      try {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return base64UrlEncode(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}